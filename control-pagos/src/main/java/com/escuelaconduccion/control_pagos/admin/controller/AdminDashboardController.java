@@ -14,11 +14,11 @@ public class AdminDashboardController {
 
     @GetMapping("/dashboard")
     public DashboardDTO getDashboard() {
-        return dashboardService.getDashboard();
+        return dashboardService.getDashboard(null);
     }
 
     @GetMapping("/dashboard/{branchId}")
     public DashboardDTO getDashboardByBranch(@PathVariable Long branchId) {
-        return dashboardService.getDashboardByBranch(branchId);
+        return dashboardService.getDashboard(branchId);
     }
 }
@@ -0,0 +1,72 @@
+package com.escuelaconduccion.control_pagos.admin.controller;
+
+import com.escuelaconduccion.control_pagos.admin.dto.BulkheadStatusDTO;
+import com.escuelaconduccion.control_pagos.admin.dto.OperationalMetricsDTO;
+import com.escuelaconduccion.control_pagos.admin.dto.OutboxConsumerStatusDTO;
+import com.escuelaconduccion.control_pagos.common.bulkhead.BulkheadFilter;
+import com.escuelaconduccion.control_pagos.common.metrics.OperationalMetrics;
+import com.escuelaconduccion.control_pagos.config.ReplicaLagMonitor;
+import com.escuelaconduccion.control_pagos.outbox.service.OutboxRelay;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminMetricsController {
+
+    private final OperationalMetrics operationalMetrics;
+    private final BulkheadFilter bulkheadFilter;
+    private final ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
+    private final OutboxRelay outboxRelay;
+
+    // Timeouts por clase de carga, saturación de bulkheads, retraso de la réplica y de los consumidores del outbox
+    @GetMapping("/metrics")
+    public OperationalMetricsDTO getMetrics() {
+        List<BulkheadStatusDTO> bulkheads = bulkheadFilter.getBulkheads().values().stream()
+                .map(bulkhead -> BulkheadStatusDTO.builder()
+                        .name(bulkhead.getName())
+                        .maxConcurrent(bulkhead.getMaxConcurrent())
+                        .active(bulkhead.getActive())
+                        .waiting(bulkhead.getWaiting())
+                        .rejected(bulkhead.getRejected())
+                        .build())
+                .sorted(Comparator.comparing(BulkheadStatusDTO::getName))
+                .toList();
+
+        ReplicaLagMonitor monitor = replicaLagMonitor.getIfAvailable();
+
+        long head = outboxRelay.getHeadEventId();
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxConsumerStatusDTO> outbox = outboxRelay.getConsumerStates().stream()
+                .map(state -> {
+                    LocalDateTime oldestPending = outboxRelay.getOldestPendingAt(state);
+                    return OutboxConsumerStatusDTO.builder()
+                            .consumer(state.getName())
+                            .checkpoint(state.getCheckpoint())
+                            .lagEvents(Math.max(0, head - state.getCheckpoint()))
+                            .lagSeconds(oldestPending != null
+                                    ? Duration.between(oldestPending, now).toMillis() / 1000.0
+                                    : 0.0)
+                            .lastError(state.getLastError())
+                            .build();
+                })
+                .sorted(Comparator.comparing(OutboxConsumerStatusDTO::getConsumer))
+                .toList();
+
+        return OperationalMetricsDTO.builder()
+                .counters(operationalMetrics.snapshot())
+                .bulkheads(bulkheads)
+                .replicaLagSeconds(monitor != null ? monitor.getLastLagSeconds() : null)
+                .outbox(outbox)
+                .build();
+    }
+}
@@ -1,15 +1,22 @@
 package com.escuelaconduccion.control_pagos.admin.controller;
 
+import com.escuelaconduccion.control_pagos.admin.dto.AgingAccountDTO;
+import com.escuelaconduccion.control_pagos.admin.dto.AgingBasis;
+import com.escuelaconduccion.control_pagos.admin.dto.AgingSummaryDTO;
 import com.escuelaconduccion.control_pagos.admin.dto.CourseFinancialSummaryDTO;
 import com.escuelaconduccion.control_pagos.admin.dto.EnrollmentFinancialStatusDTO;
 import com.escuelaconduccion.control_pagos.admin.dto.StudentDebtDTO;
 import com.escuelaconduccion.control_pagos.admin.service.AdminQueryService;
+import com.escuelaconduccion.control_pagos.admin.service.ReceivablesAgingService;
+import com.escuelaconduccion.control_pagos.common.dto.KeysetPageDTO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -18,6 +25,7 @@ import java.util.List;
 public class AdminQueryController {
 
     private final AdminQueryService adminQueryService;
+    private final ReceivablesAgingService receivablesAgingService;
 
     @GetMapping("/enrollments/{id}/financial-status")
     public EnrollmentFinancialStatusDTO getEnrollmentFinancialStatus(
@@ -26,14 +34,34 @@ public class AdminQueryController {
         return adminQueryService.getFinancialStatus(id);
     }
 
+    // Estado financiero de varias matrículas: /enrollments/financial-status?ids=1,2,3
+    @GetMapping("/enrollments/financial-status")
+    public List<EnrollmentFinancialStatusDTO> getEnrollmentFinancialStatuses(
+            @RequestParam List<Long> ids) {
+
+        return adminQueryService.getFinancialStatuses(ids);
+    }
+
     @GetMapping("/students/with-debt")
     public List<StudentDebtDTO> getStudentsWithDebt() {
-        return adminQueryService.getStudentsWithDebt();
+        return adminQueryService.getStudentsWithDebt(null);
+    }
+
+    // Deudores ordenados por deuda (mayor primero), paginados y con filtros opcionales
+    @GetMapping("/students/with-debt/page")
+    public KeysetPageDTO<StudentDebtDTO> getDebtorsPage(
+            @RequestParam(required = false) Long branchId,  // Solo para SUPER_ADMIN
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) BigDecimal minDebt,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return adminQueryService.getDebtorsPage(branchId, courseId, minDebt, cursor, size);
     }
 
     @GetMapping("/students/with-debt/{branchId}")
     public List<StudentDebtDTO> getStudentsWithDebtByBranch(@PathVariable Long branchId) {
-        return adminQueryService.getStudentsWithDebtByBranch(branchId);
+        return adminQueryService.getStudentsWithDebt(branchId);
     }
 
     @GetMapping("/courses/{id}/summary")
@@ -41,4 +69,24 @@ public class AdminQueryController {
         return adminQueryService.getCourseSummary(id);
     }
 
+    // 📊 Cartera por edades (0-30 / 31-60 / 61-90 / 90+) por sede y curso
+    @GetMapping("/receivables/aging")
+    public List<AgingSummaryDTO> getAgingSummary(
+            @RequestParam(defaultValue = "ENROLLMENT_DATE") AgingBasis basis,
+            @RequestParam(required = false) Long branchId,  // Solo para SUPER_ADMIN
+            @RequestParam(required = false) Long courseId
+    ) {
+        return receivablesAgingService.getAgingSummary(basis, branchId, courseId);
+    }
+
+    @GetMapping("/receivables/aging/accounts")
+    public KeysetPageDTO<AgingAccountDTO> getAgingAccounts(
+            @RequestParam(defaultValue = "ENROLLMENT_DATE") AgingBasis basis,
+            @RequestParam(required = false) Long branchId,  // Solo para SUPER_ADMIN
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return receivablesAgingService.getAgingAccounts(basis, branchId, courseId, cursor, size);
+    }
 }
@@ -0,0 +1,28 @@
+package com.escuelaconduccion.control_pagos.admin.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AgingAccountDTO {
+
+    private Long enrollmentId;
+    private Long studentId;
+    private String studentName;
+    private String studentDocument;
+    private Long courseId;
+    private String courseName;
+    private Long branchId;
+    private LocalDate enrollmentDate;
+    private LocalDate lastPaymentDate;
+    private Integer daysSinceEnrollment;
+    private Integer daysSinceLastPayment;
+    private BigDecimal outstanding;
+    private String bucket;  // 0-30, 31-60, 61-90, 90+
+}
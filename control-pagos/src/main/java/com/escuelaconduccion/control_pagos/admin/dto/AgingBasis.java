@@ -0,0 +1,7 @@
+package com.escuelaconduccion.control_pagos.admin.dto;
+
+// Fecha desde la que se cuenta la antigüedad del saldo
+public enum AgingBasis {
+    ENROLLMENT_DATE,
+    LAST_PAYMENT
+}
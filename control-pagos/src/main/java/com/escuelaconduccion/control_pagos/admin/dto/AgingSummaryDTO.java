@@ -0,0 +1,26 @@
+package com.escuelaconduccion.control_pagos.admin.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+// Fila de cartera por edades; courseId null = subtotal de la sede
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AgingSummaryDTO {
+
+    private Long branchId;
+    private String branchName;
+    private Long courseId;
+    private String courseName;
+
+    private BigDecimal days0To30;
+    private BigDecimal days31To60;
+    private BigDecimal days61To90;
+    private BigDecimal daysOver90;
+    private BigDecimal totalOutstanding;
+    private Long accountCount;
+}
@@ -0,0 +1,18 @@
+package com.escuelaconduccion.control_pagos.admin.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkheadStatusDTO {
+
+    private String name;
+    private Integer maxConcurrent;
+    private Integer active;
+    private Integer waiting;
+    // Rechazos (503) desde el arranque
+    private Long rejected;
+}
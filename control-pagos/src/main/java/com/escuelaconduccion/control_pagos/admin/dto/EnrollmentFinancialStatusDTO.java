@@ -1,11 +1,15 @@
 package com.escuelaconduccion.control_pagos.admin.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class EnrollmentFinancialStatusDTO {
 
     private Long enrollmentId;
@@ -18,4 +22,4 @@ public class EnrollmentFinancialStatusDTO {
     private BigDecimal balance;
 
     private Boolean active;
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.escuelaconduccion.control_pagos.admin.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+// Estado operativo de esta instancia; los contadores se reinician al arrancar
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OperationalMetricsDTO {
+
+    private Map<String, Long> counters;
+    private List<BulkheadStatusDTO> bulkheads;
+    // null si no hay réplica configurada; -1 si la última comprobación falló
+    private Double replicaLagSeconds;
+    private List<OutboxConsumerStatusDTO> outbox;
+}
@@ -0,0 +1,17 @@
+package com.escuelaconduccion.control_pagos.admin.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxConsumerStatusDTO {
+
+    private String consumer;
+    private Long checkpoint;
+    private Long lagEvents;         // Eventos escritos aún no entregados
+    private Double lagSeconds;      // Antigüedad del evento pendiente más viejo; 0 si está al día
+    private String lastError;
+}
@@ -3,19 +3,19 @@ package com.escuelaconduccion.control_pagos.admin.service;
 import com.escuelaconduccion.control_pagos.admin.dto.CourseFinancialSummaryDTO;
 import com.escuelaconduccion.control_pagos.admin.dto.EnrollmentFinancialStatusDTO;
 import com.escuelaconduccion.control_pagos.admin.dto.StudentDebtDTO;
-import com.escuelaconduccion.control_pagos.auth.model.User;
-import com.escuelaconduccion.control_pagos.auth.repository.UserRepository;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import com.escuelaconduccion.control_pagos.common.dto.KeysetPageDTO;
 import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
 import com.escuelaconduccion.control_pagos.enrollment.repository.EnrollmentRepository;
 import com.escuelaconduccion.control_pagos.payment.repository.PaymentRepository;
+import com.escuelaconduccion.control_pagos.student.repository.StudentRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 @Service
@@ -25,57 +25,83 @@ public class AdminQueryService {
 
     private final EnrollmentRepository enrollmentRepository;
     private final PaymentRepository paymentRepository;
-    private final UserRepository userRepository;
+    private final StudentRepository studentRepository;
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_BATCH_IDS = 200;
+
+    // branchId solo lo puede elegir SUPER_ADMIN (null = todas las sedes); ADMIN ve siempre su sede
     @Transactional(readOnly = true)
-    public List<StudentDebtDTO> getStudentsWithDebt() {
-        // Obtener usuario autenticado
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User currentUser = userRepository.findByUsernameAndActiveTrueWithBranch(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        
-        System.out.println("=== DEBUG AdminQueryService.getStudentsWithDebt ===");
-        System.out.println("Usuario: " + currentUser.getUsername());
-        System.out.println("Rol: " + currentUser.getRole());
-        System.out.println("BranchId Usuario: " + (currentUser.getBranch() != null ? currentUser.getBranch().getId() : "null"));
-        
-        List<StudentDebtDTO> students;
-        
-        if (currentUser.getRole().equals("SUPER_ADMIN")) {
-            // SUPER_ADMIN ve todos los estudiantes con deuda
-            students = enrollmentRepository.findStudentsWithDebt();
-            System.out.println("SUPER_ADMIN detectado, mostrando todos los estudiantes con deuda: " + students.size());
-        } else {
-            // ADMIN solo ve estudiantes con deuda de su sede
-            Long filterBranchId = currentUser.getBranch() != null ? currentUser.getBranch().getId() : null;
-            if (filterBranchId != null) {
-                students = enrollmentRepository.findStudentsWithDebtByBranch(filterBranchId);
-                System.out.println("ADMIN detectado, mostrando estudiantes con deuda de sede " + filterBranchId + ": " + students.size());
-            } else {
-                students = List.of(); // Usuario sin sede asignada
-                System.out.println("ADMIN sin sede asignada, devolviendo lista vacía");
+    public List<StudentDebtDTO> getStudentsWithDebt(Long branchId) {
+        Long filterBranchId = BranchScope.resolveBranchFilter(branchId);
+        return filterBranchId != null
+                ? enrollmentRepository.findStudentsWithDebtByBranch(filterBranchId)
+                : enrollmentRepository.findStudentsWithDebt();
+    }
+
+    // Deudores de mayor a menor deuda, paginados por cursor "deuda:idEstudiante". Sin curso se
+    // pagina sobre el saldo persistido por estudiante; con curso hay que agregar sus matrículas
+    @Transactional(readOnly = true)
+    public KeysetPageDTO<StudentDebtDTO> getDebtorsPage(
+            Long branchId,
+            Long courseId,
+            BigDecimal minDebt,
+            String cursor,
+            Integer size
+    ) {
+        // ADMIN solo ve deudores de su sede; sin sede asignada no encuentra ninguno
+        Long filterBranchId = BranchScope.resolveBranchFilter(branchId);
+
+        BigDecimal afterDebt = null;
+        Long afterStudentId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido");
             }
+            afterDebt = new BigDecimal(parts[0]);
+            afterStudentId = Long.parseLong(parts[1]);
+        }
+
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // Se pide una fila extra para saber si hay más páginas
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<StudentDebtDTO> rows = courseId == null
+                ? findDebtors(filterBranchId, minDebt, afterDebt, afterStudentId, page)
+                : enrollmentRepository.findCourseDebtorsPage(
+                        filterBranchId, courseId, minDebt, afterDebt, afterStudentId, page);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<StudentDebtDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            StudentDebtDTO last = items.get(items.size() - 1);
+            nextCursor = last.getTotalDebt().toPlainString() + ":" + last.getStudentId();
         }
-        
-        System.out.println("Total estudiantes con deuda a devolver: " + students.size());
-        System.out.println("=== FIN DEBUG AdminQueryService.getStudentsWithDebt ===");
-        
-        return students;
+
+        return KeysetPageDTO.<StudentDebtDTO>builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .build();
     }
 
-    @Transactional(readOnly = true)
-    public List<StudentDebtDTO> getStudentsWithDebtByBranch(Long branchId) {
-        // Para SUPER_ADMIN que quiere ver estudiantes con deuda de una sede específica
-        System.out.println("=== DEBUG AdminQueryService.getStudentsWithDebtByBranch ===");
-        System.out.println("Solicitando estudiantes con deuda para branchId: " + branchId);
-        
-        List<StudentDebtDTO> students = enrollmentRepository.findStudentsWithDebtByBranch(branchId);
-        
-        System.out.println("Estudiantes con deuda por sede: " + students.size());
-        System.out.println("=== FIN DEBUG AdminQueryService.getStudentsWithDebtByBranch ===");
-        
-        return students;
+    // Saldo persistido por estudiante: una consulta por combinación de sede y cursor
+    private List<StudentDebtDTO> findDebtors(
+            Long branchId, BigDecimal minDebt, BigDecimal afterDebt, Long afterStudentId, PageRequest page) {
+        BigDecimal minimum = minDebt != null ? minDebt : BigDecimal.ZERO;
+        if (branchId == null) {
+            return afterStudentId == null
+                    ? studentRepository.findDebtorsFirstPage(minimum, page)
+                    : studentRepository.findDebtorsPageAfter(minimum, afterDebt, afterStudentId, page);
+        }
+        return afterStudentId == null
+                ? studentRepository.findBranchDebtorsFirstPage(branchId, minimum, page)
+                : studentRepository.findBranchDebtorsPageAfter(branchId, minimum, afterDebt, afterStudentId, page);
     }
 
     public EnrollmentFinancialStatusDTO getFinancialStatus(Long enrollmentId) {
@@ -100,6 +126,16 @@ public class AdminQueryService {
                 .build();
     }
 
+    public List<EnrollmentFinancialStatusDTO> getFinancialStatuses(List<Long> enrollmentIds) {
+        if (enrollmentIds == null || enrollmentIds.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos una matrícula");
+        }
+        if (enrollmentIds.size() > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("Se permiten máximo " + MAX_BATCH_IDS + " matrículas por consulta");
+        }
+        return enrollmentRepository.findFinancialStatusByIds(new LinkedHashSet<>(enrollmentIds));
+    }
+
     public CourseFinancialSummaryDTO getCourseSummary(Long courseId) {
 
         CourseFinancialSummaryDTO summary =
@@ -0,0 +1,180 @@
+package com.escuelaconduccion.control_pagos.admin.service;
+
+import com.escuelaconduccion.control_pagos.admin.dto.AgingAccountDTO;
+import com.escuelaconduccion.control_pagos.admin.dto.AgingBasis;
+import com.escuelaconduccion.control_pagos.admin.dto.AgingSummaryDTO;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import com.escuelaconduccion.control_pagos.common.dto.KeysetPageDTO;
+import com.escuelaconduccion.control_pagos.enrollment.repository.EnrollmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ReceivablesAgingService {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // Misma condición que los índices parciales idx_enrollments_*aging_*: sin ella el planificador
+    // no puede usarlos
+    private static final String AGING_ACCOUNTS_SQL = """
+        SELECT
+            e.id,
+            s.id,
+            s.first_name || ' ' || s.last_name,
+            s.document_number,
+            c.id,
+            c.name,
+            e.branch_id,
+            e.enrollment_date,
+            e.last_payment_date,
+            e.total_amount - e.paid_amount
+        FROM enrollments e
+        JOIN students s ON s.id = e.student_id
+        JOIN courses c ON c.id = e.course_id
+        WHERE e.active = true
+        AND e.total_amount > e.paid_amount
+        """;
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<AgingSummaryDTO> getAgingSummary(AgingBasis basis, Long branchId, Long courseId) {
+        Long filterBranchId = BranchScope.resolveBranchFilter(branchId);
+
+        return enrollmentRepository.getAgingSummaryNative(basis.name(), filterBranchId, courseId).stream()
+                .map(row -> AgingSummaryDTO.builder()
+                        .branchId(row[0] != null ? ((Number) row[0]).longValue() : null)
+                        .branchName((String) row[1])
+                        .courseId(row[2] != null ? ((Number) row[2]).longValue() : null)
+                        .courseName((String) row[3])
+                        .days0To30((BigDecimal) row[4])
+                        .days31To60((BigDecimal) row[5])
+                        .days61To90((BigDecimal) row[6])
+                        .daysOver90((BigDecimal) row[7])
+                        .totalOutstanding((BigDecimal) row[8])
+                        .accountCount(((Number) row[9]).longValue())
+                        .build())
+                .toList();
+    }
+
+    public KeysetPageDTO<AgingAccountDTO> getAgingAccounts(
+            AgingBasis basis,
+            Long branchId,
+            Long courseId,
+            String cursor,
+            Integer size
+    ) {
+        Long filterBranchId = BranchScope.resolveBranchFilter(branchId);
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // El cursor tiene la forma "fechaReferencia:idMatricula" de la última fila entregada
+        LocalDate afterDate = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            // El cursor llega del cliente: un valor mal formado es un error de la petición
+            try {
+                afterDate = LocalDate.parse(parts[0]);
+                afterId = Long.parseLong(parts[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+
+        // La fecha de referencia es una columna guardada (o su COALESCE indexado), así cada página
+        // es un recorrido de índice desde el cursor. Los filtros opcionales se agregan solo si
+        // vienen, para que el planificador vea la sede como columna inicial del índice
+        String referenceDate = basis == AgingBasis.LAST_PAYMENT
+                ? "COALESCE(e.last_payment_date, e.enrollment_date)"
+                : "e.enrollment_date";
+        StringBuilder sql = new StringBuilder(AGING_ACCOUNTS_SQL);
+        List<Object> args = new ArrayList<>();
+        if (filterBranchId != null) {
+            sql.append("AND e.branch_id = ? ");
+            args.add(filterBranchId);
+        }
+        if (courseId != null) {
+            sql.append("AND e.course_id = ? ");
+            args.add(courseId);
+        }
+        if (afterId != null) {
+            sql.append("AND (").append(referenceDate).append(", e.id) > (?, ?) ");
+            args.add(afterDate);
+            args.add(afterId);
+        }
+        // Se pide una fila extra para saber si hay más páginas
+        sql.append("ORDER BY ").append(referenceDate).append(", e.id LIMIT ?");
+        args.add(pageSize + 1);
+
+        LocalDate today = LocalDate.now();
+        List<AgingAccountDTO> rows = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            LocalDate enrollmentDate = rs.getObject(8, LocalDate.class);
+            LocalDate lastPaymentDate = rs.getObject(9, LocalDate.class);
+            int daysSinceEnrollment = (int) ChronoUnit.DAYS.between(enrollmentDate, today);
+            int daysSinceLastPayment = (int) ChronoUnit.DAYS.between(
+                    lastPaymentDate != null ? lastPaymentDate : enrollmentDate, today);
+            long branch = rs.getLong(7);
+            return AgingAccountDTO.builder()
+                    .enrollmentId(rs.getLong(1))
+                    .studentId(rs.getLong(2))
+                    .studentName(rs.getString(3))
+                    .studentDocument(rs.getString(4))
+                    .courseId(rs.getLong(5))
+                    .courseName(rs.getString(6))
+                    .branchId(rs.wasNull() ? null : branch)
+                    .enrollmentDate(enrollmentDate)
+                    .lastPaymentDate(lastPaymentDate)
+                    .daysSinceEnrollment(daysSinceEnrollment)
+                    .daysSinceLastPayment(daysSinceLastPayment)
+                    .outstanding(rs.getBigDecimal(10))
+                    .bucket(bucketFor(basis == AgingBasis.LAST_PAYMENT ? daysSinceLastPayment : daysSinceEnrollment))
+                    .build();
+        }, args.toArray());
+
+        boolean hasMore = rows.size() > pageSize;
+        List<AgingAccountDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            AgingAccountDTO last = items.get(items.size() - 1);
+            LocalDate lastReference = basis == AgingBasis.LAST_PAYMENT && last.getLastPaymentDate() != null
+                    ? last.getLastPaymentDate()
+                    : last.getEnrollmentDate();
+            nextCursor = lastReference + ":" + last.getEnrollmentId();
+        }
+
+        return KeysetPageDTO.<AgingAccountDTO>builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private String bucketFor(int days) {
+        if (days <= 30) {
+            return "0-30";
+        } else if (days <= 60) {
+            return "31-60";
+        } else if (days <= 90) {
+            return "61-90";
+        }
+        return "90+";
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.escuelaconduccion.control_pagos.analytics.controller;
+
+import com.escuelaconduccion.control_pagos.analytics.cube.RevenueDimension;
+import com.escuelaconduccion.control_pagos.analytics.dto.RevenueCubeResultDTO;
+import com.escuelaconduccion.control_pagos.analytics.service.RevenueAnalyticsService;
+import com.escuelaconduccion.control_pagos.payment.model.PaymentType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+public class RevenueAnalyticsController {
+
+    private final RevenueAnalyticsService revenueAnalyticsService;
+
+    // Ej.: ?groupBy=BRANCH,QUARTER,COURSE&from=2025-01&to=2025-12
+    @GetMapping("/revenue")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
+    public RevenueCubeResultDTO getRevenue(
+            @RequestParam(required = false) List<RevenueDimension> groupBy,
+            @RequestParam(required = false) Long branchId,  // Solo para SUPER_ADMIN
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) Long paymentMethodId,
+            @RequestParam(required = false) PaymentType type,
+            @RequestParam(required = false) String from,    // AAAA-MM
+            @RequestParam(required = false) String to       // AAAA-MM
+    ) {
+        return revenueAnalyticsService.query(groupBy, branchId, courseId, paymentMethodId, type, from, to);
+    }
+}
@@ -0,0 +1,26 @@
+package com.escuelaconduccion.control_pagos.analytics.controller;
+
+import com.escuelaconduccion.control_pagos.analytics.dto.SegmentQueryDTO;
+import com.escuelaconduccion.control_pagos.analytics.dto.SegmentResultDTO;
+import com.escuelaconduccion.control_pagos.analytics.service.SegmentQueryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+public class SegmentController {
+
+    private final SegmentQueryService segmentQueryService;
+
+    // Ej.: {"entity":"STUDENT","filter":{"and":[{"field":"ACTIVE","value":"true"},{"field":"HAS_DEBT","value":"true"}]}}
+    @PostMapping("/segments")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
+    public SegmentResultDTO query(@RequestBody SegmentQueryDTO request) {
+        return segmentQueryService.query(request);
+    }
+}
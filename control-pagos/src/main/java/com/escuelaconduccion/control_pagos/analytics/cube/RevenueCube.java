@@ -0,0 +1,214 @@
+package com.escuelaconduccion.control_pagos.analytics.cube;
+
+import com.escuelaconduccion.control_pagos.payment.model.PaymentType;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cubo de ingresos en memoria: una celda por combinación de sede, mes de pago, curso, medio
+ * de pago y tipo de pago, guardada en columnas de primitivos con las medidas en centavos y
+ * cantidad de pagos. Las consultas recorren las celdas (no los pagos), así que su costo
+ * depende de la cantidad de combinaciones y no del volumen de pagos.
+ * <p>
+ * No es thread-safe: quien lo comparte debe protegerlo con un lock.
+ */
+public class RevenueCube {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_VALUE = -1;
+    private static final PaymentType[] PAYMENT_TYPES = PaymentType.values();
+
+    private record CellKey(int branch, int period, int course, int method, int type) {
+    }
+
+    // Resultado de una consulta; las dimensiones no agrupadas quedan en null
+    public record Row(Long branchId, Integer year, Integer quarter, Integer month, Long courseId,
+                      Long paymentMethodId, PaymentType type, long cents, long count) {
+    }
+
+    // Sede 0 = sin sede; el mes se codifica como año * 12 + (mes - 1)
+    private int[] branch = new int[INITIAL_CAPACITY];
+    private int[] yearMonth = new int[INITIAL_CAPACITY];
+    private int[] course = new int[INITIAL_CAPACITY];
+    private int[] method = new int[INITIAL_CAPACITY];
+    private byte[] type = new byte[INITIAL_CAPACITY];
+    private long[] cents = new long[INITIAL_CAPACITY];
+    private long[] count = new long[INITIAL_CAPACITY];
+    private int size;
+
+    private final Map<CellKey, Integer> cellIndex = new HashMap<>();
+
+    public void add(Long branchId, LocalDateTime paymentDate, long courseId, long paymentMethodId,
+                    PaymentType paymentType, long amountCents, long paymentCount) {
+        CellKey key = new CellKey(
+                branchId != null ? Math.toIntExact(branchId) : 0,
+                encodeYearMonth(paymentDate.getYear(), paymentDate.getMonthValue()),
+                Math.toIntExact(courseId),
+                Math.toIntExact(paymentMethodId),
+                paymentType.ordinal());
+        int cell = cellIndex.computeIfAbsent(key, this::newCell);
+        cents[cell] = Math.addExact(cents[cell], amountCents);
+        count[cell] += paymentCount;
+    }
+
+    public void merge(RevenueCube other) {
+        for (int i = 0; i < other.size; i++) {
+            CellKey key = new CellKey(other.branch[i], other.yearMonth[i], other.course[i], other.method[i], other.type[i]);
+            int cell = cellIndex.computeIfAbsent(key, this::newCell);
+            cents[cell] = Math.addExact(cents[cell], other.cents[i]);
+            count[cell] += other.count[i];
+        }
+    }
+
+    public int getCellCount() {
+        return size;
+    }
+
+    // Columnas completas, en el orden que espera readFrom
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(branch[i]);
+            out.writeInt(yearMonth[i]);
+            out.writeInt(course[i]);
+            out.writeInt(method[i]);
+            out.writeByte(type[i]);
+            out.writeLong(cents[i]);
+            out.writeLong(count[i]);
+        }
+    }
+
+    public static RevenueCube readFrom(ByteBuffer in) {
+        RevenueCube cube = new RevenueCube();
+        int cells = in.getInt();
+        for (int i = 0; i < cells; i++) {
+            CellKey key = new CellKey(in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.get());
+            if (key.type() < 0 || key.type() >= PAYMENT_TYPES.length) {
+                throw new IllegalStateException("Tipo de pago desconocido en el snapshot: " + key.type());
+            }
+            int cell = cube.cellIndex.computeIfAbsent(key, cube::newCell);
+            cube.cents[cell] = in.getLong();
+            cube.count[cell] = in.getLong();
+        }
+        return cube;
+    }
+
+    public List<Row> query(RevenueCubeQuery query) {
+        Set<RevenueDimension> groupBy = query.groupBy();
+        boolean byBranch = groupBy.contains(RevenueDimension.BRANCH);
+        boolean byCourse = groupBy.contains(RevenueDimension.COURSE);
+        boolean byMethod = groupBy.contains(RevenueDimension.PAYMENT_METHOD);
+        boolean byType = groupBy.contains(RevenueDimension.PAYMENT_TYPE);
+        // El nivel de tiempo más fino pedido manda: mes, trimestre o año
+        RevenueDimension period = groupBy.contains(RevenueDimension.MONTH) ? RevenueDimension.MONTH
+                : groupBy.contains(RevenueDimension.QUARTER) ? RevenueDimension.QUARTER
+                : groupBy.contains(RevenueDimension.YEAR) ? RevenueDimension.YEAR
+                : null;
+
+        int branchFilter = query.branchId() != null ? Math.toIntExact(query.branchId()) : NO_VALUE;
+        int courseFilter = query.courseId() != null ? Math.toIntExact(query.courseId()) : NO_VALUE;
+        int methodFilter = query.paymentMethodId() != null ? Math.toIntExact(query.paymentMethodId()) : NO_VALUE;
+        int typeFilter = query.type() != null ? query.type().ordinal() : NO_VALUE;
+        int from = query.from() != null ? encodeYearMonth(query.from().getYear(), query.from().getMonthValue()) : Integer.MIN_VALUE;
+        int to = query.to() != null ? encodeYearMonth(query.to().getYear(), query.to().getMonthValue()) : Integer.MAX_VALUE;
+
+        Map<CellKey, long[]> groups = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            if ((branchFilter != NO_VALUE && branch[i] != branchFilter)
+                    || (courseFilter != NO_VALUE && course[i] != courseFilter)
+                    || (methodFilter != NO_VALUE && method[i] != methodFilter)
+                    || (typeFilter != NO_VALUE && type[i] != typeFilter)
+                    || yearMonth[i] < from || yearMonth[i] > to) {
+                continue;
+            }
+            CellKey group = new CellKey(
+                    byBranch ? branch[i] : NO_VALUE,
+                    period != null ? rollUp(yearMonth[i], period) : NO_VALUE,
+                    byCourse ? course[i] : NO_VALUE,
+                    byMethod ? method[i] : NO_VALUE,
+                    byType ? type[i] : NO_VALUE);
+            long[] measures = groups.computeIfAbsent(group, k -> new long[2]);
+            measures[0] = Math.addExact(measures[0], cents[i]);
+            measures[1] += count[i];
+        }
+
+        List<Map.Entry<CellKey, long[]>> sorted = new ArrayList<>(groups.entrySet());
+        sorted.sort(Map.Entry.comparingByKey(Comparator
+                .comparingInt(CellKey::period)
+                .thenComparingInt(CellKey::branch)
+                .thenComparingInt(CellKey::course)
+                .thenComparingInt(CellKey::method)
+                .thenComparingInt(CellKey::type)));
+
+        List<Row> rows = new ArrayList<>(sorted.size());
+        for (Map.Entry<CellKey, long[]> entry : sorted) {
+            rows.add(toRow(entry.getKey(), period, entry.getValue()));
+        }
+        return rows;
+    }
+
+    private int newCell(CellKey key) {
+        if (size == cents.length) {
+            int capacity = size * 2;
+            branch = Arrays.copyOf(branch, capacity);
+            yearMonth = Arrays.copyOf(yearMonth, capacity);
+            course = Arrays.copyOf(course, capacity);
+            method = Arrays.copyOf(method, capacity);
+            type = Arrays.copyOf(type, capacity);
+            cents = Arrays.copyOf(cents, capacity);
+            count = Arrays.copyOf(count, capacity);
+        }
+        branch[size] = key.branch();
+        yearMonth[size] = key.period();
+        course[size] = key.course();
+        method[size] = key.method();
+        type[size] = (byte) key.type();
+        return size++;
+    }
+
+    private static int encodeYearMonth(int year, int month) {
+        return year * 12 + (month - 1);
+    }
+
+    // Mes codificado -> mes, trimestre (año * 4 + trimestre - 1) o año
+    private static int rollUp(int encodedYearMonth, RevenueDimension period) {
+        return switch (period) {
+            case MONTH -> encodedYearMonth;
+            case QUARTER -> (encodedYearMonth / 12) * 4 + (encodedYearMonth % 12) / 3;
+            default -> encodedYearMonth / 12;
+        };
+    }
+
+    private static Row toRow(CellKey key, RevenueDimension period, long[] measures) {
+        Integer year = null;
+        Integer quarter = null;
+        Integer month = null;
+        if (period == RevenueDimension.MONTH) {
+            year = key.period() / 12;
+            month = key.period() % 12 + 1;
+            quarter = (month - 1) / 3 + 1;
+        } else if (period == RevenueDimension.QUARTER) {
+            year = key.period() / 4;
+            quarter = key.period() % 4 + 1;
+        } else if (period == RevenueDimension.YEAR) {
+            year = key.period();
+        }
+        return new Row(
+                key.branch() == NO_VALUE ? null : (key.branch() == 0 ? null : (long) key.branch()),
+                year, quarter, month,
+                key.course() == NO_VALUE ? null : (long) key.course(),
+                key.method() == NO_VALUE ? null : (long) key.method(),
+                key.type() == NO_VALUE ? null : PAYMENT_TYPES[key.type()],
+                measures[0], measures[1]);
+    }
+}
@@ -0,0 +1,21 @@
+package com.escuelaconduccion.control_pagos.analytics.cube;
+
+import com.escuelaconduccion.control_pagos.payment.model.PaymentType;
+
+import java.time.YearMonth;
+import java.util.Set;
+
+/**
+ * Consulta sobre el cubo: dimensiones a conservar (las demás se suman) y filtros
+ * opcionales; null = sin filtro. El rango de meses es inclusivo.
+ */
+public record RevenueCubeQuery(
+        Set<RevenueDimension> groupBy,
+        Long branchId,
+        Long courseId,
+        Long paymentMethodId,
+        PaymentType type,
+        YearMonth from,
+        YearMonth to
+) {
+}
@@ -0,0 +1,12 @@
+package com.escuelaconduccion.control_pagos.analytics.cube;
+
+// Dimensiones por las que se puede agrupar el cubo de ingresos
+public enum RevenueDimension {
+    BRANCH,
+    YEAR,
+    QUARTER,        // Incluye el año
+    MONTH,          // Incluye el año
+    COURSE,
+    PAYMENT_METHOD,
+    PAYMENT_TYPE
+}
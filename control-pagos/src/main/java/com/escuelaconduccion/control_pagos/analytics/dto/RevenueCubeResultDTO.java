@@ -0,0 +1,24 @@
+package com.escuelaconduccion.control_pagos.analytics.dto;
+
+import com.escuelaconduccion.control_pagos.analytics.cube.RevenueDimension;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevenueCubeResultDTO {
+
+    private List<RevenueDimension> groupBy;
+    private List<RevenueCubeRowDTO> rows;
+    private BigDecimal total;
+    private Long paymentCount;
+    private Integer cells;              // Celdas del cubo completo
+    private LocalDateTime loadedAt;     // Última carga completa; después se actualiza por eventos
+    private Long queryMicros;
+}
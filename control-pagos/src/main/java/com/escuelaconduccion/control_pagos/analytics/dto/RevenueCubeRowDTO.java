@@ -0,0 +1,25 @@
+package com.escuelaconduccion.control_pagos.analytics.dto;
+
+import com.escuelaconduccion.control_pagos.payment.model.PaymentType;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+// Las dimensiones que no se agruparon quedan en null
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevenueCubeRowDTO {
+
+    private Long branchId;
+    private Integer year;
+    private Integer quarter;
+    private Integer month;
+    private Long courseId;
+    private Long paymentMethodId;
+    private PaymentType type;
+    private BigDecimal total;
+    private Long paymentCount;
+}
@@ -0,0 +1,28 @@
+package com.escuelaconduccion.control_pagos.analytics.dto;
+
+import com.escuelaconduccion.control_pagos.analytics.segment.SegmentField;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Nodo del filtro de segmento: una condición ({@code field} + {@code value}) o una
+ * combinación ({@code and}, {@code or}, {@code not}). Solo una de las formas por nodo.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SegmentFilterDTO {
+
+    private SegmentField field;
+    private String value;               // Id, true/false o estado de pago según el campo
+    private List<SegmentFilterDTO> and;
+    private List<SegmentFilterDTO> or;
+    private SegmentFilterDTO not;
+}
@@ -0,0 +1,20 @@
+package com.escuelaconduccion.control_pagos.analytics.dto;
+
+import com.escuelaconduccion.control_pagos.analytics.segment.SegmentEntity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SegmentQueryDTO {
+
+    private SegmentEntity entity;       // Por defecto STUDENT
+    private SegmentFilterDTO filter;    // null = todos
+    private Integer idLimit;            // Ids a devolver; por defecto 0 (solo el conteo)
+}
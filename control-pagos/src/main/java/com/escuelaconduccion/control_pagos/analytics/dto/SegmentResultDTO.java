@@ -0,0 +1,21 @@
+package com.escuelaconduccion.control_pagos.analytics.dto;
+
+import com.escuelaconduccion.control_pagos.analytics.segment.SegmentEntity;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SegmentResultDTO {
+
+    private SegmentEntity entity;
+    private Long count;
+    private List<Long> ids;             // Ascendentes, hasta idLimit
+    private LocalDateTime loadedAt;     // Última carga completa; después se actualiza por eventos
+    private Long queryMicros;
+}
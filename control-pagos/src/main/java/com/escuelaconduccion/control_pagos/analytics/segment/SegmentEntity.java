@@ -0,0 +1,6 @@
+package com.escuelaconduccion.control_pagos.analytics.segment;
+
+public enum SegmentEntity {
+    STUDENT,
+    ENROLLMENT
+}
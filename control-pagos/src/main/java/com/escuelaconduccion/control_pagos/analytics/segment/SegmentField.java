@@ -0,0 +1,13 @@
+package com.escuelaconduccion.control_pagos.analytics.segment;
+
+/**
+ * Predicados indexados. Sobre estudiantes, COURSE, PAYMENT_STATUS y HAS_DEBT se cumplen si
+ * alguna de sus matrículas los cumple (cada condición se evalúa por separado).
+ */
+public enum SegmentField {
+    BRANCH,         // Id de sede
+    ACTIVE,         // true / false
+    COURSE,         // Id de curso
+    PAYMENT_STATUS, // PENDIENTE, EN_PROGRESO, PAGADO
+    HAS_DEBT        // Matrícula activa con saldo pendiente: true / false
+}
@@ -0,0 +1,263 @@
+package com.escuelaconduccion.control_pagos.analytics.segment;
+
+import com.escuelaconduccion.control_pagos.common.bitmap.RoaringBitmap;
+import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment.PaymentProgress;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Índices de mapas de bits sobre ids de estudiantes y matrículas, uno por valor de cada
+ * predicado. Las actualizaciones reciben el estado completo del registro, así que aplicar
+ * dos veces el mismo cambio no altera el resultado.
+ * <p>
+ * No es thread-safe: quien lo comparte debe protegerlo con un lock.
+ */
+public class SegmentIndex {
+
+    private static final int UNKNOWN = -1;
+    private static final PaymentProgress[] PAYMENT_STATUSES = PaymentProgress.values();
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private final RoaringBitmap students = new RoaringBitmap();
+    private final RoaringBitmap activeStudents = new RoaringBitmap();
+    private final Map<Integer, RoaringBitmap> studentsByBranch = new HashMap<>();
+    // Sede actual de cada estudiante por id (0 = sin sede), para moverlo de índice al cambiar
+    private int[] studentBranch = new int[0];
+
+    private final RoaringBitmap enrollments = new RoaringBitmap();
+    private final RoaringBitmap activeEnrollments = new RoaringBitmap();
+    private final RoaringBitmap enrollmentsWithDebt = new RoaringBitmap();
+    private final Map<Integer, RoaringBitmap> enrollmentsByBranch = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> enrollmentsByCourse = new HashMap<>();
+    private final Map<PaymentProgress, RoaringBitmap> enrollmentsByPaymentStatus = new EnumMap<>(PaymentProgress.class);
+    private int[] enrollmentStudent = new int[0];
+    private int[] enrollmentBranch = new int[0];
+    private int[] enrollmentCourse = new int[0];
+
+    public void putStudent(long studentId, Long branchId, boolean active) {
+        int id = Math.toIntExact(studentId);
+        removeStudent(studentId);
+        studentBranch = ensureSize(studentBranch, id);
+        int branch = branchId != null ? Math.toIntExact(branchId) : 0;
+        studentBranch[id] = branch;
+        students.add(id);
+        studentsByBranch.computeIfAbsent(branch, k -> new RoaringBitmap()).add(id);
+        if (active) {
+            activeStudents.add(id);
+        }
+    }
+
+    public void removeStudent(long studentId) {
+        int id = Math.toIntExact(studentId);
+        if (!students.contains(id)) {
+            return;
+        }
+        students.remove(id);
+        activeStudents.remove(id);
+        removeFrom(studentsByBranch, studentBranch[id], id);
+        studentBranch[id] = UNKNOWN;
+    }
+
+    public void putEnrollment(long enrollmentId, long studentId, long courseId, Long branchId, boolean active,
+                              BigDecimal totalAmount, BigDecimal paidAmount) {
+        int id = Math.toIntExact(enrollmentId);
+        removeEnrollment(enrollmentId);
+        int branch = branchId != null ? Math.toIntExact(branchId) : 0;
+        addEnrollment(id, Math.toIntExact(studentId), Math.toIntExact(courseId), branch, active);
+        setBalance(id, totalAmount, paidAmount);
+    }
+
+    // Saldo después de un pago o anulación; se ignora si la matrícula no está indexada
+    public void updateBalance(long enrollmentId, BigDecimal totalAmount, BigDecimal paidAmount) {
+        int id = Math.toIntExact(enrollmentId);
+        if (enrollments.contains(id)) {
+            setBalance(id, totalAmount, paidAmount);
+        }
+    }
+
+    public void removeEnrollment(long enrollmentId) {
+        int id = Math.toIntExact(enrollmentId);
+        if (!enrollments.contains(id)) {
+            return;
+        }
+        enrollments.remove(id);
+        activeEnrollments.remove(id);
+        enrollmentsWithDebt.remove(id);
+        removeFrom(enrollmentsByBranch, enrollmentBranch[id], id);
+        removeFrom(enrollmentsByCourse, enrollmentCourse[id], id);
+        for (RoaringBitmap bitmap : enrollmentsByPaymentStatus.values()) {
+            bitmap.remove(id);
+        }
+    }
+
+    public RoaringBitmap allStudents() {
+        return students;
+    }
+
+    public RoaringBitmap allEnrollments() {
+        return enrollments;
+    }
+
+    // Los mapas devueltos son del índice: quien los use no debe modificarlos
+    public RoaringBitmap studentsWhere(SegmentField field, Object value) {
+        return switch (field) {
+            case BRANCH -> studentsByBranch.getOrDefault(Math.toIntExact((Long) value), EMPTY);
+            case ACTIVE -> (Boolean) value ? activeStudents : RoaringBitmap.andNot(students, activeStudents);
+            default -> studentsOf(enrollmentsWhere(field, value));
+        };
+    }
+
+    public RoaringBitmap enrollmentsWhere(SegmentField field, Object value) {
+        return switch (field) {
+            case BRANCH -> enrollmentsByBranch.getOrDefault(Math.toIntExact((Long) value), EMPTY);
+            case COURSE -> enrollmentsByCourse.getOrDefault(Math.toIntExact((Long) value), EMPTY);
+            case ACTIVE -> (Boolean) value ? activeEnrollments : RoaringBitmap.andNot(enrollments, activeEnrollments);
+            case PAYMENT_STATUS -> enrollmentsByPaymentStatus.getOrDefault((PaymentProgress) value, EMPTY);
+            case HAS_DEBT -> (Boolean) value ? enrollmentsWithDebt : RoaringBitmap.andNot(enrollments, enrollmentsWithDebt);
+        };
+    }
+
+    public RoaringBitmap studentsOf(RoaringBitmap enrollmentIds) {
+        RoaringBitmap result = new RoaringBitmap();
+        enrollmentIds.forEach(id -> result.add(enrollmentStudent[id]));
+        return result;
+    }
+
+    public long getSizeInBytes() {
+        long bytes = students.getSizeInBytes() + activeStudents.getSizeInBytes()
+                + enrollments.getSizeInBytes() + activeEnrollments.getSizeInBytes()
+                + enrollmentsWithDebt.getSizeInBytes();
+        for (RoaringBitmap bitmap : studentsByBranch.values()) {
+            bytes += bitmap.getSizeInBytes();
+        }
+        for (Map<?, RoaringBitmap> index : Arrays.asList(enrollmentsByBranch, enrollmentsByCourse, enrollmentsByPaymentStatus)) {
+            for (RoaringBitmap bitmap : index.values()) {
+                bytes += bitmap.getSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Un registro por estudiante y por matrícula con los valores indexados; los montos no se
+     * guardan, solo el estado de pago y la deuda que se derivaron de ellos.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        int[] studentIds = students.toArray(Integer.MAX_VALUE);
+        out.writeInt(studentIds.length);
+        for (int id : studentIds) {
+            out.writeInt(id);
+            out.writeInt(studentBranch[id]);
+            out.writeBoolean(activeStudents.contains(id));
+        }
+
+        int[] enrollmentIds = enrollments.toArray(Integer.MAX_VALUE);
+        out.writeInt(enrollmentIds.length);
+        for (int id : enrollmentIds) {
+            out.writeInt(id);
+            out.writeInt(enrollmentStudent[id]);
+            out.writeInt(enrollmentCourse[id]);
+            out.writeInt(enrollmentBranch[id]);
+            out.writeBoolean(activeEnrollments.contains(id));
+            out.writeBoolean(enrollmentsWithDebt.contains(id));
+            out.writeByte(paymentStatusOf(id).ordinal());
+        }
+    }
+
+    public static SegmentIndex readFrom(ByteBuffer in) {
+        SegmentIndex index = new SegmentIndex();
+        int studentCount = in.getInt();
+        for (int i = 0; i < studentCount; i++) {
+            int id = in.getInt();
+            int branch = in.getInt();
+            index.putStudent(id, branch != 0 ? (long) branch : null, in.get() != 0);
+        }
+
+        int enrollmentCount = in.getInt();
+        for (int i = 0; i < enrollmentCount; i++) {
+            int id = in.getInt();
+            int student = in.getInt();
+            int course = in.getInt();
+            int branch = in.getInt();
+            index.addEnrollment(id, student, course, branch, in.get() != 0);
+            if (in.get() != 0) {
+                index.enrollmentsWithDebt.add(id);
+            }
+            int status = in.get();
+            if (status < 0 || status >= PAYMENT_STATUSES.length) {
+                throw new IllegalStateException("Estado de pago desconocido en el snapshot: " + status);
+            }
+            index.enrollmentsByPaymentStatus.computeIfAbsent(PAYMENT_STATUSES[status], k -> new RoaringBitmap()).add(id);
+        }
+        return index;
+    }
+
+    private void addEnrollment(int id, int student, int course, int branch, boolean active) {
+        enrollmentStudent = ensureSize(enrollmentStudent, id);
+        enrollmentBranch = ensureSize(enrollmentBranch, id);
+        enrollmentCourse = ensureSize(enrollmentCourse, id);
+        enrollmentStudent[id] = student;
+        enrollmentBranch[id] = branch;
+        enrollmentCourse[id] = course;
+
+        enrollments.add(id);
+        enrollmentsByBranch.computeIfAbsent(branch, k -> new RoaringBitmap()).add(id);
+        enrollmentsByCourse.computeIfAbsent(course, k -> new RoaringBitmap()).add(id);
+        if (active) {
+            activeEnrollments.add(id);
+        }
+    }
+
+    private PaymentProgress paymentStatusOf(int id) {
+        for (Map.Entry<PaymentProgress, RoaringBitmap> entry : enrollmentsByPaymentStatus.entrySet()) {
+            if (entry.getValue().contains(id)) {
+                return entry.getKey();
+            }
+        }
+        return PaymentProgress.PENDIENTE;
+    }
+
+    private void setBalance(int id, BigDecimal totalAmount, BigDecimal paidAmount) {
+        PaymentProgress status = PaymentProgress.from(totalAmount, paidAmount);
+        for (Map.Entry<PaymentProgress, RoaringBitmap> entry : enrollmentsByPaymentStatus.entrySet()) {
+            if (entry.getKey() != status) {
+                entry.getValue().remove(id);
+            }
+        }
+        enrollmentsByPaymentStatus.computeIfAbsent(status, k -> new RoaringBitmap()).add(id);
+
+        // Misma regla que el listado de estudiantes con deuda: matrícula activa con saldo
+        BigDecimal paid = paidAmount != null ? paidAmount : BigDecimal.ZERO;
+        if (activeEnrollments.contains(id) && totalAmount != null && totalAmount.compareTo(paid) > 0) {
+            enrollmentsWithDebt.add(id);
+        } else {
+            enrollmentsWithDebt.remove(id);
+        }
+    }
+
+    private static void removeFrom(Map<Integer, RoaringBitmap> index, int key, int id) {
+        RoaringBitmap bitmap = index.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static int[] ensureSize(int[] column, int id) {
+        if (id < column.length) {
+            return column;
+        }
+        int[] grown = Arrays.copyOf(column, Math.max(id + 1, column.length * 2));
+        Arrays.fill(grown, column.length, grown.length, UNKNOWN);
+        return grown;
+    }
+}
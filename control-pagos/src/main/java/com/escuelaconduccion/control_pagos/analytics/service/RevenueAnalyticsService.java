@@ -0,0 +1,99 @@
+package com.escuelaconduccion.control_pagos.analytics.service;
+
+import com.escuelaconduccion.control_pagos.analytics.cube.RevenueCube;
+import com.escuelaconduccion.control_pagos.analytics.cube.RevenueCubeQuery;
+import com.escuelaconduccion.control_pagos.analytics.cube.RevenueDimension;
+import com.escuelaconduccion.control_pagos.analytics.dto.RevenueCubeResultDTO;
+import com.escuelaconduccion.control_pagos.analytics.dto.RevenueCubeRowDTO;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import com.escuelaconduccion.control_pagos.common.money.Money;
+import com.escuelaconduccion.control_pagos.common.money.MoneyAccumulator;
+import com.escuelaconduccion.control_pagos.payment.model.PaymentType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Consultas de corte, filtro y agregación sobre el cubo de ingresos (por mes de pago).
+ * Se responden en memoria, sin consultar la base de datos.
+ */
+@Service
+@RequiredArgsConstructor
+public class RevenueAnalyticsService {
+
+    private final RevenueCubeService revenueCubeService;
+
+    public RevenueCubeResultDTO query(
+            List<RevenueDimension> groupBy,
+            Long branchId,
+            Long courseId,
+            Long paymentMethodId,
+            PaymentType type,
+            String from,
+            String to
+    ) {
+        long started = System.nanoTime();
+
+        Set<RevenueDimension> dimensions = groupBy == null || groupBy.isEmpty()
+                ? EnumSet.of(RevenueDimension.MONTH)
+                : EnumSet.copyOf(groupBy);
+        YearMonth fromMonth = parseYearMonth(from, "from");
+        YearMonth toMonth = parseYearMonth(to, "to");
+        if (fromMonth != null && toMonth != null && fromMonth.isAfter(toMonth)) {
+            throw new IllegalArgumentException("El mes inicial no puede ser posterior al final");
+        }
+
+        // ADMIN solo ve los ingresos de su sede
+        RevenueCubeQuery query = new RevenueCubeQuery(dimensions, BranchScope.resolveBranchFilter(branchId),
+                courseId, paymentMethodId, type, fromMonth, toMonth);
+        List<RevenueCube.Row> rows = revenueCubeService.query(query);
+
+        MoneyAccumulator total = new MoneyAccumulator();
+        long totalCount = 0;
+        for (RevenueCube.Row row : rows) {
+            total.addCents(row.cents());
+            totalCount += row.count();
+        }
+
+        return RevenueCubeResultDTO.builder()
+                .groupBy(List.copyOf(dimensions))
+                .rows(rows.stream().map(this::toDTO).toList())
+                .total(total.toBigDecimal())
+                .paymentCount(totalCount)
+                .cells(revenueCubeService.getCellCount())
+                .loadedAt(revenueCubeService.getLoadedAt())
+                .queryMicros((System.nanoTime() - started) / 1_000)
+                .build();
+    }
+
+    private RevenueCubeRowDTO toDTO(RevenueCube.Row row) {
+        return RevenueCubeRowDTO.builder()
+                .branchId(row.branchId())
+                .year(row.year())
+                .quarter(row.quarter())
+                .month(row.month())
+                .courseId(row.courseId())
+                .paymentMethodId(row.paymentMethodId())
+                .type(row.type())
+                .total(Money.toBigDecimal(row.cents()))
+                .paymentCount(row.count())
+                .build();
+    }
+
+    // Formato AAAA-MM
+    private static YearMonth parseYearMonth(String value, String field) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Mes inválido en '" + field + "': use el formato AAAA-MM");
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.escuelaconduccion.control_pagos.analytics.service;
+
+import com.escuelaconduccion.control_pagos.analytics.cube.RevenueCube;
+import com.escuelaconduccion.control_pagos.analytics.cube.RevenueCubeQuery;
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadClass;
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadContext;
+import com.escuelaconduccion.control_pagos.common.metrics.OperationalMetrics;
+import com.escuelaconduccion.control_pagos.common.money.Money;
+import com.escuelaconduccion.control_pagos.common.snapshot.SnapshotParticipant;
+import com.escuelaconduccion.control_pagos.common.snapshot.SnapshotService;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxEvent;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxEventType;
+import com.escuelaconduccion.control_pagos.outbox.service.OutboxConsumer;
+import com.escuelaconduccion.control_pagos.outbox.service.OutboxService;
+import com.escuelaconduccion.control_pagos.payment.event.PaymentEventPayload;
+import com.escuelaconduccion.control_pagos.payment.model.PaymentStatus;
+import com.escuelaconduccion.control_pagos.payment.model.PaymentType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mantiene el {@link RevenueCube} de pagos confirmados (vigentes y archivados). Se carga al
+ * arrancar leyendo los pagos por rangos de id en paralelo, y después se actualiza con los
+ * eventos de pago del outbox.
+ * <p>
+ * Los eventos llegan al menos una vez: el conjunto de pagos contados hace que registrar o
+ * anular dos veces el mismo pago no cambie el resultado. Por eso también puede restaurarse
+ * desde un snapshot y reanudar desde su marca de agua.
+ */
+@Service
+@Slf4j
+public class RevenueCubeService implements OutboxConsumer, SnapshotParticipant {
+
+    private static final String CONSUMER_NAME = "revenue-cube";
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private static final String ID_RANGE_SQL = """
+            SELECT COALESCE(MIN(id), 0), COALESCE(MAX(id), 0) FROM (
+                SELECT id FROM payments
+                UNION ALL
+                SELECT id FROM archived_payments
+            ) ids
+            """;
+
+    private static final String LOAD_SQL = """
+            SELECT p.id, p.branch_id, p.payment_date, e.course_id, p.payment_method_id, p.type, p.amount
+            FROM payments p
+            JOIN enrollments e ON e.id = p.enrollment_id
+            WHERE p.status = 'CONFIRMADO' AND p.id BETWEEN ? AND ?
+            UNION ALL
+            SELECT ap.id, ap.branch_id, ap.payment_date, ae.course_id,
+                   CAST(ap.data ->> 'payment_method_id' AS bigint), ap.data ->> 'type',
+                   CAST(ap.data ->> 'amount' AS numeric)
+            FROM archived_payments ap
+            JOIN archived_enrollments ae ON ae.id = ap.enrollment_id
+            WHERE ap.data ->> 'status' = 'CONFIRMADO' AND ap.id BETWEEN ? AND ?
+            """;
+
+    private record Partition(RevenueCube cube, BitSet counted) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TaskExecutor queryExecutor;
+    private final OutboxService outboxService;
+    private final OperationalMetrics operationalMetrics;
+    private final SnapshotService snapshotService;
+    private final int loadPartitions;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private RevenueCube cube = new RevenueCube();
+    // Pagos incluidos en el cubo, por id
+    private BitSet counted = new BitSet();
+    private volatile boolean ready;
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private volatile long watermark;
+    // Último evento aplicado (o la marca de la carga): marca de agua de los snapshots
+    private long position;
+    private volatile LocalDateTime loadedAt;
+
+    public RevenueCubeService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Qualifier("queryExecutor") TaskExecutor queryExecutor,
+                              OutboxService outboxService,
+                              OperationalMetrics operationalMetrics,
+                              SnapshotService snapshotService,
+                              @Value("${revenue-cube.load-partitions:4}") int loadPartitions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.queryExecutor = queryExecutor;
+        this.outboxService = outboxService;
+        this.operationalMetrics = operationalMetrics;
+        this.snapshotService = snapshotService;
+        this.loadPartitions = Math.max(1, loadPartitions);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!snapshotService.restore(this)) {
+            tryLoad();
+        }
+    }
+
+    // Si la carga inicial falló (p. ej. base de datos no disponible) se reintenta
+    @Scheduled(fixedDelayString = "${revenue-cube.retry-ms:60000}", initialDelayString = "${revenue-cube.retry-ms:60000}")
+    public void retryLoad() {
+        if (!ready) {
+            tryLoad();
+        }
+    }
+
+    private void tryLoad() {
+        if (!loading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.error("No se pudo cargar el cubo de ingresos: {}", e.getMessage(), e);
+        } finally {
+            loading.set(false);
+        }
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        // La marca se toma antes de leer: lo confirmado durante la carga llega también por eventos
+        long replayFrom = outboxService.getReplayStart();
+
+        Long[] range = jdbcTemplate.queryForObject(ID_RANGE_SQL,
+                (rs, rowNum) -> new Long[]{rs.getLong(1), rs.getLong(2)});
+        long minId = range[0];
+        long maxId = range[1];
+        long step = Math.max(1, (maxId - minId) / loadPartitions + 1);
+
+        // Las lecturas van al pool de conexiones de reportes
+        WorkloadClass previous = WorkloadContext.current();
+        WorkloadContext.set(WorkloadClass.REPORT);
+        List<CompletableFuture<Partition>> futures = new ArrayList<>();
+        try {
+            for (long from = minId; from <= maxId; from += step) {
+                long partitionFrom = from;
+                long partitionTo = Math.min(maxId, from + step - 1);
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> readOnlyTransaction.execute(status -> loadPartition(partitionFrom, partitionTo)),
+                        queryExecutor));
+            }
+        } finally {
+            WorkloadContext.set(previous);
+        }
+
+        RevenueCube merged = new RevenueCube();
+        BitSet mergedCounted = new BitSet();
+        for (CompletableFuture<Partition> future : futures) {
+            Partition partition = future.join();
+            merged.merge(partition.cube());
+            mergedCounted.or(partition.counted());
+        }
+
+        lock.writeLock().lock();
+        try {
+            cube = merged;
+            counted = mergedCounted;
+            watermark = replayFrom;
+            position = replayFrom;
+            loadedAt = LocalDateTime.now();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Cubo de ingresos cargado: {} pagos, {} celdas en {} ms",
+                mergedCounted.cardinality(), merged.getCellCount(),
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    public List<RevenueCube.Row> query(RevenueCubeQuery query) {
+        if (!ready) {
+            throw new IllegalStateException("El cubo de ingresos se está cargando. Intente de nuevo en unos segundos.");
+        }
+        lock.readLock().lock();
+        try {
+            return cube.query(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getCellCount() {
+        lock.readLock().lock();
+        try {
+            return cube.getCellCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public LocalDateTime getLoadedAt() {
+        return loadedAt;
+    }
+
+    @Override
+    public String getName() {
+        return CONSUMER_NAME;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    // El estado es solo de memoria: se reanuda desde la marca de la carga, no desde el checkpoint guardado
+    @Override
+    public long resumeFrom(long savedCheckpoint) {
+        return watermark;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        PaymentEventPayload payment = switch (event.getEventType()) {
+            case PAYMENT_REGISTERED, PAYMENT_CANCELLED -> outboxService.readPayload(event, PaymentEventPayload.class);
+            default -> null; // Los demás eventos no cambian los ingresos
+        };
+        lock.writeLock().lock();
+        try {
+            if (event.getEventType() == OutboxEventType.PAYMENT_REGISTERED && payment.status() == PaymentStatus.CONFIRMADO) {
+                apply(payment, true);
+            } else if (event.getEventType() == OutboxEventType.PAYMENT_CANCELLED) {
+                apply(payment, false);
+            }
+            position = event.getSeq();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(PaymentEventPayload payment, boolean confirmed) {
+        int id = Math.toIntExact(payment.paymentId());
+        if (counted.get(id) == confirmed) {
+            operationalMetrics.increment("revenue-cube.duplicates");
+            return;
+        }
+        long cents = Money.toCents(payment.amount());
+        cube.add(payment.branchId(), payment.paymentDate(), payment.courseId(), payment.paymentMethodId(),
+                typeOrDefault(payment.type()), confirmed ? cents : -cents, confirmed ? 1 : -1);
+        counted.set(id, confirmed);
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return CONSUMER_NAME;
+    }
+
+    @Override
+    public int getSnapshotVersion() {
+        return SNAPSHOT_VERSION;
+    }
+
+    @Override
+    public long writeSnapshot(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            cube.writeTo(out);
+            long[] words = counted.toLongArray();
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+            return position;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void restoreSnapshot(ByteBuffer data, long snapshotWatermark, LocalDateTime createdAt) {
+        RevenueCube restored = RevenueCube.readFrom(data);
+        long[] words = new long[data.getInt()];
+        data.asLongBuffer().get(words);
+
+        lock.writeLock().lock();
+        try {
+            cube = restored;
+            counted = BitSet.valueOf(words);
+            watermark = snapshotWatermark;
+            position = snapshotWatermark;
+            loadedAt = createdAt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Partition loadPartition(long fromId, long toId) {
+        RevenueCube partial = new RevenueCube();
+        BitSet partialCounted = new BitSet();
+        jdbcTemplate.query(LOAD_SQL, (ResultSet rs) -> {
+            int id = Math.toIntExact(rs.getLong(1));
+            // Un pago archivado durante la carga puede aparecer en ambas tablas
+            if (partialCounted.get(id)) {
+                return;
+            }
+            partialCounted.set(id);
+            partial.add(
+                    nullableLong(rs, 2),
+                    rs.getTimestamp(3).toLocalDateTime(),
+                    rs.getLong(4),
+                    rs.getLong(5),
+                    typeOrDefault(rs.getString(6) != null ? PaymentType.valueOf(rs.getString(6)) : null),
+                    Money.toCents(rs.getBigDecimal(7)),
+                    1);
+        }, fromId, toId, fromId, toId);
+        return new Partition(partial, partialCounted);
+    }
+
+    private static Long nullableLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    // Los pagos antiguos sin tipo se cuentan como abono
+    private static PaymentType typeOrDefault(PaymentType type) {
+        return type != null ? type : PaymentType.ABONO;
+    }
+}
@@ -0,0 +1,282 @@
+package com.escuelaconduccion.control_pagos.analytics.service;
+
+import com.escuelaconduccion.control_pagos.analytics.segment.SegmentIndex;
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadClass;
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadContext;
+import com.escuelaconduccion.control_pagos.common.snapshot.SnapshotParticipant;
+import com.escuelaconduccion.control_pagos.common.snapshot.SnapshotService;
+import com.escuelaconduccion.control_pagos.enrollment.event.EnrollmentEventPayload;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxEvent;
+import com.escuelaconduccion.control_pagos.outbox.service.OutboxConsumer;
+import com.escuelaconduccion.control_pagos.outbox.service.OutboxService;
+import com.escuelaconduccion.control_pagos.payment.event.PaymentEventPayload;
+import com.escuelaconduccion.control_pagos.student.event.StudentEventPayload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Mantiene el {@link SegmentIndex} de estudiantes y matrículas. Se carga al arrancar, se
+ * actualiza con los eventos del outbox y se reconstruye cada noche para recoger cambios que
+ * no pasan por eventos (archivado, correcciones directas en la base de datos).
+ */
+@Service
+@Slf4j
+public class SegmentIndexService implements OutboxConsumer, SnapshotParticipant {
+
+    private static final String CONSUMER_NAME = "segment-index";
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private static final String STUDENTS_SQL = "SELECT id, branch_id, active FROM students";
+
+    private static final String ENROLLMENTS_SQL = """
+            SELECT id, student_id, course_id, branch_id, active, total_amount, paid_amount
+            FROM enrollments
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final OutboxService outboxService;
+    private final SnapshotService snapshotService;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private SegmentIndex index = new SegmentIndex();
+    private volatile boolean ready;
+    private final AtomicBoolean loading = new AtomicBoolean();
+    // Eventos entregados mientras se reconstruye: se aplican de nuevo sobre el índice nuevo
+    private List<OutboxEvent> pendingDuringLoad;
+    private volatile long watermark;
+    // Último evento aplicado (o la marca de la carga): marca de agua de los snapshots
+    private long position;
+    private volatile LocalDateTime loadedAt;
+
+    public SegmentIndexService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               OutboxService outboxService,
+                               SnapshotService snapshotService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.outboxService = outboxService;
+        this.snapshotService = snapshotService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!snapshotService.restore(this)) {
+            tryLoad();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${segment-index.retry-ms:60000}", initialDelayString = "${segment-index.retry-ms:60000}")
+    public void retryLoad() {
+        if (!ready) {
+            tryLoad();
+        }
+    }
+
+    @Scheduled(cron = "${segment-index.rebuild-cron:0 15 3 * * *}")
+    public void nightlyRebuild() {
+        tryLoad();
+    }
+
+    private void tryLoad() {
+        if (!loading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.error("No se pudo cargar el índice de segmentos: {}", e.getMessage(), e);
+        } finally {
+            lock.writeLock().lock();
+            pendingDuringLoad = null;
+            lock.writeLock().unlock();
+            loading.set(false);
+        }
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        long replayFrom = outboxService.getReplayStart();
+        lock.writeLock().lock();
+        try {
+            pendingDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Estudiantes y matrículas se leen en la misma transacción para ver un estado coherente
+        WorkloadClass previous = WorkloadContext.current();
+        WorkloadContext.set(WorkloadClass.REPORT);
+        SegmentIndex loaded;
+        try {
+            loaded = readOnlyTransaction.execute(status -> readIndex());
+        } finally {
+            WorkloadContext.set(previous);
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (OutboxEvent event : pendingDuringLoad) {
+                apply(loaded, event);
+            }
+            index = loaded;
+            if (!ready) {
+                watermark = replayFrom;
+                position = replayFrom;
+            }
+            loadedAt = LocalDateTime.now();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de segmentos cargado: {} estudiantes, {} matrículas, {} KB en {} ms",
+                loaded.allStudents().getCardinality(), loaded.allEnrollments().getCardinality(),
+                loaded.getSizeInBytes() / 1024, Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    private SegmentIndex readIndex() {
+        SegmentIndex loaded = new SegmentIndex();
+        jdbcTemplate.query(STUDENTS_SQL, (ResultSet rs) -> {
+            loaded.putStudent(rs.getLong(1), nullableLong(rs, 2), rs.getBoolean(3));
+        });
+        jdbcTemplate.query(ENROLLMENTS_SQL, (ResultSet rs) -> {
+            loaded.putEnrollment(rs.getLong(1), rs.getLong(2), rs.getLong(3), nullableLong(rs, 4),
+                    rs.getBoolean(5), rs.getBigDecimal(6), rs.getBigDecimal(7));
+        });
+        return loaded;
+    }
+
+    /**
+     * Ejecuta una consulta sobre el índice bajo el lock de lectura. Los mapas de bits del
+     * índice no deben guardarse ni modificarse fuera de la función.
+     */
+    public <T> T read(Function<SegmentIndex, T> query) {
+        if (!ready) {
+            throw new IllegalStateException("El índice de segmentos se está cargando. Intente de nuevo en unos segundos.");
+        }
+        lock.readLock().lock();
+        try {
+            return query.apply(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public LocalDateTime getLoadedAt() {
+        return loadedAt;
+    }
+
+    @Override
+    public String getName() {
+        return CONSUMER_NAME;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public long resumeFrom(long savedCheckpoint) {
+        return watermark;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(index, event);
+            if (pendingDuringLoad != null) {
+                pendingDuringLoad.add(event);
+            }
+            position = event.getSeq();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return CONSUMER_NAME;
+    }
+
+    @Override
+    public int getSnapshotVersion() {
+        return SNAPSHOT_VERSION;
+    }
+
+    @Override
+    public long writeSnapshot(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            index.writeTo(out);
+            return position;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lo que no pasa por eventos se corrige en la siguiente reconstrucción nocturna
+    @Override
+    public void restoreSnapshot(ByteBuffer data, long snapshotWatermark, LocalDateTime createdAt) {
+        SegmentIndex restored = SegmentIndex.readFrom(data);
+        lock.writeLock().lock();
+        try {
+            index = restored;
+            watermark = snapshotWatermark;
+            position = snapshotWatermark;
+            loadedAt = createdAt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Cada evento trae el estado completo del registro: aplicarlo dos veces no cambia el índice
+    private void apply(SegmentIndex target, OutboxEvent event) {
+        switch (event.getEventType()) {
+            case STUDENT_CREATED, STUDENT_UPDATED -> {
+                StudentEventPayload student = outboxService.readPayload(event, StudentEventPayload.class);
+                target.putStudent(student.studentId(), student.branchId(), Boolean.TRUE.equals(student.active()));
+            }
+            case STUDENT_DELETED -> target.removeStudent(
+                    outboxService.readPayload(event, StudentEventPayload.class).studentId());
+            case ENROLLMENT_CREATED -> {
+                EnrollmentEventPayload enrollment = outboxService.readPayload(event, EnrollmentEventPayload.class);
+                target.putEnrollment(enrollment.enrollmentId(), enrollment.studentId(), enrollment.courseId(),
+                        enrollment.branchId(), true, enrollment.totalAmount(), enrollment.paidAmount());
+            }
+            case PAYMENT_REGISTERED, PAYMENT_CANCELLED -> {
+                PaymentEventPayload payment = outboxService.readPayload(event, PaymentEventPayload.class);
+                target.updateBalance(payment.enrollmentId(), payment.enrollmentTotalAmount(),
+                        payment.enrollmentPaidAmount());
+            }
+        }
+    }
+
+    private static Long nullableLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,130 @@
+package com.escuelaconduccion.control_pagos.analytics.service;
+
+import com.escuelaconduccion.control_pagos.analytics.dto.SegmentFilterDTO;
+import com.escuelaconduccion.control_pagos.analytics.dto.SegmentQueryDTO;
+import com.escuelaconduccion.control_pagos.analytics.dto.SegmentResultDTO;
+import com.escuelaconduccion.control_pagos.analytics.segment.SegmentEntity;
+import com.escuelaconduccion.control_pagos.analytics.segment.SegmentField;
+import com.escuelaconduccion.control_pagos.analytics.segment.SegmentIndex;
+import com.escuelaconduccion.control_pagos.common.bitmap.RoaringBitmap;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment.PaymentProgress;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Conteos y listas de ids de segmentos de estudiantes o matrículas, resueltos por
+ * intersección y unión de mapas de bits en memoria, sin consultar la base de datos.
+ */
+@Service
+@RequiredArgsConstructor
+public class SegmentQueryService {
+
+    private static final int MAX_ID_LIMIT = 1000;
+    private static final int MAX_DEPTH = 8;
+
+    private final SegmentIndexService segmentIndexService;
+
+    public SegmentResultDTO query(SegmentQueryDTO request) {
+        long started = System.nanoTime();
+        SegmentEntity entity = request.getEntity() != null ? request.getEntity() : SegmentEntity.STUDENT;
+        int idLimit = request.getIdLimit() != null ? request.getIdLimit() : 0;
+        if (idLimit < 0 || idLimit > MAX_ID_LIMIT) {
+            throw new IllegalArgumentException("idLimit debe estar entre 0 y " + MAX_ID_LIMIT);
+        }
+        // ADMIN solo ve su sede: el filtro se combina con la sede aunque no la pida
+        Optional<Long> restrictedBranch = BranchScope.restrictedBranchId();
+
+        int[][] ids = new int[1][];
+        long count = segmentIndexService.read(index -> {
+            RoaringBitmap result = request.getFilter() != null
+                    ? evaluate(index, entity, request.getFilter(), 0)
+                    : universe(index, entity);
+            if (restrictedBranch.isPresent()) {
+                result = RoaringBitmap.and(result, lookup(index, entity, SegmentField.BRANCH, restrictedBranch.get()));
+            }
+            ids[0] = result.toArray(idLimit);
+            return result.getCardinality();
+        });
+
+        return SegmentResultDTO.builder()
+                .entity(entity)
+                .count(count)
+                .ids(Arrays.stream(ids[0]).mapToLong(id -> id).boxed().toList())
+                .loadedAt(segmentIndexService.getLoadedAt())
+                .queryMicros((System.nanoTime() - started) / 1_000)
+                .build();
+    }
+
+    private RoaringBitmap evaluate(SegmentIndex index, SegmentEntity entity, SegmentFilterDTO filter, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("El filtro supera la profundidad máxima de " + MAX_DEPTH);
+        }
+        int forms = (filter.getField() != null ? 1 : 0) + (filter.getAnd() != null ? 1 : 0)
+                + (filter.getOr() != null ? 1 : 0) + (filter.getNot() != null ? 1 : 0);
+        if (forms != 1) {
+            throw new IllegalArgumentException("Cada nodo del filtro debe tener exactamente uno de: field, and, or, not");
+        }
+
+        if (filter.getField() != null) {
+            return lookup(index, entity, filter.getField(), parseValue(filter.getField(), filter.getValue()));
+        }
+        if (filter.getNot() != null) {
+            return RoaringBitmap.andNot(universe(index, entity), evaluate(index, entity, filter.getNot(), depth + 1));
+        }
+        List<SegmentFilterDTO> children = filter.getAnd() != null ? filter.getAnd() : filter.getOr();
+        if (children.isEmpty()) {
+            throw new IllegalArgumentException("Las listas and/or del filtro no pueden estar vacías");
+        }
+        RoaringBitmap result = null;
+        for (SegmentFilterDTO child : children) {
+            RoaringBitmap bitmap = evaluate(index, entity, child, depth + 1);
+            if (result == null) {
+                result = bitmap;
+            } else {
+                result = filter.getAnd() != null ? RoaringBitmap.and(result, bitmap) : RoaringBitmap.or(result, bitmap);
+            }
+        }
+        return result;
+    }
+
+    private static RoaringBitmap lookup(SegmentIndex index, SegmentEntity entity, SegmentField field, Object value) {
+        return entity == SegmentEntity.STUDENT
+                ? index.studentsWhere(field, value)
+                : index.enrollmentsWhere(field, value);
+    }
+
+    private static RoaringBitmap universe(SegmentIndex index, SegmentEntity entity) {
+        return entity == SegmentEntity.STUDENT ? index.allStudents() : index.allEnrollments();
+    }
+
+    private static Object parseValue(SegmentField field, String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Falta el valor para el campo " + field);
+        }
+        String trimmed = value.trim();
+        try {
+            return switch (field) {
+                case BRANCH, COURSE -> Long.valueOf(trimmed);
+                case PAYMENT_STATUS -> PaymentProgress.valueOf(trimmed.toUpperCase());
+                case ACTIVE, HAS_DEBT -> parseBoolean(trimmed);
+            };
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Valor inválido para " + field + ": " + value);
+        }
+    }
+
+    private static Boolean parseBoolean(String value) {
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException(value);
+    }
+}
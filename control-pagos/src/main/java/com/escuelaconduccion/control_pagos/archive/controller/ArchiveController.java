@@ -0,0 +1,35 @@
+package com.escuelaconduccion.control_pagos.archive.controller;
+
+import com.escuelaconduccion.control_pagos.archive.dto.ArchiveRunResultDTO;
+import com.escuelaconduccion.control_pagos.archive.dto.ArchivedEnrollmentDTO;
+import com.escuelaconduccion.control_pagos.archive.service.ArchiveService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/archive")
+@RequiredArgsConstructor
+public class ArchiveController {
+
+    private final ArchiveService archiveService;
+
+    // Matrículas archivadas de un estudiante con sus pagos (consulta de auditoría, más lenta)
+    @GetMapping("/students/{studentId}/enrollments")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
+    public List<ArchivedEnrollmentDTO> getArchivedEnrollments(@PathVariable Long studentId) {
+        return archiveService.getArchivedByStudent(studentId);
+    }
+
+    // Ejecución manual; sin parámetro usa la configuración archive.keep-years
+    @PostMapping("/run")
+    @PreAuthorize("hasAuthority('ROLE_SUPER_ADMIN')")
+    public ArchiveRunResultDTO runArchive(
+            @RequestParam(required = false) Integer closedThroughYear
+    ) {
+        archiveService.checkCanRunArchive();
+        return archiveService.archiveClosedYears(closedThroughYear);
+    }
+}
@@ -0,0 +1,19 @@
+package com.escuelaconduccion.control_pagos.archive.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchiveRunResultDTO {
+
+    private Integer closedThroughYear;
+    private LocalDate cutoffDate;
+    private long archivedEnrollments;
+    private long archivedPayments;
+    private int batches;
+}
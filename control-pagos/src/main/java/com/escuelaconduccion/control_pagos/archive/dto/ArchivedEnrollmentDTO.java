@@ -0,0 +1,26 @@
+package com.escuelaconduccion.control_pagos.archive.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Detalle archivado: la matrícula y sus pagos tal como estaban al archivarse
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedEnrollmentDTO {
+
+    private Long id;
+    private Long studentId;
+    private Long courseId;
+    private Long branchId;
+    private LocalDate enrollmentDate;
+    private LocalDateTime archivedAt;
+    private Map<String, Object> enrollment;
+    private List<Map<String, Object>> payments;
+}
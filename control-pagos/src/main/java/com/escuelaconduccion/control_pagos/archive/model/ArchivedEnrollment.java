@@ -0,0 +1,50 @@
+package com.escuelaconduccion.control_pagos.archive.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Matrícula cerrada movida fuera de la tabla caliente. La fila original (y sus cuotas)
+// se guarda completa en JSON para no depender de cambios futuros en el esquema
+@Entity
+@Table(
+        name = "archived_enrollments",
+        indexes = {
+                @Index(name = "idx_archived_enrollments_student", columnList = "student_id"),
+                @Index(name = "idx_archived_enrollments_branch_date", columnList = "branch_id, enrollment_date")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedEnrollment {
+
+    // Mismo id que tenía en enrollments
+    @Id
+    private Long id;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "branch_id")
+    private Long branchId;
+
+    @Column(name = "enrollment_date", nullable = false)
+    private LocalDate enrollmentDate;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false, columnDefinition = "jsonb")
+    private String data;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,42 @@
+package com.escuelaconduccion.control_pagos.archive.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+// Pago de una matrícula archivada, con la fila original en JSON
+@Entity
+@Table(
+        name = "archived_payments",
+        indexes = @Index(name = "idx_archived_payments_enrollment", columnList = "enrollment_id")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedPayment {
+
+    // Mismo id que tenía en payments
+    @Id
+    private Long id;
+
+    @Column(name = "enrollment_id", nullable = false)
+    private Long enrollmentId;
+
+    @Column(name = "branch_id")
+    private Long branchId;
+
+    @Column(name = "payment_date", nullable = false)
+    private LocalDateTime paymentDate;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false, columnDefinition = "jsonb")
+    private String data;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
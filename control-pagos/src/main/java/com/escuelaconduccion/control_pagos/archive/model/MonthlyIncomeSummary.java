@@ -0,0 +1,56 @@
+package com.escuelaconduccion.control_pagos.archive.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Totales mensuales por sede de las matrículas archivadas. El reporte mensual suma estas
+// filas a lo que calcula sobre las tablas calientes, con la misma agrupación
+@Entity
+@Table(
+        name = "monthly_income_summaries",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_monthly_income_summaries_period_branch",
+                columnNames = {"year", "month_number", "branch_id"}
+        )
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MonthlyIncomeSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Integer year;
+
+    @Column(name = "month_number", nullable = false)
+    private Integer monthNumber;
+
+    @Column(name = "branch_id", nullable = false)
+    private Long branchId;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalIncome;
+
+    @Column(nullable = false)
+    private Long paymentCount;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalSales;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalPaid;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalPending;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
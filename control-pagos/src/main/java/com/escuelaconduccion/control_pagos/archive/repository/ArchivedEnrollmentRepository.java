@@ -0,0 +1,112 @@
+package com.escuelaconduccion.control_pagos.archive.repository;
+
+import com.escuelaconduccion.control_pagos.archive.model.ArchivedEnrollment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Consultas del proceso de archivo. Todas operan sobre un lote de ids de matrícula
+ * dentro de la misma transacción: resumen, copia al archivo y borrado de las tablas calientes.
+ */
+public interface ArchivedEnrollmentRepository extends JpaRepository<ArchivedEnrollment, Long> {
+
+    // Matrículas cerradas (inactivas o pagadas) anteriores al corte y sin pagos posteriores al corte
+    @Query(value = """
+        SELECT e.id
+        FROM enrollments e
+        WHERE e.enrollment_date < :cutoffDate
+        AND (e.active = false OR e.paid_amount >= e.total_amount)
+        AND NOT EXISTS (
+            SELECT 1 FROM payments p
+            WHERE p.enrollment_id = e.id
+            AND p.payment_date >= :cutoffTime
+        )
+        ORDER BY e.id
+        LIMIT :batchSize
+        FOR UPDATE OF e SKIP LOCKED
+        """, nativeQuery = true)
+    List<Long> lockArchivableBatch(
+            @Param("cutoffDate") LocalDate cutoffDate,
+            @Param("cutoffTime") LocalDateTime cutoffTime,
+            @Param("batchSize") int batchSize
+    );
+
+    // Misma agrupación y fórmulas que el reporte mensual, para que la suma con las tablas calientes cuadre
+    @Modifying
+    @Query(value = """
+        INSERT INTO monthly_income_summaries
+            (year, month_number, branch_id, total_income, payment_count,
+             total_sales, total_paid, total_pending, updated_at)
+        SELECT
+            CAST(EXTRACT(YEAR FROM e.enrollment_date) AS integer),
+            CAST(EXTRACT(MONTH FROM e.enrollment_date) AS integer),
+            e.branch_id,
+            COALESCE(SUM(p.amount), 0),
+            COUNT(p.id),
+            COALESCE(SUM(e.total_amount), 0),
+            COALESCE(SUM(e.paid_amount), 0),
+            COALESCE(SUM(e.total_amount - e.paid_amount), 0),
+            now()
+        FROM enrollments e
+        LEFT JOIN payments p ON e.id = p.enrollment_id AND p.status = 'CONFIRMADO'
+        WHERE e.id IN (:ids)
+        AND e.branch_id IS NOT NULL
+        GROUP BY 1, 2, 3
+        ON CONFLICT (year, month_number, branch_id) DO UPDATE SET
+            total_income = monthly_income_summaries.total_income + EXCLUDED.total_income,
+            payment_count = monthly_income_summaries.payment_count + EXCLUDED.payment_count,
+            total_sales = monthly_income_summaries.total_sales + EXCLUDED.total_sales,
+            total_paid = monthly_income_summaries.total_paid + EXCLUDED.total_paid,
+            total_pending = monthly_income_summaries.total_pending + EXCLUDED.total_pending,
+            updated_at = now()
+        """, nativeQuery = true)
+    int accumulateMonthlySummaries(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO archived_payments (id, enrollment_id, branch_id, payment_date, data, archived_at)
+        SELECT p.id, p.enrollment_id, p.branch_id, p.payment_date, to_jsonb(p), now()
+        FROM payments p
+        WHERE p.enrollment_id IN (:ids)
+        """, nativeQuery = true)
+    int copyPayments(@Param("ids") Collection<Long> ids);
+
+    // Las cuotas viajan dentro del JSON de la matrícula
+    @Modifying
+    @Query(value = """
+        INSERT INTO archived_enrollments
+            (id, student_id, course_id, branch_id, enrollment_date, data, archived_at)
+        SELECT
+            e.id, e.student_id, e.course_id, e.branch_id, e.enrollment_date,
+            to_jsonb(e) || jsonb_build_object('installments', COALESCE(
+                (SELECT jsonb_agg(to_jsonb(i) ORDER BY i.number)
+                 FROM installments i
+                 WHERE i.enrollment_id = e.id),
+                CAST('[]' AS jsonb))),
+            now()
+        FROM enrollments e
+        WHERE e.id IN (:ids)
+        """, nativeQuery = true)
+    int copyEnrollments(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM payments WHERE enrollment_id IN (:ids)", nativeQuery = true)
+    int deletePayments(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM installments WHERE enrollment_id IN (:ids)", nativeQuery = true)
+    int deleteInstallments(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM enrollments WHERE id IN (:ids)", nativeQuery = true)
+    int deleteEnrollments(@Param("ids") Collection<Long> ids);
+
+    List<ArchivedEnrollment> findByStudentIdOrderByEnrollmentDateDesc(Long studentId);
+}
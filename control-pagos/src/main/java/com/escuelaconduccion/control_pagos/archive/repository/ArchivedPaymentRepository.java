@@ -0,0 +1,12 @@
+package com.escuelaconduccion.control_pagos.archive.repository;
+
+import com.escuelaconduccion.control_pagos.archive.model.ArchivedPayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ArchivedPaymentRepository extends JpaRepository<ArchivedPayment, Long> {
+
+    List<ArchivedPayment> findByEnrollmentIdInOrderByPaymentDateAsc(Collection<Long> enrollmentIds);
+}
@@ -0,0 +1,22 @@
+package com.escuelaconduccion.control_pagos.archive.repository;
+
+import com.escuelaconduccion.control_pagos.archive.model.MonthlyIncomeSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface MonthlyIncomeSummaryRepository extends JpaRepository<MonthlyIncomeSummary, Long> {
+
+    // Filas resumidas con el nombre de la sede, en el mismo orden de columnas que el reporte mensual nativo
+    @Query("""
+        SELECT s.year, s.monthNumber, s.totalIncome, s.paymentCount, s.branchId, b.name,
+               s.totalSales, s.totalPaid, s.totalPending
+        FROM MonthlyIncomeSummary s
+        JOIN Branch b ON b.id = s.branchId
+        WHERE (:branchId IS NULL OR s.branchId = :branchId)
+        AND (:year IS NULL OR s.year = :year)
+        """)
+    List<Object[]> findForReport(@Param("branchId") Long branchId, @Param("year") Integer year);
+}
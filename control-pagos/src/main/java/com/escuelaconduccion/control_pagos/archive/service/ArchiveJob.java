@@ -0,0 +1,31 @@
+package com.escuelaconduccion.control_pagos.archive.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Ejecución programada del archivo; desactivada por defecto (archive.enabled=false)
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ArchiveJob {
+
+    private final ArchiveService archiveService;
+
+    @Value("${archive.enabled:false}")
+    private boolean enabled;
+
+    @Scheduled(cron = "${archive.cron:0 30 2 1 * *}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archiveService.archiveClosedYears(null);
+        } catch (Exception e) {
+            log.error("Falló el archivo de años cerrados: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.escuelaconduccion.control_pagos.archive.service;
+
+import com.escuelaconduccion.control_pagos.archive.dto.ArchiveRunResultDTO;
+import com.escuelaconduccion.control_pagos.archive.dto.ArchivedEnrollmentDTO;
+import com.escuelaconduccion.control_pagos.archive.model.ArchivedEnrollment;
+import com.escuelaconduccion.control_pagos.archive.model.ArchivedPayment;
+import com.escuelaconduccion.control_pagos.archive.repository.ArchivedEnrollmentRepository;
+import com.escuelaconduccion.control_pagos.archive.repository.ArchivedPaymentRepository;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import com.escuelaconduccion.control_pagos.report.event.ReportDataChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Mueve a las tablas de archivo las matrículas cerradas (inactivas o pagadas) de años
+ * fiscales ya cerrados, junto con sus pagos y cuotas. Antes de borrar deja los totales
+ * mensuales en monthly_income_summaries para que el reporte mensual siga cubriendo esos años.
+ * Cada lote es una transacción: resumen, copia y borrado se confirman juntos o no se aplican.
+ */
+@Service
+@Slf4j
+public class ArchiveService {
+
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
+
+    private final ArchivedEnrollmentRepository archivedEnrollmentRepository;
+    private final ArchivedPaymentRepository archivedPaymentRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int keepYears;
+
+    public ArchiveService(ArchivedEnrollmentRepository archivedEnrollmentRepository,
+                          ArchivedPaymentRepository archivedPaymentRepository,
+                          ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${archive.batch-size:200}") int batchSize,
+                          @Value("${archive.keep-years:2}") int keepYears) {
+        this.archivedEnrollmentRepository = archivedEnrollmentRepository;
+        this.archivedPaymentRepository = archivedPaymentRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.keepYears = keepYears;
+    }
+
+    /**
+     * Año fiscal más reciente que se puede archivar con la configuración actual:
+     * se conservan en caliente el año en curso y los keepYears anteriores.
+     */
+    public int defaultClosedThroughYear() {
+        return LocalDate.now().getYear() - keepYears - 1;
+    }
+
+    public ArchiveRunResultDTO archiveClosedYears(Integer closedThroughYear) {
+        int throughYear = closedThroughYear != null ? closedThroughYear : defaultClosedThroughYear();
+        if (throughYear >= LocalDate.now().getYear()) {
+            throw new IllegalArgumentException("Solo se pueden archivar años fiscales cerrados");
+        }
+
+        LocalDate cutoffDate = LocalDate.of(throughYear + 1, 1, 1);
+        long enrollments = 0;
+        long payments = 0;
+        int batches = 0;
+
+        while (true) {
+            long[] batch = transactionTemplate.execute(status -> archiveBatch(cutoffDate));
+            if (batch == null || batch[0] == 0) {
+                break;
+            }
+            enrollments += batch[0];
+            payments += batch[1];
+            batches++;
+        }
+
+        if (enrollments > 0) {
+            // Las matrículas archivadas salen del dashboard; el reporte mensual pasa a leer resúmenes
+            eventPublisher.publishEvent(ReportDataChangedEvent.all());
+        }
+
+        log.info("Archivo de años cerrados hasta {}: {} matrículas, {} pagos en {} lotes",
+                throughYear, enrollments, payments, batches);
+
+        return ArchiveRunResultDTO.builder()
+                .closedThroughYear(throughYear)
+                .cutoffDate(cutoffDate)
+                .archivedEnrollments(enrollments)
+                .archivedPayments(payments)
+                .batches(batches)
+                .build();
+    }
+
+    // Devuelve {matrículas, pagos} archivados en el lote
+    private long[] archiveBatch(LocalDate cutoffDate) {
+        List<Long> ids = archivedEnrollmentRepository.lockArchivableBatch(
+                cutoffDate, cutoffDate.atStartOfDay(), batchSize);
+        if (ids.isEmpty()) {
+            return new long[]{0, 0};
+        }
+
+        // El resumen se calcula antes de borrar, sobre las mismas filas bloqueadas
+        archivedEnrollmentRepository.accumulateMonthlySummaries(ids);
+        int payments = archivedEnrollmentRepository.copyPayments(ids);
+        archivedEnrollmentRepository.copyEnrollments(ids);
+
+        archivedEnrollmentRepository.deletePayments(ids);
+        archivedEnrollmentRepository.deleteInstallments(ids);
+        archivedEnrollmentRepository.deleteEnrollments(ids);
+
+        return new long[]{ids.size(), payments};
+    }
+
+    // Consulta de detalle archivado: más lenta que las tablas calientes, pensada para auditoría
+    @Transactional(readOnly = true)
+    public List<ArchivedEnrollmentDTO> getArchivedByStudent(Long studentId) {
+        List<ArchivedEnrollment> enrollments = archivedEnrollmentRepository
+                .findByStudentIdOrderByEnrollmentDateDesc(studentId);
+
+        // ADMIN solo ve el archivo de su sede
+        enrollments = enrollments.stream()
+                .filter(e -> BranchScope.canAccess(e.getBranchId()))
+                .toList();
+        if (enrollments.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<ArchivedPayment>> paymentsByEnrollment = archivedPaymentRepository
+                .findByEnrollmentIdInOrderByPaymentDateAsc(enrollments.stream().map(ArchivedEnrollment::getId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(ArchivedPayment::getEnrollmentId));
+
+        return enrollments.stream()
+                .map(e -> ArchivedEnrollmentDTO.builder()
+                        .id(e.getId())
+                        .studentId(e.getStudentId())
+                        .courseId(e.getCourseId())
+                        .branchId(e.getBranchId())
+                        .enrollmentDate(e.getEnrollmentDate())
+                        .archivedAt(e.getArchivedAt())
+                        .enrollment(parse(e.getData()))
+                        .payments(paymentsByEnrollment.getOrDefault(e.getId(), List.of()).stream()
+                                .map(p -> parse(p.getData()))
+                                .toList())
+                        .build())
+                .toList();
+    }
+
+    public void checkCanRunArchive() {
+        if (!BranchScope.isSuperAdmin()) {
+            throw new IllegalStateException("Solo el SUPER_ADMIN puede ejecutar el archivo de años cerrados");
+        }
+    }
+
+    private Map<String, Object> parse(String json) {
+        try {
+            return objectMapper.readValue(json, JSON_OBJECT);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Registro archivado ilegible", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.escuelaconduccion.control_pagos.auth.model;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * Usuario autenticado con su sede, para que el filtro de sede de Hibernate se pueda
+ * activar sin volver a consultar la tabla users en cada transacción.
+ */
+@Getter
+public class AuthenticatedUser extends org.springframework.security.core.userdetails.User {
+
+    private static final long serialVersionUID = 1L;
+
+    // null si el usuario no tiene sede asignada
+    private final Long branchId;
+
+    public AuthenticatedUser(String username,
+                             String password,
+                             Collection<? extends GrantedAuthority> authorities,
+                             Long branchId) {
+        super(username, password, authorities);
+        this.branchId = branchId;
+    }
+}
@@ -1,5 +1,6 @@
 package com.escuelaconduccion.control_pagos.auth.service;
 
+import com.escuelaconduccion.control_pagos.auth.model.AuthenticatedUser;
 import com.escuelaconduccion.control_pagos.auth.model.User;
 import com.escuelaconduccion.control_pagos.auth.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -24,10 +25,11 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .orElseThrow(() ->
                         new UsernameNotFoundException("Usuario no encontrado"));
 
-        return new org.springframework.security.core.userdetails.User(
+        return new AuthenticatedUser(
                 user.getUsername(),
                 user.getPassword(),
-                List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole()))
+                List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole())),
+                user.getBranch() != null ? user.getBranch().getId() : null
         );
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -3,11 +3,13 @@ package com.escuelaconduccion.control_pagos.branch.controller;
 import com.escuelaconduccion.control_pagos.branch.model.Branch;
 import com.escuelaconduccion.control_pagos.branch.service.BranchService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/branches")
@@ -18,7 +20,9 @@ public class BranchController {
 
     @GetMapping("/public")
     public ResponseEntity<List<Branch>> getPublicBranches() {
-        return ResponseEntity.ok(branchService.findAllActiveBranches());
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(branchService.getPublicCacheSeconds(), TimeUnit.SECONDS).cachePublic())
+                .body(branchService.findPublicBranches());
     }
 
     @GetMapping
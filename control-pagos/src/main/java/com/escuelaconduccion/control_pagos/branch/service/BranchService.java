@@ -2,10 +2,14 @@ package com.escuelaconduccion.control_pagos.branch.service;
 
 import com.escuelaconduccion.control_pagos.branch.model.Branch;
 import com.escuelaconduccion.control_pagos.branch.repository.BranchRepository;
+import com.escuelaconduccion.control_pagos.common.cache.TtlCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,10 +20,23 @@ public class BranchService {
 
     private final BranchRepository branchRepository;
 
+    // Las sedes cambian muy poco y el listado público se pide en cada carga de la app
+    private final TtlCache<String, List<Branch>> publicBranchesCache =
+            new TtlCache<>(Duration.ofMinutes(5), 1);
+
     public List<Branch> findAllActiveBranches() {
         return branchRepository.findByActiveTrueOrderByIsMainDescNameAsc();
     }
 
+    @Transactional(readOnly = true)
+    public List<Branch> findPublicBranches() {
+        return publicBranchesCache.get("all", this::findAllActiveBranches);
+    }
+
+    public long getPublicCacheSeconds() {
+        return publicBranchesCache.getTtlSeconds();
+    }
+
     public Optional<Branch> findById(Long id) {
         return branchRepository.findById(id);
     }
@@ -33,6 +50,7 @@ public class BranchService {
     }
 
     public Branch save(Branch branch) {
+        invalidatePublicBranchesAfterCommit();
         return branchRepository.save(branch);
     }
 
@@ -48,6 +66,7 @@ public class BranchService {
             }
         }
         
+        invalidatePublicBranchesAfterCommit();
         return branchRepository.save(branch);
     }
 
@@ -67,6 +86,7 @@ public class BranchService {
                     branch.setEmail(branchDetails.getEmail());
                     branch.setActive(branchDetails.getActive());
                     branch.setIsMain(branchDetails.getIsMain());
+                    invalidatePublicBranchesAfterCommit();
                     return branchRepository.save(branch);
                 })
                 .orElseThrow(() -> new RuntimeException("Branch not found with id: " + id));
@@ -77,9 +97,24 @@ public class BranchService {
                 .orElseThrow(() -> new RuntimeException("Branch not found with id: " + id));
         branch.setActive(false);
         branchRepository.save(branch);
+        invalidatePublicBranchesAfterCommit();
     }
 
     public boolean existsByCode(String code) {
         return branchRepository.existsByCode(code);
     }
+
+    // Se limpia al confirmar: si se limpiara antes, una lectura concurrente volvería a cachear datos viejos
+    private void invalidatePublicBranchesAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publicBranchesCache.invalidateAll();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publicBranchesCache.invalidateAll();
+            }
+        });
+    }
 }
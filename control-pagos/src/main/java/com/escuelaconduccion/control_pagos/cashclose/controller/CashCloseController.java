@@ -0,0 +1,51 @@
+package com.escuelaconduccion.control_pagos.cashclose.controller;
+
+import com.escuelaconduccion.control_pagos.cashclose.dto.CashCloseReportDTO;
+import com.escuelaconduccion.control_pagos.cashclose.service.CashCloseService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cash-close")
+@RequiredArgsConstructor
+public class CashCloseController {
+
+    private final CashCloseService cashCloseService;
+
+    // Arqueo del día: el cierre guardado si existe, o el cálculo en vivo si aún no se cierra
+    @GetMapping
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
+    public CashCloseReportDTO getCashClose(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Long branchId  // Solo para SUPER_ADMIN
+    ) {
+        return cashCloseService.getCashClose(date != null ? date : LocalDate.now(), branchId);
+    }
+
+    // Sin fecha se cierra el día anterior: el día en curso aún puede tener pagos y anulaciones
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
+    public CashCloseReportDTO closeDay(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Long branchId  // Solo para SUPER_ADMIN
+    ) {
+        return cashCloseService.closeDay(date != null ? date : LocalDate.now().minusDays(1), branchId);
+    }
+
+    @GetMapping("/history")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
+    public List<CashCloseReportDTO> getClosingHistory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long branchId  // Solo para SUPER_ADMIN
+    ) {
+        return cashCloseService.getClosingHistory(from, to, branchId);
+    }
+}
@@ -0,0 +1,22 @@
+package com.escuelaconduccion.control_pagos.cashclose.dto;
+
+import com.escuelaconduccion.control_pagos.payment.model.PaymentStatus;
+import com.escuelaconduccion.control_pagos.payment.model.PaymentType;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CashCloseLineDTO {
+
+    private Long paymentMethodId;
+    private String paymentMethodName;
+    private PaymentType paymentType;
+    private PaymentStatus paymentStatus;
+    private Long paymentCount;
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,31 @@
+package com.escuelaconduccion.control_pagos.cashclose.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CashCloseReportDTO {
+
+    private Long closingId;         // null mientras el día no esté cerrado
+    private Long branchId;
+    private String branchName;
+    private LocalDate closingDate;
+    private Boolean closed;
+    private LocalDateTime closedAt;
+    private String closedBy;
+
+    private BigDecimal confirmedTotal;
+    private Long confirmedCount;
+    private BigDecimal cancelledTotal;
+    private Long cancelledCount;
+
+    private List<CashCloseLineDTO> lines;
+}
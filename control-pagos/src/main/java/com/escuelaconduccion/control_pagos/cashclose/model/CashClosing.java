@@ -0,0 +1,63 @@
+package com.escuelaconduccion.control_pagos.cashclose.model;
+
+import com.escuelaconduccion.control_pagos.branch.model.Branch;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Cierre de caja diario congelado: una vez creado no se recalcula
+@Entity
+@Table(
+        name = "cash_closings",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_cash_closings_branch_date",
+                columnNames = {"branch_id", "closing_date"}
+        )
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CashClosing {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "branch_id", nullable = false)
+    private Branch branch;
+
+    @Column(name = "closing_date", nullable = false)
+    private LocalDate closingDate;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal confirmedTotal;
+
+    @Column(nullable = false)
+    private Long confirmedCount;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal cancelledTotal;
+
+    @Column(nullable = false)
+    private Long cancelledCount;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private LocalDateTime closedAt = LocalDateTime.now();
+
+    @Column(length = 100)
+    private String closedBy;
+
+    @OneToMany(mappedBy = "closing", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("paymentMethodName ASC, paymentType ASC, paymentStatus ASC")
+    @Builder.Default
+    private List<CashClosingLine> lines = new ArrayList<>();
+}
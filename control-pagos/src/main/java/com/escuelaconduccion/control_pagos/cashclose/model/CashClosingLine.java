@@ -0,0 +1,48 @@
+package com.escuelaconduccion.control_pagos.cashclose.model;
+
+import com.escuelaconduccion.control_pagos.payment.model.PaymentStatus;
+import com.escuelaconduccion.control_pagos.payment.model.PaymentType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+// Totales de un cierre por método de pago, tipo y estado
+@Entity
+@Table(name = "cash_closing_lines")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CashClosingLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "closing_id", nullable = false)
+    private CashClosing closing;
+
+    @Column(nullable = false)
+    private Long paymentMethodId;
+
+    // Se guarda el nombre para que el cierre no cambie si el método se renombra
+    @Column(nullable = false)
+    private String paymentMethodName;
+
+    @Enumerated(EnumType.STRING)
+    @Column
+    private PaymentType paymentType;
+
+    @Enumerated(EnumType.STRING)
+    @Column
+    private PaymentStatus paymentStatus;
+
+    @Column(nullable = false)
+    private Long paymentCount;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,51 @@
+package com.escuelaconduccion.control_pagos.cashclose.repository;
+
+import com.escuelaconduccion.control_pagos.cashclose.model.CashClosing;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface CashClosingRepository extends JpaRepository<CashClosing, Long> {
+
+    @Query("""
+        SELECT c FROM CashClosing c
+        JOIN FETCH c.branch
+        LEFT JOIN FETCH c.lines
+        WHERE c.branch.id = :branchId
+        AND c.closingDate = :closingDate
+        """)
+    Optional<CashClosing> findByBranchAndDateWithLines(
+            @Param("branchId") Long branchId,
+            @Param("closingDate") LocalDate closingDate
+    );
+
+    @Query("""
+        SELECT c FROM CashClosing c
+        JOIN FETCH c.branch
+        WHERE c.branch.id = :branchId
+        AND c.closingDate BETWEEN :from AND :to
+        ORDER BY c.closingDate DESC
+        """)
+    List<CashClosing> findByBranchAndDateRange(
+            @Param("branchId") Long branchId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+
+    boolean existsByBranchIdAndClosingDate(Long branchId, LocalDate closingDate);
+
+    /**
+     * Lock de transacción por sede y día. Lo toman el cierre y la anulación de pagos para
+     * que una anulación no quede fuera de un cierre que se está calculando en paralelo.
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(CAST(:branchId AS integer), :epochDay)", nativeQuery = true)
+    Integer lockBranchDay(@Param("branchId") Long branchId, @Param("epochDay") int epochDay);
+
+    default void lockBranchDay(Long branchId, LocalDate date) {
+        lockBranchDay(branchId, (int) date.toEpochDay());
+    }
+}
@@ -0,0 +1,184 @@
+package com.escuelaconduccion.control_pagos.cashclose.service;
+
+import com.escuelaconduccion.control_pagos.branch.model.Branch;
+import com.escuelaconduccion.control_pagos.branch.repository.BranchRepository;
+import com.escuelaconduccion.control_pagos.cashclose.dto.CashCloseLineDTO;
+import com.escuelaconduccion.control_pagos.cashclose.dto.CashCloseReportDTO;
+import com.escuelaconduccion.control_pagos.cashclose.model.CashClosing;
+import com.escuelaconduccion.control_pagos.cashclose.model.CashClosingLine;
+import com.escuelaconduccion.control_pagos.cashclose.repository.CashClosingRepository;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import com.escuelaconduccion.control_pagos.common.money.MoneyAccumulator;
+import com.escuelaconduccion.control_pagos.payment.model.PaymentStatus;
+import com.escuelaconduccion.control_pagos.payment.repository.PaymentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class CashCloseService {
+
+    private final CashClosingRepository cashClosingRepository;
+    private final PaymentRepository paymentRepository;
+    private final BranchRepository branchRepository;
+
+    // Devuelve el cierre congelado si existe; si no, calcula el arqueo en vivo sin guardarlo
+    @Transactional(readOnly = true)
+    public CashCloseReportDTO getCashClose(LocalDate date, Long branchId) {
+        Long targetBranchId = resolveBranchId(branchId);
+
+        return cashClosingRepository.findByBranchAndDateWithLines(targetBranchId, date)
+                .map(this::toReport)
+                .orElseGet(() -> {
+                    Branch branch = branchRepository.findById(targetBranchId)
+                            .orElseThrow(() -> new IllegalArgumentException("Sede no encontrada"));
+                    return buildReport(branch, date, computeLines(targetBranchId, date));
+                });
+    }
+
+    @Transactional
+    public CashCloseReportDTO closeDay(LocalDate date, Long branchId) {
+        Long targetBranchId = resolveBranchId(branchId);
+
+        // Solo días ya terminados: un pago registrado o anulado después del cierre
+        // no quedaría en los totales congelados
+        if (!date.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Solo se puede cerrar la caja de un día ya terminado");
+        }
+        cashClosingRepository.lockBranchDay(targetBranchId, date);
+        if (cashClosingRepository.existsByBranchIdAndClosingDate(targetBranchId, date)) {
+            throw new IllegalStateException("La caja de este día ya fue cerrada");
+        }
+
+        Branch branch = branchRepository.findById(targetBranchId)
+                .orElseThrow(() -> new IllegalArgumentException("Sede no encontrada"));
+
+        List<CashCloseLineDTO> lines = computeLines(targetBranchId, date);
+        CashCloseReportDTO totals = buildReport(branch, date, lines);
+
+        CashClosing closing = CashClosing.builder()
+                .branch(branch)
+                .closingDate(date)
+                .confirmedTotal(totals.getConfirmedTotal())
+                .confirmedCount(totals.getConfirmedCount())
+                .cancelledTotal(totals.getCancelledTotal())
+                .cancelledCount(totals.getCancelledCount())
+                .closedAt(LocalDateTime.now())
+                .closedBy(SecurityContextHolder.getContext().getAuthentication().getName())
+                .build();
+
+        for (CashCloseLineDTO line : lines) {
+            closing.getLines().add(CashClosingLine.builder()
+                    .closing(closing)
+                    .paymentMethodId(line.getPaymentMethodId())
+                    .paymentMethodName(line.getPaymentMethodName())
+                    .paymentType(line.getPaymentType())
+                    .paymentStatus(line.getPaymentStatus())
+                    .paymentCount(line.getPaymentCount())
+                    .totalAmount(line.getTotalAmount())
+                    .build());
+        }
+
+        return toReport(cashClosingRepository.save(closing));
+    }
+
+    // Historial de cierres (solo cabeceras, sin recalcular nada)
+    @Transactional(readOnly = true)
+    public List<CashCloseReportDTO> getClosingHistory(LocalDate from, LocalDate to, Long branchId) {
+        Long targetBranchId = resolveBranchId(branchId);
+
+        return cashClosingRepository.findByBranchAndDateRange(targetBranchId, from, to).stream()
+                .map(closing -> CashCloseReportDTO.builder()
+                        .closingId(closing.getId())
+                        .branchId(closing.getBranch().getId())
+                        .branchName(closing.getBranch().getName())
+                        .closingDate(closing.getClosingDate())
+                        .closed(true)
+                        .closedAt(closing.getClosedAt())
+                        .closedBy(closing.getClosedBy())
+                        .confirmedTotal(closing.getConfirmedTotal())
+                        .confirmedCount(closing.getConfirmedCount())
+                        .cancelledTotal(closing.getCancelledTotal())
+                        .cancelledCount(closing.getCancelledCount())
+                        .build())
+                .toList();
+    }
+
+    private List<CashCloseLineDTO> computeLines(Long branchId, LocalDate date) {
+        return paymentRepository.summarizeByBranchAndDateRange(
+                branchId,
+                date.atStartOfDay(),
+                date.plusDays(1).atStartOfDay()
+        );
+    }
+
+    private CashCloseReportDTO buildReport(Branch branch, LocalDate date, List<CashCloseLineDTO> lines) {
+        MoneyAccumulator confirmedTotal = new MoneyAccumulator();
+        long confirmedCount = 0;
+        MoneyAccumulator cancelledTotal = new MoneyAccumulator();
+        long cancelledCount = 0;
+
+        for (CashCloseLineDTO line : lines) {
+            if (line.getPaymentStatus() == PaymentStatus.ANULADO) {
+                cancelledTotal.add(line.getTotalAmount());
+                cancelledCount += line.getPaymentCount();
+            } else if (line.getPaymentStatus() == PaymentStatus.CONFIRMADO) {
+                confirmedTotal.add(line.getTotalAmount());
+                confirmedCount += line.getPaymentCount();
+            }
+        }
+
+        return CashCloseReportDTO.builder()
+                .branchId(branch.getId())
+                .branchName(branch.getName())
+                .closingDate(date)
+                .closed(false)
+                .confirmedTotal(confirmedTotal.toBigDecimal())
+                .confirmedCount(confirmedCount)
+                .cancelledTotal(cancelledTotal.toBigDecimal())
+                .cancelledCount(cancelledCount)
+                .lines(lines)
+                .build();
+    }
+
+    private CashCloseReportDTO toReport(CashClosing closing) {
+        return CashCloseReportDTO.builder()
+                .closingId(closing.getId())
+                .branchId(closing.getBranch().getId())
+                .branchName(closing.getBranch().getName())
+                .closingDate(closing.getClosingDate())
+                .closed(true)
+                .closedAt(closing.getClosedAt())
+                .closedBy(closing.getClosedBy())
+                .confirmedTotal(closing.getConfirmedTotal())
+                .confirmedCount(closing.getConfirmedCount())
+                .cancelledTotal(closing.getCancelledTotal())
+                .cancelledCount(closing.getCancelledCount())
+                .lines(closing.getLines().stream()
+                        .map(line -> CashCloseLineDTO.builder()
+                                .paymentMethodId(line.getPaymentMethodId())
+                                .paymentMethodName(line.getPaymentMethodName())
+                                .paymentType(line.getPaymentType())
+                                .paymentStatus(line.getPaymentStatus())
+                                .paymentCount(line.getPaymentCount())
+                                .totalAmount(line.getTotalAmount())
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    // ADMIN solo opera la caja de su sede; SUPER_ADMIN debe indicar la sede que quiere cerrar o consultar
+    private Long resolveBranchId(Long branchId) {
+        Long targetBranchId = BranchScope.resolveTargetBranch(branchId);
+        if (targetBranchId == null) {
+            throw new IllegalArgumentException("Debe indicar la sede (branchId)");
+        }
+        return targetBranchId;
+    }
+}
@@ -0,0 +1,126 @@
+package com.escuelaconduccion.control_pagos.common.branch;
+
+import com.escuelaconduccion.control_pagos.auth.model.AuthenticatedUser;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Alcance de sede del usuario autenticado.
+ * <p>
+ * Para un ADMIN cada EntityManager nuevo se abre con el filtro {@value #FILTER_NAME}
+ * activado sobre su sede, así que toda consulta JPQL/Criteria (y la carga por id) de
+ * estudiantes, inscripciones, pagos y cuotas queda restringida en SQL. SUPER_ADMIN,
+ * las peticiones anónimas y los procesos programados trabajan sin restricción.
+ * <p>
+ * Las consultas nativas no pasan por el filtro: deben recibir la sede con
+ * {@link #resolveBranchFilter(Long)}.
+ */
+public final class BranchScope {
+
+    public static final String FILTER_NAME = "branchFilter";
+    public static final String BRANCH_PARAMETER = "branchId";
+
+    // Sede inexistente: un ADMIN sin sede asignada no ve ninguna fila
+    public static final long NO_BRANCH = -1L;
+
+    private static final String SUPER_ADMIN_AUTHORITY = "ROLE_SUPER_ADMIN";
+
+    private static final ThreadLocal<Boolean> UNRESTRICTED = new ThreadLocal<>();
+
+    private BranchScope() {
+    }
+
+    /**
+     * Sede a la que está restringido el usuario actual; vacío si puede ver todas.
+     */
+    public static Optional<Long> restrictedBranchId() {
+        if (Boolean.TRUE.equals(UNRESTRICTED.get())) {
+            return Optional.empty();
+        }
+        return currentUser()
+                .filter(user -> !isSuperAdmin(user))
+                .map(user -> user.getBranchId() != null ? user.getBranchId() : NO_BRANCH);
+    }
+
+    // Usuario autenticado de la petición actual; vacío en peticiones anónimas y procesos programados
+    public static Optional<AuthenticatedUser> currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return Optional.of(user);
+        }
+        return Optional.empty();
+    }
+
+    public static boolean isSuperAdmin() {
+        return currentUser().map(BranchScope::isSuperAdmin).orElse(false);
+    }
+
+    /**
+     * true si el usuario actual puede ver u operar datos de la sede indicada. Un ADMIN no
+     * accede a registros sin sede ni, si no tiene sede asignada, a ninguno.
+     */
+    public static boolean canAccess(Long branchId) {
+        return restrictedBranchId()
+                .map(own -> own != NO_BRANCH && own.equals(branchId))
+                .orElse(true);
+    }
+
+    /**
+     * Sede para un registro nuevo: la pedida si el usuario puede elegir (SUPER_ADMIN, que
+     * puede dejarla en null), o la propia para un ADMIN, ignorando el parámetro recibido.
+     */
+    public static Long resolveTargetBranch(Long requestedBranchId) {
+        Optional<Long> restricted = restrictedBranchId();
+        if (restricted.isEmpty()) {
+            return requestedBranchId;
+        }
+        if (restricted.get() == NO_BRANCH) {
+            throw new IllegalStateException("El administrador no tiene una sede asignada.");
+        }
+        return restricted.get();
+    }
+
+    /**
+     * Sede para filtrar una consulta: la elegida por SUPER_ADMIN (o null = todas), o la
+     * propia para un ADMIN, ignorando el parámetro recibido.
+     */
+    public static Long resolveBranchFilter(Long requestedBranchId) {
+        return restrictedBranchId().orElse(requestedBranchId);
+    }
+
+    private static boolean isSuperAdmin(AuthenticatedUser user) {
+        return user.getAuthorities().stream()
+                .anyMatch(authority -> SUPER_ADMIN_AUTHORITY.equals(authority.getAuthority()));
+    }
+
+    // Activa el filtro en un EntityManager recién creado si el usuario actual está restringido
+    public static void applyTo(EntityManager entityManager) {
+        restrictedBranchId().ifPresent(branchId -> entityManager.unwrap(Session.class)
+                .enableFilter(FILTER_NAME)
+                .setParameter(BRANCH_PARAMETER, branchId));
+    }
+
+    /**
+     * Ejecuta sin filtro de sede, para datos globales como el catálogo público. Solo
+     * afecta a los EntityManagers que se abran dentro del bloque, es decir, a llamadas
+     * fuera de una transacción ya iniciada.
+     */
+    public static <T> T unrestricted(Supplier<T> action) {
+        Boolean previous = UNRESTRICTED.get();
+        UNRESTRICTED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                UNRESTRICTED.remove();
+            } else {
+                UNRESTRICTED.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.escuelaconduccion.control_pagos.common.bulkhead;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Límite de concurrencia con una cola corta: hasta maxConcurrent peticiones a la vez,
+ * hasta maxQueue esperando como máximo queueTimeout; el resto se rechaza de inmediato.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long queueTimeoutMillis;
+
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueue, long queueTimeoutMillis) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("El bulkhead " + name + " necesita al menos un permiso");
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = Math.max(maxQueue, 0);
+        this.queueTimeoutMillis = Math.max(queueTimeoutMillis, 0);
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Intenta entrar; si devuelve true hay que llamar a {@link #release()} al terminar.
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        try {
+            boolean acquired = permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (!acquired) {
+                rejected.incrementAndGet();
+            }
+            return acquired;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,135 @@
+package com.escuelaconduccion.control_pagos.common.bulkhead;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Separa reportes y procesos masivos del tráfico de caja. Cada clase de carga tiene un
+ * número acotado de peticiones simultáneas y una cola corta; si está saturada se responde
+ * 503 con Retry-After en vez de ocupar hilos de Tomcat y conexiones que necesita
+ * {@code POST /api/payments}.
+ * <p>
+ * Se ejecuta después de la seguridad, así que las peticiones no autenticadas no consumen cupo.
+ */
+@Component
+@Slf4j
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private record Route(String method, String pattern, WorkloadClass workloadClass) {
+    }
+
+    private static final List<Route> ROUTES = List.of(
+            new Route("GET", "/api/payments", WorkloadClass.REPORT),
+            new Route("GET", "/api/payments/monthly-income", WorkloadClass.REPORT),
+            new Route("GET", "/api/enrollments", WorkloadClass.REPORT),
+            new Route("GET", "/api/students", WorkloadClass.REPORT),
+            new Route("GET", "/api/admin/dashboard/**", WorkloadClass.REPORT),
+            new Route("GET", "/api/admin/students/with-debt", WorkloadClass.REPORT),
+            new Route("GET", "/api/admin/students/with-debt/{branchId}", WorkloadClass.REPORT),
+            new Route("GET", "/api/admin/receivables/aging/**", WorkloadClass.REPORT),
+            new Route("GET", "/api/cash-close/history", WorkloadClass.REPORT),
+            new Route("POST", "/api/students/import", WorkloadClass.BULK),
+            new Route("POST", "/api/enrollments/bulk", WorkloadClass.BULK),
+            new Route("POST", "/api/archive/run", WorkloadClass.BULK)
+    );
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<WorkloadClass, Bulkhead> bulkheads = new EnumMap<>(WorkloadClass.class);
+    private final long retryAfterSeconds;
+
+    public BulkheadFilter(@Value("${bulkhead.report.max-concurrent:3}") int reportMaxConcurrent,
+                          @Value("${bulkhead.report.max-queue:6}") int reportMaxQueue,
+                          @Value("${bulkhead.report.queue-timeout-ms:2000}") long reportQueueTimeout,
+                          @Value("${bulkhead.bulk.max-concurrent:1}") int bulkMaxConcurrent,
+                          @Value("${bulkhead.bulk.max-queue:1}") int bulkMaxQueue,
+                          @Value("${bulkhead.bulk.queue-timeout-ms:1000}") long bulkQueueTimeout,
+                          @Value("${bulkhead.retry-after-seconds:5}") long retryAfterSeconds) {
+        bulkheads.put(WorkloadClass.REPORT,
+                new Bulkhead("report", reportMaxConcurrent, reportMaxQueue, reportQueueTimeout));
+        bulkheads.put(WorkloadClass.BULK,
+                new Bulkhead("bulk", bulkMaxConcurrent, bulkMaxQueue, bulkQueueTimeout));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        WorkloadClass workloadClass = classify(request);
+        if (workloadClass == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Bulkhead bulkhead = bulkheads.get(workloadClass);
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            log.warn("Bulkhead {} saturado ({} activas, {} en espera): rechazando {} {}",
+                    bulkhead.getName(), bulkhead.getActive(), bulkhead.getWaiting(),
+                    request.getMethod(), request.getServletPath());
+            reject(response);
+            return;
+        }
+
+        WorkloadContext.set(workloadClass);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            WorkloadContext.clear();
+            bulkhead.release();
+        }
+    }
+
+    public Map<WorkloadClass, Bulkhead> getBulkheads() {
+        return Map.copyOf(bulkheads);
+    }
+
+    private WorkloadClass classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getServletPath();
+        for (Route route : ROUTES) {
+            if (route.method().equals(method) && pathMatcher.match(route.pattern(), path)) {
+                return route.workloadClass();
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(
+                "{\"message\":\"El servidor está atendiendo demasiados reportes. Intente de nuevo en unos segundos.\"}");
+    }
+}
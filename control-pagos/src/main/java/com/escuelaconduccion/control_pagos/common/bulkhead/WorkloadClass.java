@@ -0,0 +1,12 @@
+package com.escuelaconduccion.control_pagos.common.bulkhead;
+
+/**
+ * Clases de carga con aislamiento propio. Lo que no se clasifica (registro de pagos,
+ * altas, consultas puntuales) usa el pool de Tomcat y de conexiones sin límites extra.
+ */
+public enum WorkloadClass {
+    // Reportes y listados completos
+    REPORT,
+    // Importaciones, altas masivas y procesos de archivo
+    BULK
+}
@@ -0,0 +1,30 @@
+package com.escuelaconduccion.control_pagos.common.bulkhead;
+
+/**
+ * Clase de carga de la petición en curso, para que el datasource la envíe a su propio
+ * pool de conexiones.
+ */
+public final class WorkloadContext {
+
+    private static final ThreadLocal<WorkloadClass> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    // null para el tráfico interactivo
+    public static WorkloadClass current() {
+        return CURRENT.get();
+    }
+
+    public static void set(WorkloadClass workloadClass) {
+        if (workloadClass == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(workloadClass);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
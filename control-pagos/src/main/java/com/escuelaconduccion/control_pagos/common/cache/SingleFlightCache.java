@@ -0,0 +1,133 @@
+package com.escuelaconduccion.control_pagos.common.cache;
+
+import com.escuelaconduccion.control_pagos.common.deadline.RequestDeadline;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caché con expiración donde las peticiones simultáneas de una misma clave comparten un
+ * solo cálculo: la primera lo ejecuta en su hilo y las demás esperan su resultado (sin
+ * tomar conexión mientras esperan). Pensada para reportes caros que se piden en ráfaga.
+ * <p>
+ * Las invalidaciones suben una generación; un cálculo que empezó antes de invalidar
+ * entrega su resultado a quienes lo esperaban pero no queda guardado.
+ */
+public class SingleFlightCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Clock clock;
+
+    public SingleFlightCache(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, Clock.systemUTC());
+    }
+
+    public SingleFlightCache(Duration ttl, int maxEntries, Clock clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt() > clock.millis()) {
+            return entry.value();
+        }
+
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        long startGeneration = generation.get();
+        try {
+            V value = loader.get();
+            if (generation.get() == startGeneration) {
+                // Se guarda y luego se vuelve a mirar la generación: una invalidación que
+                // llegue entre la comprobación y el put borra la entrada aquí o en invalidateIf
+                Entry<V> stored = store(key, value);
+                if (generation.get() != startGeneration) {
+                    entries.remove(key, stored);
+                }
+            }
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    // Descarta las claves que cumplan la condición, guardadas o en cálculo. La generación
+    // sube antes de borrar para que get() detecte la invalidación después de su put
+    public void invalidateIf(Predicate<K> condition) {
+        generation.incrementAndGet();
+        entries.keySet().removeIf(condition);
+        inFlight.keySet().removeIf(condition);
+    }
+
+    public void invalidateAll() {
+        invalidateIf(key -> true);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            // Quien espera respeta el plazo de su propia petición
+            long remaining = RequestDeadline.remainingMillis();
+            if (remaining == Long.MAX_VALUE) {
+                return future.get();
+            }
+            return future.get(Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Se agotó el plazo esperando un reporte en curso");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando un reporte en curso", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Entry<V> store(K key, V value) {
+        long now = clock.millis();
+        if (entries.size() >= maxEntries) {
+            entries.entrySet().removeIf(e -> e.getValue().expiresAt() <= now);
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        Entry<V> entry = new Entry<>(value, now + ttlMillis);
+        entries.put(key, entry);
+        return entry;
+    }
+}
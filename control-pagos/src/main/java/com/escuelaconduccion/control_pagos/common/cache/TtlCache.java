@@ -0,0 +1,68 @@
+package com.escuelaconduccion.control_pagos.common.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria con expiración por tiempo y un número máximo de entradas.
+ * Pensada para respuestas pequeñas y muy consultadas (endpoints públicos): al llegar
+ * al límite se descartan las entradas vencidas y, si no alcanza, se vacía completa,
+ * de modo que claves arbitrarias enviadas por clientes anónimos no hacen crecer la memoria.
+ */
+public class TtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Clock clock;
+
+    public TtlCache(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, Clock.systemUTC());
+    }
+
+    public TtlCache(Duration ttl, int maxEntries, Clock clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Devuelve el valor vigente o lo calcula con el loader. Dos hilos que fallan a la vez
+     * pueden cargar el mismo valor; para estos endpoints es preferible a bloquear.
+     */
+    public V get(K key, Supplier<V> loader) {
+        long now = clock.millis();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt() > now) {
+            return entry.value();
+        }
+
+        V value = loader.get();
+        if (entries.size() >= maxEntries) {
+            evictExpired(now);
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(key, new Entry<>(value, now + ttlMillis));
+        return value;
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public long getTtlSeconds() {
+        return Duration.ofMillis(ttlMillis).toSeconds();
+    }
+
+    private void evictExpired(long now) {
+        entries.entrySet().removeIf(e -> e.getValue().expiresAt() <= now);
+    }
+}
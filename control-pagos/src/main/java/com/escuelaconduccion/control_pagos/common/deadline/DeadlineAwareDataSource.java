@@ -0,0 +1,70 @@
+package com.escuelaconduccion.control_pagos.common.deadline;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+/**
+ * Aplica el plazo de la petición a cada sentencia JDBC (JPA, Spring Data y JdbcTemplate):
+ * el timeout de la sentencia es el tiempo que le queda a la petición, así PostgreSQL
+ * cancela la consulta en vez de seguir ocupando la conexión cuando el cliente ya desistió.
+ * Si el plazo ya venció la sentencia no se ejecuta.
+ */
+public class DeadlineAwareDataSource extends DelegatingDataSource {
+
+    // SQLState de PostgreSQL para una consulta cancelada
+    private static final String QUERY_CANCELED = "57014";
+
+    public DeadlineAwareDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                    if (result instanceof Statement statement) {
+                        applyDeadline(statement);
+                    }
+                    return result;
+                });
+    }
+
+    private void applyDeadline(Statement statement) throws SQLException {
+        if (!RequestDeadline.isActive()) {
+            return;
+        }
+        long remaining = RequestDeadline.remainingMillis();
+        if (remaining <= 0) {
+            statement.close();
+            throw new SQLTimeoutException("Se agotó el plazo de la petición antes de ejecutar la consulta",
+                    QUERY_CANCELED);
+        }
+        // JDBC trabaja en segundos: se redondea hacia arriba para no cortar antes de tiempo
+        int seconds = (int) Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000);
+        statement.setQueryTimeout(seconds);
+    }
+}
@@ -0,0 +1,28 @@
+package com.escuelaconduccion.control_pagos.common.deadline;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * Acota el timeout de cada transacción al plazo que le queda a la petición. Spring lo
+ * aplica como timeout de las consultas JPA y corta la transacción al vencer.
+ */
+public class DeadlineAwareJpaTransactionManager extends JpaTransactionManager {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected int determineTimeout(TransactionDefinition definition) {
+        int timeout = super.determineTimeout(definition);
+        if (!RequestDeadline.isActive()) {
+            return timeout;
+        }
+        // Si ya venció, la primera sentencia se rechaza en DeadlineAwareDataSource
+        long remaining = Math.max(RequestDeadline.remainingMillis(), 1);
+        int remainingSeconds = (int) Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000);
+        if (timeout == TransactionDefinition.TIMEOUT_DEFAULT) {
+            return remainingSeconds;
+        }
+        return Math.min(timeout, remainingSeconds);
+    }
+}
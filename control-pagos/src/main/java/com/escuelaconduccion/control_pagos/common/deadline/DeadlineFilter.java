@@ -0,0 +1,88 @@
+package com.escuelaconduccion.control_pagos.common.deadline;
+
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadClass;
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Fija el plazo de cada petición de la API según su clase de carga. El cliente puede
+ * acortarlo con la cabecera {@value #TIMEOUT_HEADER} (milisegundos), nunca alargarlo:
+ * así no retiene conexiones ni hilos más de lo previsto para esa clase.
+ * Va después del BulkheadFilter para conocer esa clase.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 90)
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private final long defaultMillis;
+    private final long reportMillis;
+    private final long bulkMillis;
+
+    public DeadlineFilter(@Value("${request-deadline.default-ms:15000}") long defaultMillis,
+                          @Value("${request-deadline.report-ms:60000}") long reportMillis,
+                          @Value("${request-deadline.bulk-ms:900000}") long bulkMillis) {
+        this.defaultMillis = defaultMillis;
+        this.reportMillis = reportMillis;
+        this.bulkMillis = bulkMillis;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !request.getServletPath().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        RequestDeadline.start(Duration.ofMillis(resolveTimeout(request)));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    private long resolveTimeout(HttpServletRequest request) {
+        long timeout = defaultFor(WorkloadContext.current());
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null && !header.isBlank()) {
+            try {
+                long requested = Long.parseLong(header.trim());
+                if (requested > 0) {
+                    timeout = Math.min(requested, timeout);
+                }
+            } catch (NumberFormatException ignored) {
+                // Cabecera mal formada: se usa el plazo por defecto
+            }
+        }
+        return timeout;
+    }
+
+    private long defaultFor(WorkloadClass workloadClass) {
+        if (workloadClass == WorkloadClass.REPORT) {
+            return reportMillis;
+        }
+        if (workloadClass == WorkloadClass.BULK) {
+            return bulkMillis;
+        }
+        return defaultMillis;
+    }
+}
@@ -0,0 +1,55 @@
+package com.escuelaconduccion.control_pagos.common.deadline;
+
+import java.time.Duration;
+
+/**
+ * Plazo de la petición en curso. Lo fija el DeadlineFilter y lo consulta la capa JDBC
+ * para acotar el timeout de cada sentencia al tiempo que queda.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Long> EXPIRES_AT_NANOS = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static void start(Duration timeout) {
+        EXPIRES_AT_NANOS.set(System.nanoTime() + timeout.toNanos());
+    }
+
+    // Para propagar el plazo a otro hilo; null si no hay plazo
+    public static Long expiresAtNanos() {
+        return EXPIRES_AT_NANOS.get();
+    }
+
+    public static void restore(Long expiresAtNanos) {
+        if (expiresAtNanos == null) {
+            EXPIRES_AT_NANOS.remove();
+        } else {
+            EXPIRES_AT_NANOS.set(expiresAtNanos);
+        }
+    }
+
+    public static void clear() {
+        EXPIRES_AT_NANOS.remove();
+    }
+
+    public static boolean isActive() {
+        return EXPIRES_AT_NANOS.get() != null;
+    }
+
+    /**
+     * Milisegundos restantes (puede ser negativo si ya venció); Long.MAX_VALUE si no hay plazo.
+     */
+    public static long remainingMillis() {
+        Long expiresAt = EXPIRES_AT_NANOS.get();
+        if (expiresAt == null) {
+            return Long.MAX_VALUE;
+        }
+        return Duration.ofNanos(expiresAt - System.nanoTime()).toMillis();
+    }
+
+    public static boolean isExpired() {
+        return remainingMillis() <= 0;
+    }
+}
@@ -0,0 +1,19 @@
+package com.escuelaconduccion.control_pagos.common.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+// Página por cursor (keyset): el cliente envía nextCursor para pedir la siguiente
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class KeysetPageDTO<T> {
+
+    private List<T> items;
+    private Integer size;
+    private Boolean hasMore;
+    private String nextCursor;
+}
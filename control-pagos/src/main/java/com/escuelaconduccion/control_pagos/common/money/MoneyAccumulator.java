@@ -0,0 +1,46 @@
+package com.escuelaconduccion.control_pagos.common.money;
+
+import java.math.BigDecimal;
+
+/**
+ * Suma mutable de importes en centavos para bucles de agregación: no crea un objeto por
+ * cada suma, a diferencia de {@code BigDecimal.add}. No es thread-safe.
+ */
+public final class MoneyAccumulator {
+
+    private long cents;
+    private long count;
+
+    public MoneyAccumulator add(BigDecimal amount) {
+        return addCents(Money.toCents(amount));
+    }
+
+    public MoneyAccumulator addCents(long value) {
+        cents = Math.addExact(cents, value);
+        count++;
+        return this;
+    }
+
+    public MoneyAccumulator add(MoneyAccumulator other) {
+        cents = Math.addExact(cents, other.cents);
+        count += other.count;
+        return this;
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    // Número de importes sumados
+    public long getCount() {
+        return count;
+    }
+
+    public Money toMoney() {
+        return Money.ofCents(cents);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return Money.toBigDecimal(cents);
+    }
+}
@@ -0,0 +1,46 @@
+package com.escuelaconduccion.control_pagos.common.routing;
+
+import java.util.function.Supplier;
+
+/**
+ * Marca el hilo actual para que sus transacciones de solo lectura no usen la réplica.
+ * Lo usan los cálculos cuyo resultado se guarda y se invalida con eventos de commit
+ * (caché de reportes, trabajos de reporte): leídos en una réplica retrasada quedarían
+ * guardados con datos anteriores a la invalidación.
+ * <p>
+ * Solo cambia el destino de las conexiones que se pidan dentro del bloque; el reparto
+ * entre el pool primario y el de reportes se mantiene.
+ */
+public final class PrimaryReadContext {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private PrimaryReadContext() {
+    }
+
+    public static boolean isActive() {
+        return Boolean.TRUE.equals(ACTIVE.get());
+    }
+
+    public static void set() {
+        ACTIVE.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        ACTIVE.remove();
+    }
+
+    public static <T> T call(Supplier<T> action) {
+        Boolean previous = ACTIVE.get();
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                ACTIVE.remove();
+            } else {
+                ACTIVE.set(previous);
+            }
+        }
+    }
+}
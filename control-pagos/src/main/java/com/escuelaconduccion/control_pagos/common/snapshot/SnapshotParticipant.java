@@ -0,0 +1,26 @@
+package com.escuelaconduccion.control_pagos.common.snapshot;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+/**
+ * Estado derivado en memoria que se guarda periódicamente en un snapshot para arrancar en
+ * caliente. La marca de agua es el último evento del outbox incluido en el estado: al
+ * restaurar, el consumidor debe reanudar desde ahí.
+ */
+public interface SnapshotParticipant {
+
+    String getSnapshotName();
+
+    // Cambiarla cuando cambie el formato: los snapshots de otra versión se descartan
+    int getSnapshotVersion();
+
+    boolean isReady();
+
+    /** Escribe el estado actual y devuelve su marca de agua. */
+    long writeSnapshot(DataOutput out) throws IOException;
+
+    void restoreSnapshot(ByteBuffer data, long watermark, LocalDateTime createdAt);
+}
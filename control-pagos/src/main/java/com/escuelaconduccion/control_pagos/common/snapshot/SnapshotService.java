@@ -0,0 +1,187 @@
+package com.escuelaconduccion.control_pagos.common.snapshot;
+
+import com.escuelaconduccion.control_pagos.common.metrics.OperationalMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.zip.CRC32;
+
+/**
+ * Guarda el estado de cada {@link SnapshotParticipant} en un archivo mapeado en memoria
+ * ({@code <dir>/<nombre>.snap}) cada cierto tiempo y al apagar la aplicación, y lo restaura
+ * al arrancar para no reconstruirlo con lecturas completas de las tablas.
+ * <p>
+ * Formato: cabecera fija (magia, versión del formato, versión del participante, marca de
+ * agua, fecha, longitud y CRC32 de los datos) seguida de los datos del participante. Un
+ * archivo incompleto, corrupto, de otra versión o demasiado viejo se ignora y el
+ * participante hace la carga completa de siempre.
+ */
+@Service
+@Slf4j
+public class SnapshotService {
+
+    private static final int MAGIC = 0x45445053; // "EDPS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 8 + 4 + 8;
+
+    private final ObjectProvider<SnapshotParticipant> participants;
+    private final OperationalMetrics operationalMetrics;
+    private final boolean enabled;
+    private final Path directory;
+    private final Duration maxAge;
+
+    public SnapshotService(ObjectProvider<SnapshotParticipant> participants,
+                           OperationalMetrics operationalMetrics,
+                           @Value("${snapshot.enabled:true}") boolean enabled,
+                           @Value("${snapshot.dir:${java.io.tmpdir}/edupay-snapshots}") String directory,
+                           @Value("${snapshot.max-age-hours:24}") long maxAgeHours,
+                           @Value("${outbox.retention-hours:72}") long outboxRetentionHours) {
+        this.participants = participants;
+        this.operationalMetrics = operationalMetrics;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        // Los eventos posteriores a la marca deben seguir en el outbox para poder reanudar
+        this.maxAge = Duration.ofHours(Math.max(1, Math.min(maxAgeHours, outboxRetentionHours - 1)));
+    }
+
+    @Scheduled(fixedDelayString = "${snapshot.interval-ms:300000}", initialDelayString = "${snapshot.interval-ms:300000}")
+    public void checkpointAll() {
+        if (!enabled) {
+            return;
+        }
+        participants.orderedStream().forEach(this::checkpoint);
+    }
+
+    // Tras un despliegue el nodo nuevo arranca con el estado más reciente posible
+    @EventListener(ContextClosedEvent.class)
+    public void checkpointOnShutdown() {
+        checkpointAll();
+    }
+
+    public void checkpoint(SnapshotParticipant participant) {
+        if (!participant.isReady()) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            long watermark;
+            try (DataOutputStream out = new DataOutputStream(buffer)) {
+                watermark = participant.writeSnapshot(out);
+            }
+            byte[] data = buffer.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(data);
+
+            Files.createDirectories(directory);
+            Path target = file(participant);
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + data.length);
+                mapped.putInt(MAGIC)
+                        .putInt(FORMAT_VERSION)
+                        .putInt(participant.getSnapshotVersion())
+                        .putLong(watermark)
+                        .putLong(System.currentTimeMillis())
+                        .putInt(data.length)
+                        .putLong(crc.getValue())
+                        .put(data);
+                mapped.force();
+            }
+            // El archivo anterior sigue válido hasta que el nuevo está completo
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            operationalMetrics.increment("snapshot.written");
+            log.info("Snapshot '{}' guardado: {} KB, marca {} en {} ms", participant.getSnapshotName(),
+                    data.length / 1024, watermark, Duration.ofNanos(System.nanoTime() - started).toMillis());
+        } catch (IOException | RuntimeException e) {
+            operationalMetrics.increment("snapshot.failed");
+            log.warn("No se pudo guardar el snapshot '{}': {}", participant.getSnapshotName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Restaura el participante desde su snapshot. Devuelve false si no hay uno utilizable;
+     * en ese caso el participante no se modificó.
+     */
+    public boolean restore(SnapshotParticipant participant) {
+        if (!enabled) {
+            return false;
+        }
+        Path path = file(participant);
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                return reject(participant, "archivo incompleto");
+            }
+            // El mapeo sigue siendo válido después de cerrar el canal
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt() != MAGIC || mapped.getInt() != FORMAT_VERSION) {
+                return reject(participant, "formato desconocido");
+            }
+            if (mapped.getInt() != participant.getSnapshotVersion()) {
+                return reject(participant, "versión distinta");
+            }
+            long watermark = mapped.getLong();
+            LocalDateTime createdAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(mapped.getLong()), ZoneId.systemDefault());
+            int length = mapped.getInt();
+            long expectedCrc = mapped.getLong();
+            if (length != size - HEADER_BYTES) {
+                return reject(participant, "longitud inválida");
+            }
+            if (createdAt.isBefore(LocalDateTime.now().minus(maxAge))) {
+                return reject(participant, "demasiado antiguo (" + createdAt + ")");
+            }
+
+            ByteBuffer data = mapped.slice(HEADER_BYTES, length).asReadOnlyBuffer();
+            CRC32 crc = new CRC32();
+            crc.update(data.duplicate());
+            if (crc.getValue() != expectedCrc) {
+                return reject(participant, "CRC inválido");
+            }
+
+            participant.restoreSnapshot(data, watermark, createdAt);
+            operationalMetrics.increment("snapshot.restored");
+            log.info("Snapshot '{}' restaurado (marca {}, del {}) en {} ms", participant.getSnapshotName(),
+                    watermark, createdAt, Duration.ofNanos(System.nanoTime() - started).toMillis());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return reject(participant, e.getMessage());
+        }
+    }
+
+    private boolean reject(SnapshotParticipant participant, String reason) {
+        operationalMetrics.increment("snapshot.rejected");
+        log.warn("Snapshot '{}' descartado: {}. Se hará la carga completa.", participant.getSnapshotName(), reason);
+        return false;
+    }
+
+    private Path file(SnapshotParticipant participant) {
+        return directory.resolve(participant.getSnapshotName() + ".snap");
+    }
+}
@@ -0,0 +1,28 @@
+package com.escuelaconduccion.control_pagos.config;
+
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+/**
+ * Registra {@link BranchScope#applyTo} como inicializador de todos los EntityManager,
+ * tanto los de una transacción como los que abre Spring Data fuera de ella.
+ */
+@Configuration
+public class BranchFilterConfig {
+
+    @Bean
+    public static BeanPostProcessor branchFilterEntityManagerInitializer() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractEntityManagerFactoryBean factoryBean) {
+                    factoryBean.setEntityManagerInitializer(BranchScope::applyTo);
+                }
+                return bean;
+            }
+        };
+    }
+}
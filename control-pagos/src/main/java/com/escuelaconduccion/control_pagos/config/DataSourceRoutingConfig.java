@@ -0,0 +1,152 @@
+package com.escuelaconduccion.control_pagos.config;
+
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadContext;
+import com.escuelaconduccion.control_pagos.common.deadline.DeadlineAwareDataSource;
+import com.escuelaconduccion.control_pagos.common.routing.PrimaryReadContext;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Datasource de la aplicación, repartido en pools según el tipo de trabajo:
+ * <ul>
+ *   <li>{@code primary}: escrituras y tráfico interactivo (caja, altas, consultas puntuales).</li>
+ *   <li>{@code reports}: mismo servidor, pool pequeño y separado para las peticiones que el
+ *   BulkheadFilter clasifica como reporte o proceso masivo, para que no agoten las
+ *   conexiones de la caja.</li>
+ *   <li>{@code replica} (opcional, {@code datasource.replica.enabled}): réplica de lectura para
+ *   las transacciones {@code @Transactional(readOnly = true)} mientras el
+ *   {@link ReplicaLagMonitor} la considere al día, salvo en hilos marcados con
+ *   {@link PrimaryReadContext}.</li>
+ * </ul>
+ * El proxy perezoso solo pide la conexión física al ejecutar la primera sentencia; para
+ * entonces la transacción ya marcó la conexión como de solo lectura y se usa el destino
+ * de lectura.
+ */
+@Configuration
+public class DataSourceRoutingConfig {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPORTS = "reports";
+    private static final String REPLICA = "replica";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName(PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource reportsDataSource(
+            DataSourceProperties properties,
+            @Value("${datasource.reports.maximum-pool-size:3}") int maximumPoolSize) {
+
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName(REPORTS);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setMinimumIdle(0);
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+    public HikariDataSource replicaDataSource(
+            @Value("${datasource.replica.url}") String url,
+            @Value("${datasource.replica.username}") String username,
+            @Value("${datasource.replica.password}") String password,
+            @Value("${datasource.replica.maximum-pool-size:10}") int maximumPoolSize) {
+
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName("org.postgresql.Driver")
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName(REPLICA);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setReadOnly(true);
+        // Arrancar aunque la réplica no esté disponible; el monitor la habilitará cuando responda
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+    public ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            @Value("${datasource.replica.max-lag-seconds:5}") double maxLagSeconds) {
+        return new ReplicaLagMonitor(replicaDataSource, maxLagSeconds);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("reportsDataSource") DataSource reportsDataSource,
+            @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaDataSource,
+            ObjectProvider<ReplicaLagMonitor> replicaLagMonitor) {
+
+        DataSource replica = replicaDataSource.getIfAvailable();
+        ReplicaLagMonitor monitor = replicaLagMonitor.getIfAvailable();
+
+        // Escrituras (y lecturas sin readOnly): primario, o el pool de reportes para esa carga
+        AbstractRoutingDataSource writeDataSource = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return WorkloadContext.current() != null ? REPORTS : PRIMARY;
+            }
+        };
+        writeDataSource.setTargetDataSources(Map.of(PRIMARY, primaryDataSource, REPORTS, reportsDataSource));
+        writeDataSource.setDefaultTargetDataSource(primaryDataSource);
+        writeDataSource.setLenientFallback(false);
+        writeDataSource.afterPropertiesSet();
+
+        // Solo lectura: la réplica si está al día y el hilo no pidió leer del primario;
+        // si no, el mismo reparto que las escrituras
+        Map<Object, Object> readTargets = new HashMap<>();
+        readTargets.put(PRIMARY, primaryDataSource);
+        readTargets.put(REPORTS, reportsDataSource);
+        if (replica != null) {
+            readTargets.put(REPLICA, replica);
+        }
+        AbstractRoutingDataSource readOnlyDataSource = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                if (monitor != null && monitor.isReplicaUsable() && !PrimaryReadContext.isActive()) {
+                    return REPLICA;
+                }
+                return WorkloadContext.current() != null ? REPORTS : PRIMARY;
+            }
+        };
+        readOnlyDataSource.setTargetDataSources(readTargets);
+        readOnlyDataSource.setDefaultTargetDataSource(primaryDataSource);
+        readOnlyDataSource.setLenientFallback(false);
+        readOnlyDataSource.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(writeDataSource);
+        proxy.setReadOnlyDataSource(readOnlyDataSource);
+        // Cada sentencia lleva como timeout lo que le queda al plazo de la petición
+        return new DeadlineAwareDataSource(proxy);
+    }
+}
@@ -0,0 +1,219 @@
+package com.escuelaconduccion.control_pagos.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Índices que JPA no puede declarar con @Index (parciales, con INCLUDE o de expresión)
+ * y rellenos de columnas nuevas. Hibernate crea las tablas con ddl-auto=update y aquí
+ * se completan de forma idempotente.
+ * <p>
+ * Se ejecuta al crear el bean, justo después del EntityManagerFactory y antes de que el
+ * servidor web acepte peticiones, así ninguna consulta ve columnas sin rellenar. Los
+ * rellenos y triggers son obligatorios: si fallan, la aplicación no arranca. Los índices
+ * solo aceleran, y un fallo al crearlos se registra sin detener el arranque.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseIndexInitializer implements InitializingBean {
+
+    private static final List<String> REQUIRED_STATEMENTS = List.of(
+            // Matrículas anteriores a la columna payment_status: se calcula una sola vez
+            """
+            UPDATE enrollments
+            SET payment_status = CASE
+                WHEN paid_amount >= total_amount THEN 'PAGADO'
+                WHEN paid_amount > 0 THEN 'EN_PROGRESO'
+                ELSE 'PENDIENTE'
+            END
+            WHERE payment_status IS NULL
+            """,
+            // Matrículas anteriores a la columna last_payment_date. Las que nunca tuvieron pagos
+            // quedan en null y el EXISTS las descarta por idx_payments_enrollment_status
+            """
+            UPDATE enrollments e
+            SET last_payment_date = (
+                SELECT CAST(MAX(p.payment_date) AS date)
+                FROM payments p
+                WHERE p.enrollment_id = e.id
+                AND p.status = 'CONFIRMADO'
+            )
+            WHERE e.last_payment_date IS NULL
+            AND EXISTS (
+                SELECT 1 FROM payments p
+                WHERE p.enrollment_id = e.id
+                AND p.status = 'CONFIRMADO'
+            )
+            """,
+            // Numeración de entrega del outbox. Al crearla, los eventos existentes conservan su id
+            // como número, que es lo que ya tienen guardado los checkpoints
+            """
+            DO $$
+            BEGIN
+                IF to_regclass('outbox_event_seq') IS NULL THEN
+                    CREATE SEQUENCE outbox_event_seq;
+                    UPDATE outbox_events SET seq = id WHERE seq IS NULL;
+                    PERFORM setval('outbox_event_seq', GREATEST((SELECT MAX(id) FROM outbox_events), 1));
+                END IF;
+            END $$
+            """,
+            // Saldo pendiente por estudiante para la paginación de deudores: cada cambio en una
+            // matrícula suma o resta su aporte con un delta, que es seguro con escrituras concurrentes
+            """
+            ALTER TABLE students ALTER COLUMN outstanding_balance SET DEFAULT 0
+            """,
+            """
+            CREATE OR REPLACE FUNCTION enrollments_outstanding_balance() RETURNS trigger AS $$
+            DECLARE
+                old_open numeric := 0;
+                new_open numeric := 0;
+            BEGIN
+                IF TG_OP <> 'INSERT' AND OLD.active AND OLD.total_amount > OLD.paid_amount THEN
+                    old_open := OLD.total_amount - OLD.paid_amount;
+                END IF;
+                IF TG_OP <> 'DELETE' AND NEW.active AND NEW.total_amount > NEW.paid_amount THEN
+                    new_open := NEW.total_amount - NEW.paid_amount;
+                END IF;
+                IF TG_OP = 'UPDATE' AND OLD.student_id = NEW.student_id THEN
+                    IF new_open <> old_open THEN
+                        UPDATE students SET outstanding_balance = outstanding_balance + new_open - old_open
+                        WHERE id = NEW.student_id;
+                    END IF;
+                    RETURN NULL;
+                END IF;
+                IF old_open <> 0 THEN
+                    UPDATE students SET outstanding_balance = outstanding_balance - old_open
+                    WHERE id = OLD.student_id;
+                END IF;
+                IF new_open <> 0 THEN
+                    UPDATE students SET outstanding_balance = outstanding_balance + new_open
+                    WHERE id = NEW.student_id;
+                END IF;
+                RETURN NULL;
+            END
+            $$ LANGUAGE plpgsql
+            """,
+            """
+            DO $$
+            BEGIN
+                IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgname = 'trg_enrollments_outstanding_balance') THEN
+                    CREATE TRIGGER trg_enrollments_outstanding_balance
+                    AFTER INSERT OR UPDATE OR DELETE ON enrollments
+                    FOR EACH ROW EXECUTE FUNCTION enrollments_outstanding_balance();
+                END IF;
+            END $$
+            """,
+            // Estudiantes anteriores a la columna: se calcula con las matrículas bloqueadas para
+            // escritura, así ningún delta del trigger queda a medias con el relleno
+            """
+            DO $$
+            BEGIN
+                IF EXISTS (SELECT 1 FROM students WHERE outstanding_balance IS NULL) THEN
+                    LOCK TABLE enrollments IN SHARE ROW EXCLUSIVE MODE;
+                    UPDATE students s
+                    SET outstanding_balance = COALESCE((
+                        SELECT SUM(e.total_amount - e.paid_amount)
+                        FROM enrollments e
+                        WHERE e.student_id = s.id
+                        AND e.active = true
+                        AND e.total_amount > e.paid_amount
+                    ), 0)
+                    WHERE s.outstanding_balance IS NULL;
+                END IF;
+            END $$
+            """
+    );
+
+    private static final List<String> INDEX_STATEMENTS = List.of(
+            // Matrículas activas con saldo pendiente: deudores y cartera solo recorren estas filas
+            """
+            CREATE INDEX IF NOT EXISTS idx_enrollments_open_balance
+            ON enrollments (branch_id, course_id, student_id)
+            INCLUDE (total_amount, paid_amount)
+            WHERE active = true AND total_amount > paid_amount
+            """,
+            """
+            CREATE INDEX IF NOT EXISTS idx_enrollments_open_student
+            ON enrollments (student_id)
+            INCLUDE (total_amount, paid_amount, branch_id, course_id)
+            WHERE active = true AND total_amount > paid_amount
+            """,
+            // Detalle de cartera por edades: keyset (fecha de referencia, id) por cada base,
+            // global o por sede, sobre las mismas filas abiertas que idx_enrollments_open_balance
+            """
+            CREATE INDEX IF NOT EXISTS idx_enrollments_aging_enrolled
+            ON enrollments (enrollment_date, id)
+            WHERE active = true AND total_amount > paid_amount
+            """,
+            """
+            CREATE INDEX IF NOT EXISTS idx_enrollments_branch_aging_enrolled
+            ON enrollments (branch_id, enrollment_date, id)
+            WHERE active = true AND total_amount > paid_amount
+            """,
+            """
+            CREATE INDEX IF NOT EXISTS idx_enrollments_aging_paid
+            ON enrollments ((COALESCE(last_payment_date, enrollment_date)), id)
+            WHERE active = true AND total_amount > paid_amount
+            """,
+            """
+            CREATE INDEX IF NOT EXISTS idx_enrollments_branch_aging_paid
+            ON enrollments (branch_id, (COALESCE(last_payment_date, enrollment_date)), id)
+            WHERE active = true AND total_amount > paid_amount
+            """,
+            // Eventos pendientes de numerar: el relay los busca en cada pasada
+            """
+            CREATE INDEX IF NOT EXISTS idx_outbox_events_unsequenced
+            ON outbox_events (id)
+            WHERE seq IS NULL
+            """,
+            // Deudores: keyset (outstanding_balance, id) descendente, global o por sede. Parciales
+            // para no mantener entradas de los estudiantes al día en cada pago
+            """
+            CREATE INDEX IF NOT EXISTS idx_students_debtors
+            ON students (outstanding_balance DESC, id DESC)
+            WHERE outstanding_balance > 0
+            """,
+            """
+            CREATE INDEX IF NOT EXISTS idx_students_branch_debtors
+            ON students (branch_id, outstanding_balance DESC, id DESC)
+            WHERE outstanding_balance > 0
+            """,
+            // Versiones anteriores completas, con id ascendente, que el keyset ya no usa
+            """
+            DROP INDEX IF EXISTS idx_students_outstanding
+            """,
+            """
+            DROP INDEX IF EXISTS idx_students_branch_outstanding
+            """,
+            // Solo las cuotas pendientes: el escáner de vencidas no recorre las ya pagadas
+            """
+            CREATE INDEX IF NOT EXISTS idx_installments_pending_due
+            ON installments (due_date, id)
+            WHERE status = 'PENDIENTE'
+            """
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        REQUIRED_STATEMENTS.forEach(jdbcTemplate::execute);
+        for (String statement : INDEX_STATEMENTS) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (Exception e) {
+                // Un índice que no se pueda crear no debe impedir el arranque
+                log.warn("No se pudo crear el índice: {}", e.getMessage());
+            }
+        }
+        log.info("Sentencias de esquema verificadas: {}", REQUIRED_STATEMENTS.size() + INDEX_STATEMENTS.size());
+    }
+}
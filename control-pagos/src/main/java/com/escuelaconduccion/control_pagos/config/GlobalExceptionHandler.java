@@ -1,16 +1,53 @@
 package com.escuelaconduccion.control_pagos.config;
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadClass;
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadContext;
+import com.escuelaconduccion.control_pagos.common.metrics.OperationalMetrics;
+import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionTimedOutException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final OperationalMetrics operationalMetrics;
+
+    // Consulta cancelada por el plazo de la petición (statement timeout) o transacción vencida
+    @ExceptionHandler({QueryTimeoutException.class, TransactionTimedOutException.class})
+    public ResponseEntity<Map<String, String>> handleTimeout(RuntimeException ex) {
+        WorkloadClass workloadClass = WorkloadContext.current();
+        operationalMetrics.increment("timeouts." + (workloadClass != null ? workloadClass.name().toLowerCase() : "interactive"));
+
+        Map<String, String> error = new HashMap<>();
+        error.put("message", "La operación superó el tiempo máximo permitido y fue cancelada. Intente con un rango menor o más tarde.");
+
+        return ResponseEntity
+                .status(HttpStatus.GATEWAY_TIMEOUT)
+                .body(error);
+    }
+
+    // Cola de trabajos en segundo plano llena (reportes asíncronos)
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> handleRejectedExecution(RejectedExecutionException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", ex.getMessage());
+
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "60")
+                .body(error);
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<Map<String, String>> handleDataIntegrityViolation(
             DataIntegrityViolationException ex) {
@@ -19,7 +56,10 @@ public class GlobalExceptionHandler {
         
         String message = ex.getMostSpecificCause().getMessage();
         
-        if (message.contains("document_number")) {
+        if (message.contains("uk_cash_closings_branch_date")) {
+            // Dos cierres simultáneos del mismo día: el segundo choca con la restricción única
+            error.put("message", "La caja de este día ya fue cerrada");
+        } else if (message.contains("document_number")) {
             error.put("message", "Ya existe un estudiante con este número de documento");
             error.put("field", "documentNumber");
         } else if (message.contains("email")) {
@@ -0,0 +1,58 @@
+package com.escuelaconduccion.control_pagos.config;
+
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadClass;
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadContext;
+import com.escuelaconduccion.control_pagos.common.deadline.RequestDeadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Pool acotado para consultas de solo lectura que se lanzan en paralelo dentro de una
+ * misma petición. Cada tarea toma su propia conexión, así que el tamaño debe quedar
+ * por debajo del pool de conexiones para no dejar sin conexiones al resto de la API.
+ */
+@Configuration
+public class QueryExecutorConfig {
+
+    @Bean(name = "queryExecutor")
+    public ThreadPoolTaskExecutor queryExecutor(
+            @Value("${query-executor.pool-size:4}") int poolSize,
+            @Value("${query-executor.queue-capacity:100}") int queueCapacity) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("query-");
+        // Propaga el usuario autenticado (filtro de sede), la clase de carga (pool de conexiones)
+        // y el plazo de la petición (timeouts de las consultas)
+        executor.setTaskDecorator(task -> {
+            WorkloadClass workloadClass = WorkloadContext.current();
+            Long expiresAtNanos = RequestDeadline.expiresAtNanos();
+            Runnable withWorkload = () -> {
+                // Con CallerRunsPolicy la tarea puede correr en el hilo de la petición: se restaura lo previo
+                WorkloadClass previousWorkload = WorkloadContext.current();
+                Long previousDeadline = RequestDeadline.expiresAtNanos();
+                WorkloadContext.set(workloadClass);
+                RequestDeadline.restore(expiresAtNanos);
+                try {
+                    task.run();
+                } finally {
+                    WorkloadContext.set(previousWorkload);
+                    RequestDeadline.restore(previousDeadline);
+                }
+            };
+            return DelegatingSecurityContextRunnable.create(withWorkload, null);
+        });
+        // Con la cola llena la consulta se ejecuta en el hilo de la petición en vez de fallar
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,74 @@
+package com.escuelaconduccion.control_pagos.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Mide periódicamente el retraso de la réplica de lectura. Mientras el retraso supere
+ * el máximo configurado, o la réplica no responda, las transacciones de solo lectura
+ * vuelven al primario.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // En una réplica al día (sin WAL pendiente) el retraso es 0 aunque no haya escrituras recientes;
+    // en un servidor que no es réplica las funciones devuelven NULL y también queda en 0
+    private static final String LAG_QUERY = """
+            SELECT COALESCE(
+                CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                     ELSE EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp()))
+                END, 0)
+            """;
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final double maxLagSeconds;
+
+    private volatile boolean replicaUsable = false;
+    private volatile double lastLagSeconds = -1;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, double maxLagSeconds) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.replicaJdbcTemplate.setQueryTimeout(2);
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-ms:5000}")
+    public void check() {
+        double lag;
+        try {
+            Double measured = replicaJdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+            lag = measured != null ? measured : 0;
+        } catch (Exception e) {
+            lag = -1;
+            log.debug("Réplica de lectura no disponible: {}", e.getMessage());
+        }
+        record(lag);
+    }
+
+    // Aplica una medición de retraso en segundos; -1 = la réplica no respondió
+    void record(double lagSeconds) {
+        boolean usable = lagSeconds >= 0 && lagSeconds <= maxLagSeconds;
+        lastLagSeconds = lagSeconds;
+
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Réplica de lectura disponible (retraso {}s); lecturas enviadas a la réplica", lagSeconds);
+            } else {
+                log.warn("Réplica de lectura retrasada o caída (retraso {}s); lecturas enviadas al primario", lagSeconds);
+            }
+        }
+        replicaUsable = usable;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    // -1 si la última comprobación falló
+    public double getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+}
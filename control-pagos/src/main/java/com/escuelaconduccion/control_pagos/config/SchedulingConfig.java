@@ -0,0 +1,10 @@
+package com.escuelaconduccion.control_pagos.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Habilita las tareas programadas (vencimiento de cuotas y otros procesos por lotes)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
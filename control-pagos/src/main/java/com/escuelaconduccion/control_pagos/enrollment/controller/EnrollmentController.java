@@ -1,14 +1,22 @@
 package com.escuelaconduccion.control_pagos.enrollment.controller;
 
+import com.escuelaconduccion.control_pagos.common.dto.KeysetPageDTO;
+import com.escuelaconduccion.control_pagos.enrollment.dto.BulkEnrollmentRequestDTO;
+import com.escuelaconduccion.control_pagos.enrollment.dto.BulkEnrollmentResponseDTO;
 import com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentRequestDTO;
 import com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentResponseDTO;
+import com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentStatusCountDTO;
 import com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentSummaryDTO;
+import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
+import com.escuelaconduccion.control_pagos.enrollment.service.BulkEnrollmentService;
 import com.escuelaconduccion.control_pagos.enrollment.service.EnrollmentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,6 +26,7 @@ import org.springframework.web.bind.annotation.*;
 public class EnrollmentController {
 
     private final EnrollmentService enrollmentService;
+    private final BulkEnrollmentService bulkEnrollmentService;
 
     @PostMapping
     public EnrollmentResponseDTO createEnrollment(
@@ -26,6 +35,14 @@ public class EnrollmentController {
         return enrollmentService.createEnrollment(request);
     }
 
+    // Inscribe un grupo de estudiantes en un curso; devuelve el resultado por estudiante
+    @PostMapping("/bulk")
+    public BulkEnrollmentResponseDTO createBulk(
+            @Valid @RequestBody BulkEnrollmentRequestDTO request
+    ) {
+        return bulkEnrollmentService.createBulk(request);
+    }
+
     @GetMapping
     public List<EnrollmentResponseDTO> getAllEnrollments(
             @RequestParam(required = false) Long branchId  // Solo para SUPER_ADMIN
@@ -33,6 +50,34 @@ public class EnrollmentController {
         return enrollmentService.getAllEnrollments(branchId);
     }
 
+    @GetMapping("/search")
+    public KeysetPageDTO<EnrollmentResponseDTO> searchEnrollments(
+            @RequestParam(required = false) Long branchId,  // Solo para SUPER_ADMIN
+            @RequestParam(required = false) Long studentId,
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) Enrollment.EnrollmentStatus status,
+            @RequestParam(required = false) Enrollment.PaymentProgress paymentStatus,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return enrollmentService.searchEnrollments(branchId, studentId, courseId, status, paymentStatus, from, to, cursor, size);
+    }
+
+    // Resúmenes de varias matrículas en una sola llamada: /summaries?ids=1,2,3
+    @GetMapping("/summaries")
+    public List<EnrollmentSummaryDTO> getEnrollmentSummaries(@RequestParam List<Long> ids) {
+        return enrollmentService.getEnrollmentSummaries(ids);
+    }
+
+    @GetMapping("/status-counts")
+    public List<EnrollmentStatusCountDTO> countByPaymentStatus(
+            @RequestParam(required = false) Long branchId  // Solo para SUPER_ADMIN
+    ) {
+        return enrollmentService.countByPaymentStatus(branchId);
+    }
+
     @GetMapping("/{id}")
     public EnrollmentResponseDTO getEnrollmentById(@PathVariable Long id) {
         return enrollmentService.getEnrollmentById(id);
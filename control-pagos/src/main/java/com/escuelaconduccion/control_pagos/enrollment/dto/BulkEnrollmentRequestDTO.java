@@ -0,0 +1,25 @@
+package com.escuelaconduccion.control_pagos.enrollment.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkEnrollmentRequestDTO {
+
+    @NotNull
+    private Long courseId;
+
+    @NotEmpty
+    @Size(max = 200)
+    private List<Long> studentIds;
+
+    private Long branchId; // Opcional, para SUPER_ADMIN
+}
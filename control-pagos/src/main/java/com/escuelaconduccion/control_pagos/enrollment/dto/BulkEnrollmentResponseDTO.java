@@ -0,0 +1,20 @@
+package com.escuelaconduccion.control_pagos.enrollment.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkEnrollmentResponseDTO {
+
+    private Long courseId;
+    private String courseName;
+    private int requested;
+    private int created;
+    private int skipped;
+    private List<BulkEnrollmentResultDTO> results;
+}
@@ -0,0 +1,23 @@
+package com.escuelaconduccion.control_pagos.enrollment.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkEnrollmentResultDTO {
+
+    private Long studentId;
+    private Long enrollmentId;   // null si no se creó
+    private Result result;
+    private String message;
+
+    public enum Result {
+        CREADA,
+        DUPLICADA,
+        ESTUDIANTE_NO_ENCONTRADO,
+        ESTUDIANTE_INACTIVO
+    }
+}
@@ -1,5 +1,6 @@
 package com.escuelaconduccion.control_pagos.enrollment.dto;
 
+import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
 import lombok.*;
 
 import java.math.BigDecimal;
@@ -23,4 +24,5 @@ public class EnrollmentResponseDTO {
     private String studentDocument;
     private String studentEmail;
     private String courseName;
-}
\ No newline at end of file
+    private Enrollment.PaymentProgress paymentStatus;
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.escuelaconduccion.control_pagos.enrollment.dto;
+
+import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EnrollmentStatusCountDTO {
+
+    private Enrollment.PaymentProgress paymentStatus;
+    private Long count;
+}
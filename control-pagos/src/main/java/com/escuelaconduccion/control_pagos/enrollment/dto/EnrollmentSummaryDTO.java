@@ -1,5 +1,6 @@
 package com.escuelaconduccion.control_pagos.enrollment.dto;
 
+import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
 import lombok.*;
 
 import java.math.BigDecimal;
@@ -16,4 +17,12 @@ public class EnrollmentSummaryDTO {
     private BigDecimal paidAmount;
     private BigDecimal pendingAmount;
     private String status;
-}
\ No newline at end of file
+
+    // Usado por la proyección JPQL por lotes, que lee el estado persistido como enum (null si
+    // la fila aún no tiene el relleno de payment_status: entonces se deriva de los montos)
+    public EnrollmentSummaryDTO(Long enrollmentId, BigDecimal totalAmount, BigDecimal paidAmount,
+                                Enrollment.PaymentProgress paymentStatus) {
+        this(enrollmentId, totalAmount, paidAmount, totalAmount.subtract(paidAmount),
+                (paymentStatus != null ? paymentStatus : Enrollment.PaymentProgress.from(totalAmount, paidAmount)).name());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.escuelaconduccion.control_pagos.enrollment.event;
+
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxPayload;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Matrícula creada (individual o por inscripción masiva)
+public record EnrollmentEventPayload(
+        Long enrollmentId,
+        Long studentId,
+        Long courseId,
+        Long branchId,
+        LocalDate enrollmentDate,
+        BigDecimal totalAmount,
+        BigDecimal paidAmount
+) implements OutboxPayload {
+
+    @Override
+    public Long aggregateId() {
+        return enrollmentId;
+    }
+}
@@ -3,15 +3,26 @@ package com.escuelaconduccion.control_pagos.enrollment.model;
 import com.escuelaconduccion.control_pagos.branch.model.Branch;
 import com.escuelaconduccion.control_pagos.course.model.Course;
 import com.escuelaconduccion.control_pagos.student.model.Student;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Filter;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "enrollments")
+@Table(
+        name = "enrollments",
+        indexes = {
+                @Index(name = "idx_enrollments_branch", columnList = "branch_id, id"),
+                @Index(name = "idx_enrollments_student", columnList = "student_id"),
+                @Index(name = "idx_enrollments_course", columnList = "course_id"),
+                @Index(name = "idx_enrollments_branch_payment_status", columnList = "branch_id, payment_status, id")
+        }
+)
+@Filter(name = BranchScope.FILTER_NAME)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -38,6 +49,11 @@ public class Enrollment {
     @Column(nullable = false)
     private LocalDate enrollmentDate;
 
+    // Día del último pago confirmado (null si no tiene): lo mantiene PaymentService para que
+    // la cartera por edades ordene y pagine por índice sin recorrer los pagos
+    @Column(name = "last_payment_date")
+    private LocalDate lastPaymentDate;
+
     @Enumerated(EnumType.STRING)
     @Column
     @Builder.Default
@@ -54,6 +70,12 @@ public class Enrollment {
     @Builder.Default
     private Boolean active = true;
 
+    // Estado de pago persistido: se actualiza junto con paidAmount para poder filtrar y contar por índice
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", length = 20)
+    @Builder.Default
+    private PaymentProgress paymentStatus = PaymentProgress.PENDIENTE;
+
     @Column
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
@@ -62,9 +84,28 @@ public class Enrollment {
     @Builder.Default
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    @PrePersist
+    public void prePersist() {
+        refreshPaymentStatus();
+    }
+
     @PreUpdate
     public void preUpdate() {
         updatedAt = LocalDateTime.now();
+        refreshPaymentStatus();
+    }
+
+    /**
+     * Recalcula el estado de pago a partir de los montos. Se invoca al registrar o anular
+     * pagos y como respaldo antes de cada INSERT/UPDATE.
+     */
+    public void refreshPaymentStatus() {
+        paymentStatus = PaymentProgress.from(totalAmount, paidAmount);
+    }
+
+    // Filas aún sin rellenar (payment_status NULL) se calculan al vuelo a partir de los montos
+    public PaymentProgress getPaymentStatus() {
+        return paymentStatus != null ? paymentStatus : PaymentProgress.from(totalAmount, paidAmount);
     }
 
     public enum EnrollmentStatus {
@@ -72,4 +113,18 @@ public class Enrollment {
         COMPLETED,
         CANCELLED
     }
-}
\ No newline at end of file
+
+    public enum PaymentProgress {
+        PENDIENTE,
+        EN_PROGRESO,
+        PAGADO;
+
+        public static PaymentProgress from(BigDecimal totalAmount, BigDecimal paidAmount) {
+            BigDecimal paid = paidAmount == null ? BigDecimal.ZERO : paidAmount;
+            if (totalAmount != null && paid.compareTo(totalAmount) >= 0) {
+                return PAGADO;
+            }
+            return paid.compareTo(BigDecimal.ZERO) > 0 ? EN_PROGRESO : PENDIENTE;
+        }
+    }
+}
\ No newline at end of file
@@ -2,17 +2,34 @@ package com.escuelaconduccion.control_pagos.enrollment.repository;
 
 import com.escuelaconduccion.control_pagos.admin.dto.CourseFinancialSummaryDTO;
 import com.escuelaconduccion.control_pagos.admin.dto.DashboardDTO;
+import com.escuelaconduccion.control_pagos.admin.dto.EnrollmentFinancialStatusDTO;
 import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
 import com.escuelaconduccion.control_pagos.admin.dto.StudentDebtDTO;
+import com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentResponseDTO;
+import com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentStatusCountDTO;
+import com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentSummaryDTO;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
 
+    // Matrícula bloqueada mientras se registra o anula un pago: paidAmount se lee y escribe sin carreras
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Enrollment e WHERE e.id = :id")
+    Optional<Enrollment> findByIdForUpdate(@Param("id") Long id);
+
+    // Con sede concreta y sin ella van en consultas separadas: un "(:branchId IS NULL OR ...)"
+    // impide usar los índices por branch_id cuando PostgreSQL pasa al plan genérico
     @Query("""
         SELECT new com.escuelaconduccion.control_pagos.admin.dto.StudentDebtDTO(
             s.id,
@@ -22,7 +39,7 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
         FROM Enrollment e
         JOIN e.student s
         WHERE e.active = true
-        AND (e.totalAmount - e.paidAmount) > 0
+        AND e.totalAmount > e.paidAmount
         GROUP BY s.id, s.firstName, s.lastName
         """)
         List<StudentDebtDTO> findStudentsWithDebt();
@@ -36,12 +53,45 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
         FROM Enrollment e
         JOIN e.student s
         WHERE e.active = true
-        AND (e.totalAmount - e.paidAmount) > 0
+        AND e.totalAmount > e.paidAmount
         AND s.branch.id = :branchId
         GROUP BY s.id, s.firstName, s.lastName
         """)
         List<StudentDebtDTO> findStudentsWithDebtByBranch(@Param("branchId") Long branchId);
 
+    // Deudores de un curso, de mayor a menor deuda con paginación keyset sobre (deuda, id estudiante),
+    // ambos descendentes como en StudentRepository.findDebtorsFirstPage.
+    // El saldo persistido en students no distingue cursos, así que aquí se agrega por estudiante:
+    // cada página recorre todas las matrículas abiertas del curso (índice parcial
+    // idx_enrollments_open_balance), no solo las de la página.
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.admin.dto.StudentDebtDTO(
+            s.id,
+            CONCAT(s.firstName, ' ', s.lastName),
+            SUM(e.totalAmount - e.paidAmount)
+        )
+        FROM Enrollment e
+        JOIN e.student s
+        WHERE e.active = true
+        AND e.totalAmount > e.paidAmount
+        AND (:branchId IS NULL OR s.branch.id = :branchId)
+        AND e.course.id = :courseId
+        GROUP BY s.id, s.firstName, s.lastName
+        HAVING (:minDebt IS NULL OR SUM(e.totalAmount - e.paidAmount) >= :minDebt)
+        AND (:afterStudentId IS NULL
+            OR SUM(e.totalAmount - e.paidAmount) < :afterDebt
+            OR (SUM(e.totalAmount - e.paidAmount) = :afterDebt AND s.id < :afterStudentId))
+        ORDER BY SUM(e.totalAmount - e.paidAmount) DESC, s.id DESC
+        """)
+    List<StudentDebtDTO> findCourseDebtorsPage(
+            @Param("branchId") Long branchId,
+            @Param("courseId") Long courseId,
+            @Param("minDebt") BigDecimal minDebt,
+            @Param("afterDebt") BigDecimal afterDebt,
+            @Param("afterStudentId") Long afterStudentId,
+            Pageable pageable
+    );
+
     @Query("""
         SELECT new com.escuelaconduccion.control_pagos.admin.dto.CourseFinancialSummaryDTO(
             c.id,
@@ -86,14 +136,221 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     """)
     DashboardDTO getDashboardDataByBranch(@Param("branchId") Long branchId);
 
-    // Métodos para filtrar por sede
-    @Query("SELECT e FROM Enrollment e LEFT JOIN FETCH e.student LEFT JOIN FETCH e.course LEFT JOIN FETCH e.branch WHERE e.branch.id = :branchId")
-    List<Enrollment> findByBranchIdWithBranch(Long branchId);
+    // Cartera por edades: una sola pasada agregada sobre matrículas activas con saldo.
+    // GROUPING SETS devuelve las filas por sede y curso junto con el subtotal de cada sede.
+    @Query(value = """
+        WITH open_enrollments AS (
+            SELECT
+                e.branch_id,
+                e.course_id,
+                e.total_amount - e.paid_amount AS outstanding,
+                CURRENT_DATE - CASE
+                    WHEN :basis = 'LAST_PAYMENT' THEN COALESCE(e.last_payment_date, e.enrollment_date)
+                    ELSE e.enrollment_date
+                END AS age_days
+            FROM enrollments e
+            WHERE e.active = true
+            AND e.total_amount > e.paid_amount
+            AND (:branchId IS NULL OR e.branch_id = :branchId)
+            AND (:courseId IS NULL OR e.course_id = :courseId)
+        )
+        SELECT
+            o.branch_id,
+            b.name,
+            o.course_id,
+            c.name,
+            COALESCE(SUM(o.outstanding) FILTER (WHERE o.age_days <= 30), 0),
+            COALESCE(SUM(o.outstanding) FILTER (WHERE o.age_days BETWEEN 31 AND 60), 0),
+            COALESCE(SUM(o.outstanding) FILTER (WHERE o.age_days BETWEEN 61 AND 90), 0),
+            COALESCE(SUM(o.outstanding) FILTER (WHERE o.age_days > 90), 0),
+            COALESCE(SUM(o.outstanding), 0),
+            COUNT(*)
+        FROM open_enrollments o
+        LEFT JOIN branches b ON b.id = o.branch_id
+        LEFT JOIN courses c ON c.id = o.course_id
+        GROUP BY GROUPING SETS ((o.branch_id, b.name, o.course_id, c.name), (o.branch_id, b.name))
+        ORDER BY b.name NULLS LAST, c.name NULLS LAST
+        """, nativeQuery = true)
+    List<Object[]> getAgingSummaryNative(
+            @Param("basis") String basis,
+            @Param("branchId") Long branchId,
+            @Param("courseId") Long courseId
+    );
+
+    // Proyecciones: seleccionan solo las columnas del DTO, sin hidratar entidades
+    // ni generar snapshots de dirty-checking en el contexto de persistencia
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentResponseDTO(
+            e.id,
+            s.id,
+            c.id,
+            e.enrollmentDate,
+            e.totalAmount,
+            e.paidAmount,
+            e.active,
+            CONCAT(s.firstName, ' ', s.lastName),
+            s.documentNumber,
+            s.email,
+            c.name,
+            e.paymentStatus
+        )
+        FROM Enrollment e
+        JOIN e.student s
+        JOIN e.course c
+        WHERE (:branchId IS NULL OR e.branch.id = :branchId)
+        ORDER BY e.enrollmentDate DESC, e.id DESC
+        """)
+    List<EnrollmentResponseDTO> findAllProjected(@Param("branchId") Long branchId);
+
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentResponseDTO(
+            e.id,
+            s.id,
+            c.id,
+            e.enrollmentDate,
+            e.totalAmount,
+            e.paidAmount,
+            e.active,
+            CONCAT(s.firstName, ' ', s.lastName),
+            s.documentNumber,
+            s.email,
+            c.name,
+            e.paymentStatus
+        )
+        FROM Enrollment e
+        JOIN e.student s
+        JOIN e.course c
+        WHERE e.id = :id
+        """)
+    Optional<EnrollmentResponseDTO> findProjectedById(@Param("id") Long id);
+
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentStatusCountDTO(
+            e.paymentStatus,
+            COUNT(e)
+        )
+        FROM Enrollment e
+        WHERE e.active = true
+        AND (:branchId IS NULL OR e.branch.id = :branchId)
+        GROUP BY e.paymentStatus
+        """)
+    List<EnrollmentStatusCountDTO> countByPaymentStatus(@Param("branchId") Long branchId);
+
+    // Resúmenes de varias matrículas en una sola consulta
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentSummaryDTO(
+            e.id,
+            e.totalAmount,
+            e.paidAmount,
+            e.paymentStatus
+        )
+        FROM Enrollment e
+        WHERE e.id IN :ids
+        ORDER BY e.id
+        """)
+    List<EnrollmentSummaryDTO> findSummariesByIds(@Param("ids") Collection<Long> ids);
 
-    @Query("SELECT e FROM Enrollment e LEFT JOIN FETCH e.student LEFT JOIN FETCH e.course LEFT JOIN FETCH e.branch ORDER BY e.enrollmentDate DESC")
-    List<Enrollment> findAllWithBranch();
+    // Estado financiero de varias matrículas: suma de pagos confirmados agrupada por matrícula
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.admin.dto.EnrollmentFinancialStatusDTO(
+            e.id,
+            CONCAT(s.firstName, ' ', s.lastName),
+            c.name,
+            e.totalAmount,
+            COALESCE(SUM(p.amount), 0),
+            e.totalAmount - COALESCE(SUM(p.amount), 0),
+            e.active
+        )
+        FROM Enrollment e
+        JOIN e.student s
+        JOIN e.course c
+        LEFT JOIN Payment p
+            ON p.enrollment = e
+            AND p.status = com.escuelaconduccion.control_pagos.payment.model.PaymentStatus.CONFIRMADO
+        WHERE e.id IN :ids
+        GROUP BY e.id, s.firstName, s.lastName, c.name, e.totalAmount, e.active
+        ORDER BY e.id
+        """)
+    List<EnrollmentFinancialStatusDTO> findFinancialStatusByIds(@Param("ids") Collection<Long> ids);
+
+    // Pares (studentId, enrollmentId) de matrículas activas del curso para un grupo de estudiantes
+    @Query("""
+        SELECT e.student.id, e.id
+        FROM Enrollment e
+        WHERE e.course.id = :courseId
+        AND e.active = true
+        AND e.student.id IN :studentIds
+        """)
+    List<Object[]> findActiveByCourseAndStudents(
+            @Param("courseId") Long courseId,
+            @Param("studentIds") Collection<Long> studentIds
+    );
+
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentResponseDTO(
+            e.id,
+            s.id,
+            c.id,
+            e.enrollmentDate,
+            e.totalAmount,
+            e.paidAmount,
+            e.active,
+            CONCAT(s.firstName, ' ', s.lastName),
+            s.documentNumber,
+            s.email,
+            c.name,
+            e.paymentStatus
+        )
+        FROM Enrollment e
+        JOIN e.student s
+        JOIN e.course c
+        WHERE s.id = :studentId
+        ORDER BY e.enrollmentDate DESC, e.id DESC
+        """)
+    List<EnrollmentResponseDTO> findProjectedByStudentId(@Param("studentId") Long studentId);
+
+    // Búsqueda con filtros en el servidor y paginación keyset (id descendente, más recientes primero)
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentResponseDTO(
+            e.id,
+            s.id,
+            c.id,
+            e.enrollmentDate,
+            e.totalAmount,
+            e.paidAmount,
+            e.active,
+            CONCAT(s.firstName, ' ', s.lastName),
+            s.documentNumber,
+            s.email,
+            c.name,
+            e.paymentStatus
+        )
+        FROM Enrollment e
+        JOIN e.student s
+        JOIN e.course c
+        WHERE (:branchId IS NULL OR e.branch.id = :branchId)
+        AND (:studentId IS NULL OR s.id = :studentId)
+        AND (:courseId IS NULL OR c.id = :courseId)
+        AND (:status IS NULL OR e.status = :status)
+        AND (:paymentStatus IS NULL OR e.paymentStatus = :paymentStatus)
+        AND (:fromDate IS NULL OR e.enrollmentDate >= :fromDate)
+        AND (:toDate IS NULL OR e.enrollmentDate <= :toDate)
+        AND (:beforeId IS NULL OR e.id < :beforeId)
+        ORDER BY e.id DESC
+        """)
+    List<EnrollmentResponseDTO> searchProjected(
+            @Param("branchId") Long branchId,
+            @Param("studentId") Long studentId,
+            @Param("courseId") Long courseId,
+            @Param("status") Enrollment.EnrollmentStatus status,
+            @Param("paymentStatus") Enrollment.PaymentProgress paymentStatus,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable
+    );
 
     // Método adicional para inscripciones sin sede
     @Query("SELECT e FROM Enrollment e LEFT JOIN FETCH e.student LEFT JOIN FETCH e.course LEFT JOIN FETCH e.branch WHERE e.branch.id IS NULL")
     List<Enrollment> findByBranchIdNull();
-}
\ No newline at end of file
+}
@@ -0,0 +1,196 @@
+package com.escuelaconduccion.control_pagos.enrollment.service;
+
+import com.escuelaconduccion.control_pagos.branch.repository.BranchRepository;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import com.escuelaconduccion.control_pagos.course.model.Course;
+import com.escuelaconduccion.control_pagos.course.repository.CourseRepository;
+import com.escuelaconduccion.control_pagos.enrollment.dto.BulkEnrollmentRequestDTO;
+import com.escuelaconduccion.control_pagos.enrollment.dto.BulkEnrollmentResponseDTO;
+import com.escuelaconduccion.control_pagos.enrollment.dto.BulkEnrollmentResultDTO;
+import com.escuelaconduccion.control_pagos.enrollment.event.EnrollmentEventPayload;
+import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
+import com.escuelaconduccion.control_pagos.enrollment.repository.EnrollmentRepository;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxEventType;
+import com.escuelaconduccion.control_pagos.outbox.service.OutboxService;
+import com.escuelaconduccion.control_pagos.student.model.Student;
+import com.escuelaconduccion.control_pagos.student.repository.StudentRepository;
+import com.escuelaconduccion.control_pagos.report.event.ReportDataChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Inscripción de un grupo completo en un curso. Las referencias se resuelven con
+ * consultas por conjunto y las filas nuevas se insertan en un solo lote JDBC.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkEnrollmentService {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO enrollments
+                (student_id, course_id, branch_id, enrollment_date, status, total_amount,
+                 paid_amount, active, payment_status, created_at, updated_at)
+            VALUES %s
+            RETURNING id, student_id
+            """;
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Filas por INSERT multi-fila: 11 parámetros por fila, lejos del límite de 65535 de PostgreSQL
+    private static final int INSERT_CHUNK = 500;
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final StudentRepository studentRepository;
+    private final CourseRepository courseRepository;
+    private final BranchRepository branchRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxService outboxService;
+
+    @Transactional
+    public BulkEnrollmentResponseDTO createBulk(BulkEnrollmentRequestDTO request) {
+        Course course = courseRepository.findById(request.getCourseId())
+                .orElseThrow(() -> new IllegalArgumentException("Curso no encontrado"));
+        if (!course.getActive()) {
+            throw new IllegalStateException("El curso está inactivo");
+        }
+
+        // Misma regla de sede que la inscripción individual
+        Long fixedBranchId = BranchScope.resolveTargetBranch(request.getBranchId());
+        if (fixedBranchId != null && BranchScope.isSuperAdmin() && !branchRepository.existsById(fixedBranchId)) {
+            throw new IllegalArgumentException("Sede no encontrada");
+        }
+
+        // Ids únicos conservando el orden recibido
+        Set<Long> studentIds = new LinkedHashSet<>(request.getStudentIds());
+
+        Map<Long, Student> students = studentRepository.findAllById(studentIds).stream()
+                .collect(Collectors.toMap(Student::getId, Function.identity()));
+
+        Map<Long, Long> existing = toStudentEnrollmentMap(
+                enrollmentRepository.findActiveByCourseAndStudents(course.getId(), studentIds));
+
+        Map<Long, BulkEnrollmentResultDTO> results = new HashMap<>();
+        List<Long> toCreate = new ArrayList<>();
+        Map<Long, Long> branchByStudent = new HashMap<>();
+        List<Object[]> batchArgs = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Long studentId : studentIds) {
+            Student student = students.get(studentId);
+            if (student == null) {
+                results.put(studentId, rejected(studentId, BulkEnrollmentResultDTO.Result.ESTUDIANTE_NO_ENCONTRADO,
+                        "Estudiante no encontrado"));
+            } else if (!student.getActive()) {
+                results.put(studentId, rejected(studentId, BulkEnrollmentResultDTO.Result.ESTUDIANTE_INACTIVO,
+                        "El estudiante está inactivo"));
+            } else if (existing.containsKey(studentId)) {
+                results.put(studentId, BulkEnrollmentResultDTO.builder()
+                        .studentId(studentId)
+                        .enrollmentId(existing.get(studentId))
+                        .result(BulkEnrollmentResultDTO.Result.DUPLICADA)
+                        .message("El estudiante ya tiene una matrícula activa en este curso")
+                        .build());
+            } else {
+                Long branchId = fixedBranchId != null
+                        ? fixedBranchId
+                        : (student.getBranch() != null ? student.getBranch().getId() : null);
+
+                toCreate.add(studentId);
+                branchByStudent.put(studentId, branchId);
+                batchArgs.add(new Object[]{
+                        studentId,
+                        course.getId(),
+                        branchId,
+                        today,
+                        Enrollment.EnrollmentStatus.ACTIVE.name(),
+                        course.getPrice(),
+                        BigDecimal.ZERO,
+                        true,
+                        Enrollment.PaymentProgress.from(course.getPrice(), BigDecimal.ZERO).name(),
+                        now,
+                        now
+                });
+            }
+        }
+
+        if (!batchArgs.isEmpty()) {
+            // Cada id sale del RETURNING de su propia fila, no de una relectura por estudiante y curso
+            Map<Long, Long> created = insertReturningIds(batchArgs);
+            // Sin sede fija cada matrícula toma la del estudiante: se invalidan todas las sedes
+            eventPublisher.publishEvent(new ReportDataChangedEvent(fixedBranchId, today.getYear()));
+
+            List<EnrollmentEventPayload> events = new ArrayList<>(toCreate.size());
+            for (Long studentId : toCreate) {
+                results.put(studentId, BulkEnrollmentResultDTO.builder()
+                        .studentId(studentId)
+                        .enrollmentId(created.get(studentId))
+                        .result(BulkEnrollmentResultDTO.Result.CREADA)
+                        .build());
+                events.add(new EnrollmentEventPayload(created.get(studentId), studentId, course.getId(),
+                        branchByStudent.get(studentId), today, course.getPrice(), BigDecimal.ZERO));
+            }
+            outboxService.publishAll(OutboxEventType.ENROLLMENT_CREATED, events);
+        }
+
+        List<BulkEnrollmentResultDTO> ordered = studentIds.stream()
+                .map(results::get)
+                .toList();
+
+        return BulkEnrollmentResponseDTO.builder()
+                .courseId(course.getId())
+                .courseName(course.getName())
+                .requested(studentIds.size())
+                .created(toCreate.size())
+                .skipped(studentIds.size() - toCreate.size())
+                .results(ordered)
+                .build();
+    }
+
+    // Inserta las filas en INSERTs multi-fila y devuelve id de matrícula por estudiante
+    private Map<Long, Long> insertReturningIds(List<Object[]> rows) {
+        Map<Long, Long> created = new HashMap<>();
+        for (int from = 0; from < rows.size(); from += INSERT_CHUNK) {
+            List<Object[]> chunk = rows.subList(from, Math.min(from + INSERT_CHUNK, rows.size()));
+            String sql = INSERT_SQL.formatted(String.join(", ", Collections.nCopies(chunk.size(), INSERT_ROW)));
+            Object[] args = chunk.stream().flatMap(Arrays::stream).toArray();
+            jdbcTemplate.query(sql, rs -> {
+                created.put(rs.getLong("student_id"), rs.getLong("id"));
+            }, args);
+        }
+        return created;
+    }
+
+    private Map<Long, Long> toStudentEnrollmentMap(List<Object[]> rows) {
+        Map<Long, Long> map = new HashMap<>();
+        for (Object[] row : rows) {
+            map.put((Long) row[0], (Long) row[1]);
+        }
+        return map;
+    }
+
+    private BulkEnrollmentResultDTO rejected(Long studentId, BulkEnrollmentResultDTO.Result result, String message) {
+        return BulkEnrollmentResultDTO.builder()
+                .studentId(studentId)
+                .result(result)
+                .message(message)
+                .build();
+    }
+}
@@ -1,58 +1,64 @@
 package com.escuelaconduccion.control_pagos.enrollment.service;
 
-import com.escuelaconduccion.control_pagos.auth.model.User;
-import com.escuelaconduccion.control_pagos.auth.repository.UserRepository;
 import com.escuelaconduccion.control_pagos.branch.model.Branch;
 import com.escuelaconduccion.control_pagos.branch.repository.BranchRepository;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import com.escuelaconduccion.control_pagos.common.dto.KeysetPageDTO;
 import com.escuelaconduccion.control_pagos.course.model.Course;
 import com.escuelaconduccion.control_pagos.course.repository.CourseRepository;
 import com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentRequestDTO;
 import com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentResponseDTO;
+import com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentStatusCountDTO;
 import com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentSummaryDTO;
+import com.escuelaconduccion.control_pagos.enrollment.event.EnrollmentEventPayload;
 import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
 import com.escuelaconduccion.control_pagos.enrollment.repository.EnrollmentRepository;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxEventType;
+import com.escuelaconduccion.control_pagos.outbox.service.OutboxService;
 import com.escuelaconduccion.control_pagos.student.model.Student;
 import com.escuelaconduccion.control_pagos.student.repository.StudentRepository;
+import com.escuelaconduccion.control_pagos.report.event.ReportDataChangedEvent;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.List;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.LinkedHashSet;
 
 @Service
 public class EnrollmentService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_BATCH_IDS = 200;
+
     private final EnrollmentRepository enrollmentRepository;
     private final StudentRepository studentRepository;
     private final CourseRepository courseRepository;
-    private final UserRepository userRepository;
     private final BranchRepository branchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxService outboxService;
 
     public EnrollmentService(EnrollmentRepository enrollmentRepository,
                              StudentRepository studentRepository,
                              CourseRepository courseRepository,
-                             UserRepository userRepository,
-                             BranchRepository branchRepository) {
+                             BranchRepository branchRepository,
+                             ApplicationEventPublisher eventPublisher,
+                             OutboxService outboxService) {
         this.enrollmentRepository = enrollmentRepository;
         this.studentRepository = studentRepository;
         this.courseRepository = courseRepository;
-        this.userRepository = userRepository;
         this.branchRepository = branchRepository;
+        this.eventPublisher = eventPublisher;
+        this.outboxService = outboxService;
     }
 
     @Transactional
         public EnrollmentResponseDTO createEnrollment(EnrollmentRequestDTO request) {
-        
-        // Obtener usuario autenticado
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User currentUser = userRepository.findByUsernameAndActiveTrueWithBranch(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
         Student student = studentRepository.findById(request.getStudentId())
                 .orElseThrow(() -> new IllegalArgumentException("Estudiante no encontrado"));
@@ -61,20 +67,13 @@ public class EnrollmentService {
                 .orElseThrow(() -> new IllegalArgumentException("Curso no encontrado"));
 
         // Determinar la sede para la inscripción
-        Branch branch = null;
-        if (currentUser.getRole().equals("SUPER_ADMIN")) {
-            // SUPER_ADMIN puede asignar cualquier sede (si viene en el request)
-            if (request.getBranchId() != null) {
-                branch = branchRepository.findById(request.getBranchId())
-                        .orElseThrow(() -> new IllegalArgumentException("Sede no encontrada"));
-            } else {
-                // Si no especifica sede, usar la sede del estudiante
-                branch = student.getBranch();
-            }
-        } else {
-            // ADMIN solo puede crear inscripciones de su propia sede
-            branch = currentUser.getBranch();
-        }
+        // SUPER_ADMIN puede asignar cualquier sede; ADMIN solo puede crear inscripciones de su propia sede
+        Long branchId = BranchScope.resolveTargetBranch(request.getBranchId());
+        Branch branch = branchId != null
+                ? branchRepository.findById(branchId)
+                        .orElseThrow(() -> new IllegalArgumentException("Sede no encontrada"))
+                // Si SUPER_ADMIN no especifica sede, usar la sede del estudiante
+                : student.getBranch();
 
         Enrollment enrollment = Enrollment.builder()
                 .student(student)
@@ -87,6 +86,11 @@ public class EnrollmentService {
                 .build();
 
         Enrollment saved = enrollmentRepository.save(enrollment);
+        outboxService.publish(OutboxEventType.ENROLLMENT_CREATED, new EnrollmentEventPayload(
+                saved.getId(), student.getId(), course.getId(), branch != null ? branch.getId() : null,
+                saved.getEnrollmentDate(), saved.getTotalAmount(), saved.getPaidAmount()));
+        eventPublisher.publishEvent(new ReportDataChangedEvent(
+                branch != null ? branch.getId() : null, saved.getEnrollmentDate().getYear()));
 
         return EnrollmentResponseDTO.builder()
                 .id(saved.getId())
@@ -100,33 +104,17 @@ public class EnrollmentService {
                 .totalAmount(saved.getTotalAmount())
                 .paidAmount(saved.getPaidAmount())
                 .active(saved.getActive())
+                .paymentStatus(saved.getPaymentStatus())
                 .build();
         }
 
-        @Transactional
+        @Transactional(readOnly = true)
         public EnrollmentResponseDTO getEnrollmentById(Long id) {
-        Enrollment enrollment = enrollmentRepository.findById(id)
+        return enrollmentRepository.findProjectedById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Matrícula no encontrada"));
-        
-        Student student = enrollment.getStudent();
-        Course course = enrollment.getCourse();
-
-        return EnrollmentResponseDTO.builder()
-                .id(enrollment.getId())
-                .studentId(student.getId())
-                .studentName(student.getFirstName() + " " + student.getLastName())
-                .studentDocument(student.getDocumentNumber())
-                .studentEmail(student.getEmail())
-                .courseId(course.getId())
-                .courseName(course.getName())
-                .enrollmentDate(enrollment.getEnrollmentDate())
-                .totalAmount(enrollment.getTotalAmount())
-                .paidAmount(enrollment.getPaidAmount())
-                .active(enrollment.getActive())
-                .build();
         }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public EnrollmentSummaryDTO getEnrollmentSummary(Long enrollmentId) {
 
         Enrollment enrollment = enrollmentRepository.findById(enrollmentId)
@@ -135,94 +123,79 @@ public class EnrollmentService {
         BigDecimal pendingAmount = enrollment.getTotalAmount()
                 .subtract(enrollment.getPaidAmount());
 
-        String status;
-        if (pendingAmount.compareTo(BigDecimal.ZERO) == 0) {
-            status = "PAGADO";
-        } else if (enrollment.getPaidAmount().compareTo(BigDecimal.ZERO) > 0) {
-            status = "EN_PROGRESO";
-        } else {
-            status = "PENDIENTE";
-        }
-
         return EnrollmentSummaryDTO.builder()
                 .enrollmentId(enrollment.getId())
                 .totalAmount(enrollment.getTotalAmount())
                 .paidAmount(enrollment.getPaidAmount())
                 .pendingAmount(pendingAmount)
-                .status(status)
+                .status(enrollment.getPaymentStatus().name())
                 .build();
     }
 
     @Transactional(readOnly = true)
-    public List<EnrollmentResponseDTO> getAllEnrollments(Long branchId) {
-        // Obtener usuario autenticado
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User currentUser = userRepository.findByUsernameAndActiveTrueWithBranch(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        
-        System.out.println("=== DEBUG EnrollmentService.getAllEnrollments ===");
-        System.out.println("Usuario: " + currentUser.getUsername());
-        System.out.println("Rol: " + currentUser.getRole());
-        System.out.println("BranchId Usuario: " + (currentUser.getBranch() != null ? currentUser.getBranch().getId() : "null"));
-        System.out.println("BranchId Parámetro: " + branchId);
-        
-        List<Enrollment> enrollments;
-        Long filterBranchId = null;
-
-        if (currentUser.getRole().equals("SUPER_ADMIN")) {
-            // SUPER_ADMIN puede ver todas las inscripciones o filtrar por una sede específica
-            if (branchId != null) {
-                filterBranchId = branchId;
-                System.out.println("SUPER_ADMIN detectado, filtrando por branchId parámetro: " + filterBranchId);
-            } else {
-                System.out.println("SUPER_ADMIN detectado, sin filtro de sede (mostrando todas)");
-            }
-        } else if (currentUser.getRole().equals("ADMIN")) {
-            // ADMIN solo puede ver inscripciones de su sede (ignorar parámetro branchId)
-            if (currentUser.getBranch() == null) {
-                throw new RuntimeException("El administrador no tiene una sede asignada.");
-            }
-            filterBranchId = currentUser.getBranch().getId();
-            System.out.println("ADMIN detectado, filtrando por sede asignada: " + filterBranchId);
-        } else {
-            throw new RuntimeException("Rol de usuario no autorizado para ver inscripciones.");
+    public List<EnrollmentSummaryDTO> getEnrollmentSummaries(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos una matrícula");
+        }
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("Se permiten máximo " + MAX_BATCH_IDS + " matrículas por consulta");
         }
+        // Las matrículas inexistentes simplemente no aparecen en la respuesta
+        return enrollmentRepository.findSummariesByIds(new LinkedHashSet<>(ids));
+    }
+
+    @Transactional(readOnly = true)
+    public List<EnrollmentResponseDTO> getAllEnrollments(Long branchId) {
+        // La proyección trae solo las columnas del DTO; no se cargan entidades
+        return enrollmentRepository.findAllProjected(BranchScope.resolveTargetBranch(branchId));
+    }
 
-        if (filterBranchId == null) {
-            // Si no hay un branchId específico (SUPER_ADMIN sin filtro), obtener todos
-            enrollments = enrollmentRepository.findAllWithBranch();
-            System.out.println("Estudiantes encontrados (todos): " + enrollments.size());
-        } else {
-            // Filtrar por sede específica
-            enrollments = enrollmentRepository.findByBranchIdWithBranch(filterBranchId);
-            System.out.println("Estudiantes encontrados por sede " + filterBranchId + ": " + enrollments.size());
+    @Transactional(readOnly = true)
+    public KeysetPageDTO<EnrollmentResponseDTO> searchEnrollments(
+            Long branchId,
+            Long studentId,
+            Long courseId,
+            Enrollment.EnrollmentStatus status,
+            Enrollment.PaymentProgress paymentStatus,
+            LocalDate from,
+            LocalDate to,
+            Long cursor,
+            Integer size) {
+
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la fecha final");
         }
-        
-        System.out.println("Total inscripciones a devolver: " + enrollments.size());
-        System.out.println("=== FIN DEBUG EnrollmentService.getAllEnrollments ===");
-        
-        return enrollments.stream()
-                .map(enrollment -> {
-                        Student student = enrollment.getStudent();
-                        Course course = enrollment.getCourse();
-                        
-                        return EnrollmentResponseDTO.builder()
-                                .id(enrollment.getId())
-                                .studentId(student.getId())
-                                .studentName(student.getFirstName() + " " + student.getLastName())
-                                .studentDocument(student.getDocumentNumber())
-                                .studentEmail(student.getEmail())
-                                .courseId(course.getId())
-                                .courseName(course.getName())
-                                .enrollmentDate(enrollment.getEnrollmentDate())
-                                .totalAmount(enrollment.getTotalAmount())
-                                .paidAmount(enrollment.getPaidAmount())
-                                .active(enrollment.getActive())
-                                .build();
-                })
-                .toList();
+
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        // Se pide un registro extra para saber si hay más páginas sin ejecutar un COUNT
+        List<EnrollmentResponseDTO> rows = enrollmentRepository.searchProjected(
+                BranchScope.resolveTargetBranch(branchId),
+                studentId,
+                courseId,
+                status,
+                paymentStatus,
+                from,
+                to,
+                cursor,
+                PageRequest.of(0, pageSize + 1)
+        );
+
+        boolean hasMore = rows.size() > pageSize;
+        List<EnrollmentResponseDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? String.valueOf(items.get(items.size() - 1).getId()) : null;
+
+        return KeysetPageDTO.<EnrollmentResponseDTO>builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .build();
     }
 
-}
+    @Transactional(readOnly = true)
+    public List<EnrollmentStatusCountDTO> countByPaymentStatus(Long branchId) {
+        return enrollmentRepository.countByPaymentStatus(BranchScope.resolveTargetBranch(branchId));
+    }
 
+}
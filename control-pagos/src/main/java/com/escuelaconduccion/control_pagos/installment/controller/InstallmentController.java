@@ -0,0 +1,51 @@
+package com.escuelaconduccion.control_pagos.installment.controller;
+
+import com.escuelaconduccion.control_pagos.common.dto.KeysetPageDTO;
+import com.escuelaconduccion.control_pagos.installment.dto.InstallmentPlanRequestDTO;
+import com.escuelaconduccion.control_pagos.installment.dto.InstallmentResponseDTO;
+import com.escuelaconduccion.control_pagos.installment.dto.OverdueInstallmentDTO;
+import com.escuelaconduccion.control_pagos.installment.service.InstallmentService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/installments")
+@RequiredArgsConstructor
+public class InstallmentController {
+
+    private final InstallmentService installmentService;
+
+    @PostMapping("/plans")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<InstallmentResponseDTO> createPlan(
+            @Valid @RequestBody InstallmentPlanRequestDTO request
+    ) {
+        return installmentService.createPlan(request);
+    }
+
+    @GetMapping("/enrollment/{enrollmentId}")
+    public List<InstallmentResponseDTO> getByEnrollment(@PathVariable Long enrollmentId) {
+        return installmentService.getByEnrollment(enrollmentId);
+    }
+
+    // Cuotas vencidas para cobranza y recordatorios, paginadas con cursor "fecha:id"
+    @GetMapping("/overdue")
+    public KeysetPageDTO<OverdueInstallmentDTO> getOverdue(
+            @RequestParam(required = false) Long branchId,  // Solo para SUPER_ADMIN
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return installmentService.getOverduePage(branchId, cursor, size);
+    }
+
+    @GetMapping("/overdue/count")
+    public long countOverdue(
+            @RequestParam(required = false) Long branchId  // Solo para SUPER_ADMIN
+    ) {
+        return installmentService.countOverdue(branchId);
+    }
+}
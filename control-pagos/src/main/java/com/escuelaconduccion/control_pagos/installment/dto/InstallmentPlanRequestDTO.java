@@ -0,0 +1,28 @@
+package com.escuelaconduccion.control_pagos.installment.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InstallmentPlanRequestDTO {
+
+    @NotNull
+    private Long enrollmentId;
+
+    @NotNull
+    @Min(1)
+    @Max(36)
+    private Integer numberOfInstallments;
+
+    // Vencimiento de la primera cuota; las siguientes vencen mes a mes
+    @NotNull
+    private LocalDate firstDueDate;
+}
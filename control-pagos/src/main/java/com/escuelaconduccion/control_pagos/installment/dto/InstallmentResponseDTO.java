@@ -0,0 +1,23 @@
+package com.escuelaconduccion.control_pagos.installment.dto;
+
+import com.escuelaconduccion.control_pagos.installment.model.InstallmentStatus;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InstallmentResponseDTO {
+
+    private Long id;
+    private Long enrollmentId;
+    private Integer number;
+    private LocalDate dueDate;
+    private BigDecimal amount;
+    private BigDecimal paidAmount;
+    private InstallmentStatus status;
+}
@@ -0,0 +1,26 @@
+package com.escuelaconduccion.control_pagos.installment.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OverdueInstallmentDTO {
+
+    private Long installmentId;
+    private Long enrollmentId;
+    private Long studentId;
+    private String studentName;
+    private String studentPhone;
+    private String courseName;
+    private Long branchId;
+    private Integer number;
+    private LocalDate dueDate;
+    private BigDecimal amount;
+    private BigDecimal paidAmount;
+}
@@ -0,0 +1,94 @@
+package com.escuelaconduccion.control_pagos.installment.model;
+
+import com.escuelaconduccion.control_pagos.branch.model.Branch;
+import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Filter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Cuota de un plan de pagos. La sede se copia de la matrícula para listar vencidas por índice
+@Entity
+@Table(
+        name = "installments",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_installments_enrollment_number",
+                columnNames = {"enrollment_id", "number"}
+        ),
+        indexes = {
+                @Index(name = "idx_installments_branch_status_due", columnList = "branch_id, status, due_date, id")
+        }
+)
+@Filter(name = BranchScope.FILTER_NAME)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Installment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "enrollment_id", nullable = false)
+    private Enrollment enrollment;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "branch_id")
+    private Branch branch;
+
+    @Column(nullable = false)
+    private Integer number;
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    @Builder.Default
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private InstallmentStatus status = InstallmentStatus.PENDIENTE;
+
+    @Column
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column
+    @Builder.Default
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public BigDecimal getPendingAmount() {
+        return amount.subtract(paidAmount);
+    }
+
+    /**
+     * Recalcula el estado a partir del saldo: pagada si está cubierta, vencida si
+     * la fecha ya pasó y pendiente en otro caso.
+     */
+    public void refreshStatus(LocalDate today) {
+        if (paidAmount.compareTo(amount) >= 0) {
+            status = InstallmentStatus.PAGADA;
+        } else if (dueDate.isBefore(today)) {
+            status = InstallmentStatus.VENCIDA;
+        } else {
+            status = InstallmentStatus.PENDIENTE;
+        }
+    }
+}
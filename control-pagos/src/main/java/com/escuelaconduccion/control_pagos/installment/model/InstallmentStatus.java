@@ -0,0 +1,7 @@
+package com.escuelaconduccion.control_pagos.installment.model;
+
+public enum InstallmentStatus {
+    PENDIENTE,
+    VENCIDA,
+    PAGADA
+}
@@ -0,0 +1,106 @@
+package com.escuelaconduccion.control_pagos.installment.repository;
+
+import com.escuelaconduccion.control_pagos.installment.dto.InstallmentResponseDTO;
+import com.escuelaconduccion.control_pagos.installment.dto.OverdueInstallmentDTO;
+import com.escuelaconduccion.control_pagos.installment.model.Installment;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface InstallmentRepository extends JpaRepository<Installment, Long> {
+
+    List<Installment> findByEnrollmentIdOrderByNumberAsc(Long enrollmentId);
+
+    boolean existsByEnrollmentId(Long enrollmentId);
+
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.installment.dto.InstallmentResponseDTO(
+            i.id,
+            e.id,
+            i.number,
+            i.dueDate,
+            i.amount,
+            i.paidAmount,
+            i.status
+        )
+        FROM Installment i
+        JOIN i.enrollment e
+        WHERE e.student.id = :studentId
+        ORDER BY e.id DESC, i.number ASC
+        """)
+    List<InstallmentResponseDTO> findProjectedByStudentId(@Param("studentId") Long studentId);
+
+    // Cuotas de la matrícula bloqueadas para repartir o revertir un pago sin carreras
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Installment i WHERE i.enrollment.id = :enrollmentId ORDER BY i.number ASC")
+    List<Installment> findByEnrollmentIdForUpdate(@Param("enrollmentId") Long enrollmentId);
+
+    /**
+     * Marca como vencido un lote de cuotas pendientes. Usa el índice parcial
+     * idx_installments_pending_due y SKIP LOCKED para no esperar filas que un pago
+     * está modificando; esas quedan para el siguiente lote o la siguiente pasada.
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE installments
+        SET status = 'VENCIDA', updated_at = now()
+        WHERE id IN (
+            SELECT id
+            FROM installments
+            WHERE status = 'PENDIENTE'
+            AND due_date < :today
+            ORDER BY due_date, id
+            LIMIT :batchSize
+            FOR UPDATE SKIP LOCKED
+        )
+        """, nativeQuery = true)
+    int markOverdueBatch(@Param("today") LocalDate today, @Param("batchSize") int batchSize);
+
+    // Cuotas vencidas con paginación keyset sobre (dueDate, id): más antiguas primero
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.installment.dto.OverdueInstallmentDTO(
+            i.id,
+            e.id,
+            s.id,
+            CONCAT(s.firstName, ' ', s.lastName),
+            s.phone,
+            c.name,
+            i.branch.id,
+            i.number,
+            i.dueDate,
+            i.amount,
+            i.paidAmount
+        )
+        FROM Installment i
+        JOIN i.enrollment e
+        JOIN e.student s
+        JOIN e.course c
+        WHERE i.status = com.escuelaconduccion.control_pagos.installment.model.InstallmentStatus.VENCIDA
+        AND (:branchId IS NULL OR i.branch.id = :branchId)
+        AND (:afterDueDate IS NULL
+             OR i.dueDate > :afterDueDate
+             OR (i.dueDate = :afterDueDate AND i.id > :afterId))
+        ORDER BY i.dueDate ASC, i.id ASC
+        """)
+    List<OverdueInstallmentDTO> findOverduePage(
+            @Param("branchId") Long branchId,
+            @Param("afterDueDate") LocalDate afterDueDate,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    @Query("""
+        SELECT COUNT(i)
+        FROM Installment i
+        WHERE i.status = com.escuelaconduccion.control_pagos.installment.model.InstallmentStatus.VENCIDA
+        AND (:branchId IS NULL OR i.branch.id = :branchId)
+        """)
+    long countOverdue(@Param("branchId") Long branchId);
+}
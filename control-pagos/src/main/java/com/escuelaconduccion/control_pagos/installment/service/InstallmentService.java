@@ -0,0 +1,202 @@
+package com.escuelaconduccion.control_pagos.installment.service;
+
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import com.escuelaconduccion.control_pagos.common.dto.KeysetPageDTO;
+import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
+import com.escuelaconduccion.control_pagos.enrollment.repository.EnrollmentRepository;
+import com.escuelaconduccion.control_pagos.installment.dto.InstallmentPlanRequestDTO;
+import com.escuelaconduccion.control_pagos.installment.dto.InstallmentResponseDTO;
+import com.escuelaconduccion.control_pagos.installment.dto.OverdueInstallmentDTO;
+import com.escuelaconduccion.control_pagos.installment.model.Installment;
+import com.escuelaconduccion.control_pagos.installment.repository.InstallmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class InstallmentService {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private final InstallmentRepository installmentRepository;
+    private final EnrollmentRepository enrollmentRepository;
+
+    @Transactional
+    public List<InstallmentResponseDTO> createPlan(InstallmentPlanRequestDTO request) {
+        // Mismo bloqueo que registerPayment: un pago concurrente espera a que el plan exista
+        // (y se reparte en sus cuotas) o el plan se arma con el pagado ya actualizado
+        Enrollment enrollment = enrollmentRepository.findByIdForUpdate(request.getEnrollmentId())
+                .orElseThrow(() -> new IllegalArgumentException("Matrícula no encontrada"));
+
+        checkBranchAccess(enrollment);
+
+        if (!enrollment.getActive()) {
+            throw new IllegalStateException("La matrícula está inactiva");
+        }
+        if (installmentRepository.existsByEnrollmentId(enrollment.getId())) {
+            throw new IllegalStateException("La matrícula ya tiene un plan de cuotas");
+        }
+
+        int count = request.getNumberOfInstallments();
+        BigDecimal total = enrollment.getTotalAmount();
+
+        // Cuotas iguales truncadas a centavos; la última absorbe la diferencia
+        BigDecimal baseAmount = total.divide(BigDecimal.valueOf(count), 2, RoundingMode.DOWN);
+        BigDecimal lastAmount = total.subtract(baseAmount.multiply(BigDecimal.valueOf(count - 1L)));
+
+        LocalDate today = LocalDate.now();
+        List<Installment> installments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            installments.add(Installment.builder()
+                    .enrollment(enrollment)
+                    .branch(enrollment.getBranch())
+                    .number(i + 1)
+                    .dueDate(request.getFirstDueDate().plusMonths(i))
+                    .amount(i == count - 1 ? lastAmount : baseAmount)
+                    .paidAmount(BigDecimal.ZERO)
+                    .build());
+        }
+
+        // Los abonos hechos antes de crear el plan cubren las primeras cuotas
+        applyFifo(installments, enrollment.getPaidAmount());
+        installments.forEach(installment -> installment.refreshStatus(today));
+
+        return installmentRepository.saveAll(installments).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<InstallmentResponseDTO> getByEnrollment(Long enrollmentId) {
+        return installmentRepository.findByEnrollmentIdOrderByNumberAsc(enrollmentId).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    /**
+     * Reparte un pago confirmado entre las cuotas abiertas, de la más antigua a la más nueva.
+     * Debe ejecutarse dentro de la transacción que registra el pago.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void allocatePayment(Enrollment enrollment, BigDecimal amount) {
+        List<Installment> installments = installmentRepository.findByEnrollmentIdForUpdate(enrollment.getId());
+        if (installments.isEmpty()) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        applyFifo(installments, amount);
+        installments.forEach(installment -> installment.refreshStatus(today));
+    }
+
+    /**
+     * Revierte un pago anulado empezando por la última cuota cubierta, para que
+     * las cuotas más antiguas sigan pagadas mientras sea posible.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releasePayment(Enrollment enrollment, BigDecimal amount) {
+        List<Installment> installments = installmentRepository.findByEnrollmentIdForUpdate(enrollment.getId());
+        if (installments.isEmpty()) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        BigDecimal remaining = amount;
+        for (int i = installments.size() - 1; i >= 0 && remaining.signum() > 0; i--) {
+            Installment installment = installments.get(i);
+            BigDecimal released = installment.getPaidAmount().min(remaining);
+            installment.setPaidAmount(installment.getPaidAmount().subtract(released));
+            remaining = remaining.subtract(released);
+        }
+        installments.forEach(installment -> installment.refreshStatus(today));
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPageDTO<OverdueInstallmentDTO> getOverduePage(Long branchId, String cursor, Integer size) {
+        Long targetBranchId = BranchScope.resolveTargetBranch(branchId);
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        LocalDate afterDueDate = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split(":");
+            try {
+                afterDueDate = LocalDate.parse(parts[0]);
+                afterId = Long.parseLong(parts[1]);
+            } catch (DateTimeParseException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+
+        List<OverdueInstallmentDTO> rows = installmentRepository.findOverduePage(
+                targetBranchId,
+                afterDueDate,
+                afterId,
+                PageRequest.of(0, pageSize + 1)
+        );
+
+        boolean hasMore = rows.size() > pageSize;
+        List<OverdueInstallmentDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            OverdueInstallmentDTO last = items.get(items.size() - 1);
+            nextCursor = last.getDueDate() + ":" + last.getInstallmentId();
+        }
+
+        return KeysetPageDTO.<OverdueInstallmentDTO>builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public long countOverdue(Long branchId) {
+        return installmentRepository.countOverdue(BranchScope.resolveTargetBranch(branchId));
+    }
+
+    private void applyFifo(List<Installment> installments, BigDecimal amount) {
+        BigDecimal remaining = amount;
+        for (Installment installment : installments) {
+            if (remaining.signum() <= 0) {
+                break;
+            }
+            BigDecimal applied = installment.getPendingAmount().min(remaining);
+            if (applied.signum() > 0) {
+                installment.setPaidAmount(installment.getPaidAmount().add(applied));
+                remaining = remaining.subtract(applied);
+            }
+        }
+    }
+
+    private InstallmentResponseDTO toResponse(Installment installment) {
+        return InstallmentResponseDTO.builder()
+                .id(installment.getId())
+                .enrollmentId(installment.getEnrollment().getId())
+                .number(installment.getNumber())
+                .dueDate(installment.getDueDate())
+                .amount(installment.getAmount())
+                .paidAmount(installment.getPaidAmount())
+                .status(installment.getStatus())
+                .build();
+    }
+
+    // ADMIN solo gestiona matrículas de su sede
+    private void checkBranchAccess(Enrollment enrollment) {
+        if (!BranchScope.canAccess(enrollment.getBranch() != null ? enrollment.getBranch().getId() : null)) {
+            throw new IllegalArgumentException("La matrícula no pertenece a su sede");
+        }
+    }
+}
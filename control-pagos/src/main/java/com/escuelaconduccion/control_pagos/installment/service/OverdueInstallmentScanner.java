@@ -0,0 +1,53 @@
+package com.escuelaconduccion.control_pagos.installment.service;
+
+import com.escuelaconduccion.control_pagos.installment.repository.InstallmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+/**
+ * Marca como vencidas las cuotas pendientes cuya fecha ya pasó, para todas las sedes.
+ * Cada lote se confirma en su propia transacción, así los bloqueos duran poco y un
+ * fallo a mitad de la pasada no deshace lo ya procesado.
+ */
+@Component
+@Slf4j
+public class OverdueInstallmentScanner {
+
+    private final InstallmentRepository installmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public OverdueInstallmentScanner(InstallmentRepository installmentRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${installments.overdue-scan.batch-size:500}") int batchSize) {
+        this.installmentRepository = installmentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${installments.overdue-scan.cron:0 10 0 * * *}")
+    public void scheduledScan() {
+        scan();
+    }
+
+    public int scan() {
+        LocalDate today = LocalDate.now();
+        int total = 0;
+        int updated;
+        do {
+            Integer batch = transactionTemplate.execute(status ->
+                    installmentRepository.markOverdueBatch(today, batchSize));
+            updated = batch != null ? batch : 0;
+            total += updated;
+        } while (updated == batchSize);
+
+        log.info("Cuotas marcadas como vencidas: {}", total);
+        return total;
+    }
+}
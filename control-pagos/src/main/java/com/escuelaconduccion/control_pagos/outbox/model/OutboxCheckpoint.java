@@ -0,0 +1,31 @@
+package com.escuelaconduccion.control_pagos.outbox.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Último evento del outbox entregado a cada consumidor
+@Entity
+@Table(name = "outbox_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxCheckpoint {
+
+    @Id
+    @Column(length = 100)
+    private String consumer;
+
+    // seq del último evento entregado
+    @Column(name = "last_event_id", nullable = false)
+    private Long lastEventId;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(length = 500)
+    private String lastError;
+}
@@ -0,0 +1,54 @@
+package com.escuelaconduccion.control_pagos.outbox.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento escrito en la misma transacción que el cambio que lo origina. El id se asigna al
+ * insertar; {@code seq} lo asigna {@link com.escuelaconduccion.control_pagos.outbox.service.OutboxRelay}
+ * cuando el evento ya está confirmado y es el que define el orden de entrega.
+ */
+@Entity
+@Table(
+        name = "outbox_events",
+        indexes = {
+                @Index(name = "idx_outbox_events_created_at", columnList = "created_at"),
+                @Index(name = "uk_outbox_events_seq", columnList = "seq", unique = true)
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "aggregate_type", nullable = false, length = 30)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 40)
+    private OutboxEventType eventType;
+
+    @Column(name = "branch_id")
+    private Long branchId;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // null mientras el relay no lo haya numerado
+    @Column(name = "seq")
+    private Long seq;
+}
@@ -0,0 +1,21 @@
+package com.escuelaconduccion.control_pagos.outbox.model;
+
+// Eventos de dominio que se publican en el outbox, con el agregado al que pertenecen
+public enum OutboxEventType {
+    PAYMENT_REGISTERED("PAYMENT"),
+    PAYMENT_CANCELLED("PAYMENT"),
+    ENROLLMENT_CREATED("ENROLLMENT"),
+    STUDENT_CREATED("STUDENT"),
+    STUDENT_UPDATED("STUDENT"),
+    STUDENT_DELETED("STUDENT");
+
+    private final String aggregateType;
+
+    OutboxEventType(String aggregateType) {
+        this.aggregateType = aggregateType;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+}
@@ -0,0 +1,10 @@
+package com.escuelaconduccion.control_pagos.outbox.model;
+
+// Contenido de un evento del outbox; se guarda como JSON
+public interface OutboxPayload {
+
+    Long aggregateId();
+
+    // null si el registro no tiene sede
+    Long branchId();
+}
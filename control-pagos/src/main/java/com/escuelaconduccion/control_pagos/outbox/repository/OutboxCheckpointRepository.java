@@ -0,0 +1,7 @@
+package com.escuelaconduccion.control_pagos.outbox.repository;
+
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OutboxCheckpointRepository extends JpaRepository<OutboxCheckpoint, String> {
+}
@@ -0,0 +1,28 @@
+package com.escuelaconduccion.control_pagos.outbox.repository;
+
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findBySeqGreaterThanOrderBySeqAsc(Long seq, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(e.seq), 0) FROM OutboxEvent e")
+    long findHeadSeq();
+
+    // Antigüedad del evento pendiente más viejo de un consumidor (null si está al día); incluye los aún sin numerar
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.seq > :seq OR e.seq IS NULL")
+    LocalDateTime findOldestCreatedAtAfter(@Param("seq") Long seq);
+
+    // Solo eventos ya entregados a todos los consumidores
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.seq <= :maxSeq AND e.createdAt < :before")
+    int deleteDeliveredBefore(@Param("maxSeq") Long maxSeq, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,32 @@
+package com.escuelaconduccion.control_pagos.outbox.service;
+
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxEvent;
+
+/**
+ * Consumidor de eventos del outbox. {@link OutboxRelay} entrega los eventos en orden de
+ * {@code seq} (orden de confirmación) con entrega al menos una vez: tras una caída se pueden
+ * repetir los eventos posteriores al último checkpoint guardado, así que
+ * {@link #handle(OutboxEvent)} debe tolerar duplicados.
+ */
+public interface OutboxConsumer {
+
+    // Nombre estable: es la clave del checkpoint
+    String getName();
+
+    // Una excepción detiene la entrega a este consumidor y el evento se reintenta
+    void handle(OutboxEvent event);
+
+    /**
+     * Número de entrega ({@code seq}) desde el que se reanuda al arrancar. Por defecto el checkpoint guardado (0 si es
+     * nuevo); un consumidor en memoria que reconstruye su estado desde las tablas puede
+     * devolver la marca tomada antes de la carga.
+     */
+    default long resumeFrom(long savedCheckpoint) {
+        return savedCheckpoint;
+    }
+
+    // Mientras devuelva false el relay no le entrega eventos ni fija su punto de reanudación
+    default boolean isReady() {
+        return true;
+    }
+}
@@ -0,0 +1,264 @@
+package com.escuelaconduccion.control_pagos.outbox.service;
+
+import com.escuelaconduccion.control_pagos.common.metrics.OperationalMetrics;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxCheckpoint;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxEvent;
+import com.escuelaconduccion.control_pagos.outbox.repository.OutboxCheckpointRepository;
+import com.escuelaconduccion.control_pagos.outbox.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Entrega los eventos del outbox a cada {@link OutboxConsumer} por lotes, en orden de
+ * {@code seq} y con un checkpoint por consumidor que se guarda al terminar cada lote.
+ * <p>
+ * Los ids se asignan al insertar, no al confirmar, así que no sirven de checkpoint: una
+ * transacción larga puede confirmar un id menor que otro ya entregado. Por eso el relay
+ * numera ({@code seq}) solo los eventos que ya ve confirmados, de a un proceso a la vez (lock
+ * de aplicación), y los consumidores avanzan sobre ese número. Un evento que se confirma
+ * tarde recibe un número mayor y se entrega en la pasada siguiente.
+ * <p>
+ * Un evento que falla se reintenta en las pasadas siguientes y, tras
+ * {@code outbox.relay.max-attempts} intentos, se omite para no bloquear al consumidor.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    // Clave del lock de aplicación que serializa la numeración entre instancias
+    private static final long SEQUENCE_LOCK_KEY = 0x4f5554424f58L; // "OUTBOX"
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxCheckpointRepository checkpointRepository;
+    private final List<OutboxConsumer> consumers;
+    private final OperationalMetrics operationalMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retention;
+
+    private final Map<String, ConsumerState> states = new ConcurrentHashMap<>();
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       OutboxEventRepository outboxEventRepository,
+                       OutboxCheckpointRepository checkpointRepository,
+                       List<OutboxConsumer> consumers,
+                       OperationalMetrics operationalMetrics,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${outbox.relay.batch-size:200}") int batchSize,
+                       @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${outbox.retention-hours:72}") long retentionHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxEventRepository = outboxEventRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.consumers = consumers;
+        this.operationalMetrics = operationalMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:1000}")
+    public void relay() {
+        try {
+            while (assignSequence() == batchSize) {
+                // Hay más eventos confirmados sin numerar
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron numerar los eventos del outbox: {}", e.getMessage());
+            return;
+        }
+        for (OutboxConsumer consumer : consumers) {
+            if (!consumer.isReady()) {
+                continue;
+            }
+            try {
+                drain(consumer);
+            } catch (RuntimeException e) {
+                // Error del propio relay (p. ej. base de datos caída): se reintenta en la próxima pasada
+                log.warn("No se pudo leer el outbox para {}: {}", consumer.getName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Numera, en orden de id, los eventos confirmados que aún no tienen {@code seq}. El lock
+     * de la transacción impide que dos numeraciones se intercalen: cuando un lector ve un
+     * número, todos los menores ya están confirmados.
+     */
+    private int assignSequence() {
+        Integer assigned = transactionTemplate.execute(status -> {
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> {
+            }, SEQUENCE_LOCK_KEY);
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM outbox_events WHERE seq IS NULL ORDER BY id LIMIT ?", Long.class, batchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            List<Long> sequence = new ArrayList<>(jdbcTemplate.queryForList(
+                    "SELECT nextval('outbox_event_seq') FROM generate_series(1, ?)", Long.class, ids.size()));
+            sequence.sort(null);
+            List<Object[]> batchArgs = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                batchArgs.add(new Object[]{sequence.get(i), ids.get(i)});
+            }
+            jdbcTemplate.batchUpdate("UPDATE outbox_events SET seq = ? WHERE id = ?", batchArgs);
+            return ids.size();
+        });
+        return assigned != null ? assigned : 0;
+    }
+
+    // Borra los eventos ya entregados a todos los consumidores y más viejos que la retención
+    @Scheduled(cron = "${outbox.cleanup.cron:0 45 3 * * *}")
+    public void cleanup() {
+        if (consumers.isEmpty()) {
+            return;
+        }
+        long delivered = Long.MAX_VALUE;
+        for (OutboxConsumer consumer : consumers) {
+            // Un consumidor que aún no arrancó cuenta con su checkpoint guardado (0 si no tiene)
+            long checkpoint = consumer.isReady()
+                    ? state(consumer).checkpoint
+                    : checkpointRepository.findById(consumer.getName()).map(OutboxCheckpoint::getLastEventId).orElse(0L);
+            delivered = Math.min(delivered, checkpoint);
+        }
+        if (delivered <= 0) {
+            log.info("Outbox: limpieza omitida, hay consumidores sin eventos entregados");
+            return;
+        }
+        long maxSeq = delivered;
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxEventRepository.deleteDeliveredBefore(maxSeq, before));
+        log.info("Outbox: {} eventos entregados eliminados", deleted);
+    }
+
+    public Collection<ConsumerState> getConsumerStates() {
+        return readyConsumers().stream().map(this::state).toList();
+    }
+
+    public long getHeadEventId() {
+        return outboxEventRepository.findHeadSeq();
+    }
+
+    // null si el consumidor no tiene eventos pendientes
+    public LocalDateTime getOldestPendingAt(ConsumerState state) {
+        return outboxEventRepository.findOldestCreatedAtAfter(state.checkpoint);
+    }
+
+    private List<OutboxConsumer> readyConsumers() {
+        return consumers.stream().filter(OutboxConsumer::isReady).toList();
+    }
+
+    private void drain(OutboxConsumer consumer) {
+        ConsumerState state = state(consumer);
+        boolean more = true;
+        while (more) {
+            List<OutboxEvent> batch = outboxEventRepository.findBySeqGreaterThanOrderBySeqAsc(
+                    state.checkpoint, PageRequest.of(0, batchSize));
+            long startCheckpoint = state.checkpoint;
+            more = batch.size() == batchSize;
+
+            for (OutboxEvent event : batch) {
+                if (!deliver(consumer, state, event)) {
+                    more = false;
+                    break;
+                }
+                state.checkpoint = event.getSeq();
+            }
+
+            if (state.checkpoint != startCheckpoint || state.lastError != null) {
+                saveCheckpoint(state);
+            }
+        }
+    }
+
+    private boolean deliver(OutboxConsumer consumer, ConsumerState state, OutboxEvent event) {
+        try {
+            consumer.handle(event);
+            state.attempts = 0;
+            state.lastError = null;
+            operationalMetrics.increment("outbox." + state.name + ".delivered");
+            return true;
+        } catch (RuntimeException e) {
+            state.attempts++;
+            state.lastError = truncate("Evento " + event.getId() + ": " + e.getMessage());
+            operationalMetrics.increment("outbox." + state.name + ".failures");
+            if (state.attempts < maxAttempts) {
+                log.warn("Falló la entrega del evento {} a {} (intento {}): {}",
+                        event.getId(), state.name, state.attempts, e.getMessage());
+                return false;
+            }
+            log.error("Se omite el evento {} ({}) para {} tras {} intentos",
+                    event.getId(), event.getEventType(), state.name, state.attempts, e);
+            operationalMetrics.increment("outbox." + state.name + ".skipped");
+            state.attempts = 0;
+            return true;
+        }
+    }
+
+    private ConsumerState state(OutboxConsumer consumer) {
+        return states.computeIfAbsent(consumer.getName(), name -> {
+            long saved = checkpointRepository.findById(name)
+                    .map(OutboxCheckpoint::getLastEventId)
+                    .orElse(0L);
+            ConsumerState state = new ConsumerState(name);
+            state.checkpoint = consumer.resumeFrom(saved);
+            return state;
+        });
+    }
+
+    private void saveCheckpoint(ConsumerState state) {
+        checkpointRepository.save(OutboxCheckpoint.builder()
+                .consumer(state.name)
+                .lastEventId(state.checkpoint)
+                .updatedAt(LocalDateTime.now())
+                .lastError(state.lastError)
+                .build());
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
+    // Progreso de un consumidor en esta instancia
+    public static class ConsumerState {
+
+        private final String name;
+        private volatile long checkpoint;
+        private volatile int attempts;
+        private volatile String lastError;
+
+        private ConsumerState(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCheckpoint() {
+            return checkpoint;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.escuelaconduccion.control_pagos.outbox.service;
+
+import com.escuelaconduccion.control_pagos.common.metrics.OperationalMetrics;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxEvent;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxEventType;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxPayload;
+import com.escuelaconduccion.control_pagos.outbox.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Escritura de eventos de dominio en el outbox. Se exige una transacción activa: el
+ * evento se confirma o se descarta junto con el cambio que lo origina, y {@link OutboxRelay}
+ * lo entrega a los consumidores después del commit.
+ * <p>
+ * El evento no se numera para la entrega hasta que se confirma, así que una transacción
+ * larga retrasa su propio evento pero no hace que se pierda.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO outbox_events
+                (aggregate_type, aggregate_id, event_type, branch_id, payload, created_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxEventRepository outboxEventRepository;
+    private final OperationalMetrics operationalMetrics;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(OutboxEventType type, OutboxPayload payload) {
+        publishAll(type, List.of(payload));
+    }
+
+    // Un solo lote JDBC para los procesos masivos
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(OutboxEventType type, List<? extends OutboxPayload> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batchArgs = new ArrayList<>(payloads.size());
+        for (OutboxPayload payload : payloads) {
+            batchArgs.add(new Object[]{
+                    type.getAggregateType(),
+                    payload.aggregateId(),
+                    type.name(),
+                    payload.branchId(),
+                    toJson(payload),
+                    now
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+        operationalMetrics.add("outbox.published", payloads.size());
+    }
+
+    public <T extends OutboxPayload> T readPayload(OutboxEvent event, Class<T> payloadType) {
+        try {
+            return objectMapper.readValue(event.getPayload(), payloadType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Evento " + event.getId() + " con contenido inválido: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    // Último número de entrega asignado
+    public long getHeadEventId() {
+        return outboxEventRepository.findHeadSeq();
+    }
+
+    /**
+     * Punto de reanudación para un consumidor que va a cargar su estado desde las tablas; se
+     * toma antes de leer. Un cambio confirmado después de esa lectura se numera después de
+     * esta marca y se entrega; los confirmados antes pueden llegar repetidos (el consumidor
+     * debe tolerar duplicados).
+     */
+    public long getReplayStart() {
+        return outboxEventRepository.findHeadSeq();
+    }
+
+    private String toJson(OutboxPayload payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento: " + e.getOriginalMessage(), e);
+        }
+    }
+}
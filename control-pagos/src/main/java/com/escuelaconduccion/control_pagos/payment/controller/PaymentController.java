@@ -7,9 +7,11 @@ import com.escuelaconduccion.control_pagos.payment.service.PaymentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,9 +42,11 @@ public class PaymentController {
 
     @GetMapping
     public List<PaymentResponseDTO> getAllPayments(
-            @RequestParam(required = false) Long branchId  // Solo para SUPER_ADMIN
+            @RequestParam(required = false) Long branchId,  // Solo para SUPER_ADMIN
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
     ) {
-        return paymentService.getAllPayments(branchId);
+        return paymentService.getAllPayments(branchId, from, to);
     }
 
     @GetMapping("/enrollment/{enrollmentId}")
@@ -15,6 +15,7 @@ import java.time.LocalDateTime;
 public class PaymentResponseDTO {
 
     private Long id;
+    private Long receiptNumber;
     private BigDecimal amount;
     private LocalDateTime paymentDate;
     private PaymentType type;
@@ -0,0 +1,53 @@
+package com.escuelaconduccion.control_pagos.payment.event;
+
+import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxPayload;
+import com.escuelaconduccion.control_pagos.payment.model.Payment;
+import com.escuelaconduccion.control_pagos.payment.model.PaymentStatus;
+import com.escuelaconduccion.control_pagos.payment.model.PaymentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Pago registrado o anulado. Incluye el saldo de la matrícula después del cambio para que
+ * los consumidores no tengan que consultarla.
+ */
+public record PaymentEventPayload(
+        Long paymentId,
+        Long enrollmentId,
+        Long branchId,
+        Long courseId,
+        Long paymentMethodId,
+        PaymentType type,
+        PaymentStatus status,
+        BigDecimal amount,
+        LocalDateTime paymentDate,
+        LocalDate enrollmentDate,
+        BigDecimal enrollmentTotalAmount,
+        BigDecimal enrollmentPaidAmount
+) implements OutboxPayload {
+
+    public static PaymentEventPayload of(Payment payment) {
+        Enrollment enrollment = payment.getEnrollment();
+        return new PaymentEventPayload(
+                payment.getId(),
+                enrollment.getId(),
+                payment.getBranch() != null ? payment.getBranch().getId() : null,
+                enrollment.getCourse().getId(),
+                payment.getPaymentMethod().getId(),
+                payment.getType(),
+                payment.getStatus(),
+                payment.getAmount(),
+                payment.getPaymentDate(),
+                enrollment.getEnrollmentDate(),
+                enrollment.getTotalAmount(),
+                enrollment.getPaidAmount());
+    }
+
+    @Override
+    public Long aggregateId() {
+        return paymentId;
+    }
+}
@@ -2,14 +2,31 @@ package com.escuelaconduccion.control_pagos.payment.model;
 
 import com.escuelaconduccion.control_pagos.branch.model.Branch;
 import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Filter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(
+        name = "payments",
+        // Igual que en la tabla particionada (db/payments-partitioning.sql): PostgreSQL exige la
+        // columna de partición en toda restricción UNIQUE. Con ddl-auto=update Hibernate recrea la
+        // restricción por nombre, así que debe coincidir o la borraría sin poder volver a crearla.
+        // La unicidad del recibo por sede la garantiza receipt_sequences
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_payments_branch_receipt",
+                columnNames = {"branch_id", "receipt_number", "payment_date"}
+        ),
+        indexes = {
+                @Index(name = "idx_payments_branch_date", columnList = "branch_id, payment_date"),
+                @Index(name = "idx_payments_enrollment_status", columnList = "enrollment_id, status")
+        }
+)
+@Filter(name = BranchScope.FILTER_NAME)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,6 +34,8 @@ import java.time.LocalDateTime;
 @Builder
 public class Payment {
 
+    // En la tabla particionada la PK es (id, payment_date), pero id es una identidad que no se
+    // repite entre particiones, así que basta como identificador de la entidad
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -42,6 +61,10 @@ public class Payment {
     @JoinColumn(name = "branch_id")
     private Branch branch;
 
+    // Consecutivo del recibo dentro de la sede (null si el pago no tiene sede)
+    @Column(name = "receipt_number")
+    private Long receiptNumber;
+
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal amount;
 
@@ -65,4 +88,4 @@ public class Payment {
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "payment_method_id", nullable = false)
     private PaymentMethod paymentMethod;
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.escuelaconduccion.control_pagos.payment.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Consecutivo de recibos por sede. Cada sede tiene su propia fila, así que
+ * los cajeros de sedes distintas nunca compiten por el mismo bloqueo.
+ */
+@Entity
+@Table(name = "receipt_sequences")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReceiptSequence {
+
+    @Id
+    @Column(name = "branch_id")
+    private Long branchId;
+
+    @Column(nullable = false)
+    private Long lastNumber;
+
+    @Column
+    @Builder.Default
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -1,16 +1,35 @@
 package com.escuelaconduccion.control_pagos.payment.repository;
 
+import com.escuelaconduccion.control_pagos.cashclose.dto.CashCloseLineDTO;
 import com.escuelaconduccion.control_pagos.payment.dto.MonthlyIncomeDTO;
+import com.escuelaconduccion.control_pagos.payment.dto.PaymentResponseDTO;
 import com.escuelaconduccion.control_pagos.payment.model.Payment;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
+    // Pago bloqueado para anularlo: dos anulaciones simultáneas no descuentan dos veces
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.id = :id")
+    Optional<Payment> findByIdForUpdate(@Param("id") Long id);
+
+    // Fecha del último pago confirmado de la matrícula (idx_payments_enrollment_status)
+    @Query("""
+        SELECT MAX(p.paymentDate) FROM Payment p
+        WHERE p.enrollment.id = :enrollmentId
+        AND p.status = com.escuelaconduccion.control_pagos.payment.model.PaymentStatus.CONFIRMADO
+    """)
+    LocalDateTime findLastConfirmedPaymentDate(@Param("enrollmentId") Long enrollmentId);
+
     // 1️⃣ Para listados / histórico
     @Query("""
         SELECT p FROM Payment p
@@ -21,6 +40,29 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
             @Param("enrollmentId") Long enrollmentId
     );
 
+    // Historial de pagos de todas las matrículas de un estudiante, ya proyectado a DTO
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.payment.dto.PaymentResponseDTO(
+            p.id,
+            p.receiptNumber,
+            p.amount,
+            p.paymentDate,
+            p.type,
+            p.status,
+            e.id,
+            m.id,
+            m.name
+        )
+        FROM Payment p
+        JOIN p.enrollment e
+        JOIN p.paymentMethod m
+        WHERE e.student.id = :studentId
+        ORDER BY p.paymentDate DESC, p.id DESC
+    """)
+    List<PaymentResponseDTO> findProjectedByStudentId(
+            @Param("studentId") Long studentId
+    );
+
     // 2️⃣ Para cálculos financieros (CORE)
     @Query("""
         SELECT COALESCE(SUM(p.amount), 0)
@@ -35,13 +77,83 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     @Query("SELECT p FROM Payment p JOIN FETCH p.paymentMethod JOIN FETCH p.enrollment")
     List<Payment> findAllWithMethod();
 
-    // Métodos para filtrar por sede
-    @Query("SELECT p FROM Payment p JOIN FETCH p.paymentMethod JOIN FETCH p.enrollment JOIN FETCH p.branch WHERE p.branch.id = :branchId")
-    List<Payment> findByBranchIdWithBranch(Long branchId);
-
-    @Query("SELECT p FROM Payment p JOIN FETCH p.paymentMethod JOIN FETCH p.enrollment JOIN FETCH p.branch ORDER BY p.paymentDate DESC")
+    // Con sede concreta y sin ella van en consultas separadas: un "(:branchId IS NULL OR ...)"
+    // impide usar los índices por branch_id cuando PostgreSQL pasa al plan genérico
+    @Query("""
+        SELECT p FROM Payment p
+        JOIN FETCH p.paymentMethod
+        JOIN FETCH p.enrollment
+        JOIN FETCH p.branch
+        ORDER BY p.paymentDate DESC
+        """)
     List<Payment> findAllWithBranch();
 
+    @Query("""
+        SELECT p FROM Payment p
+        JOIN FETCH p.paymentMethod
+        JOIN FETCH p.enrollment
+        JOIN FETCH p.branch
+        WHERE p.branch.id = :branchId
+        ORDER BY p.paymentDate DESC
+        """)
+    List<Payment> findByBranchIdWithBranch(@Param("branchId") Long branchId);
+
+    // Listado acotado por fechas: el rango literal sobre payment_date permite al planner
+    // descartar particiones mensuales que no intersectan [from, to)
+    @Query("""
+        SELECT p FROM Payment p
+        JOIN FETCH p.paymentMethod
+        JOIN FETCH p.enrollment
+        JOIN FETCH p.branch
+        WHERE p.paymentDate >= :from AND p.paymentDate < :to
+        ORDER BY p.paymentDate DESC
+        """)
+    List<Payment> findByDateRangeWithBranch(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    // Con sede: idx_payments_branch_date cubre la sede y el rango
+    @Query("""
+        SELECT p FROM Payment p
+        JOIN FETCH p.paymentMethod
+        JOIN FETCH p.enrollment
+        JOIN FETCH p.branch
+        WHERE p.branch.id = :branchId
+        AND p.paymentDate >= :from AND p.paymentDate < :to
+        ORDER BY p.paymentDate DESC
+        """)
+    List<Payment> findByBranchIdAndDateRangeWithBranch(
+            @Param("branchId") Long branchId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    // Cierre de caja: una sola pasada agregada sobre el rango [from, to) de payment_date
+    // (usa el índice idx_payments_branch_date)
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.cashclose.dto.CashCloseLineDTO(
+            m.id,
+            m.name,
+            p.type,
+            p.status,
+            COUNT(p),
+            COALESCE(SUM(p.amount), 0)
+        )
+        FROM Payment p
+        JOIN p.paymentMethod m
+        WHERE p.branch.id = :branchId
+        AND p.paymentDate >= :from
+        AND p.paymentDate < :to
+        GROUP BY m.id, m.name, p.type, p.status
+        ORDER BY m.name, p.type, p.status
+        """)
+    List<CashCloseLineDTO> summarizeByBranchAndDateRange(
+            @Param("branchId") Long branchId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
     // Reportes mensuales de ingresos - Compatible con PostgreSQL
     @Query(value = """
         SELECT 
@@ -71,7 +183,7 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
         FROM enrollments e
         LEFT JOIN payments p ON e.id = p.enrollment_id AND p.status = 'CONFIRMADO'
         JOIN branches b ON e.branch_id = b.id
-        WHERE (:branchId IS NULL OR b.id = :branchId)
+        WHERE e.branch_id = :branchId
         AND (:year IS NULL OR EXTRACT(YEAR FROM e.enrollment_date) = :year)
         GROUP BY EXTRACT(YEAR FROM e.enrollment_date), EXTRACT(MONTH FROM e.enrollment_date), b.id, b.name
         ORDER BY EXTRACT(YEAR FROM e.enrollment_date) DESC, EXTRACT(MONTH FROM e.enrollment_date) DESC
@@ -116,4 +228,4 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Object[]> getAllMonthlyIncomeNative(
         @Param("year") Integer year
     );
-}
\ No newline at end of file
+}
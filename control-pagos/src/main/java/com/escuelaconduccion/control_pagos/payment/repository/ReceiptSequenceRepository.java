@@ -0,0 +1,25 @@
+package com.escuelaconduccion.control_pagos.payment.repository;
+
+import com.escuelaconduccion.control_pagos.payment.model.ReceiptSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ReceiptSequenceRepository extends JpaRepository<ReceiptSequence, Long> {
+
+    // Incrementa y devuelve el siguiente número de recibo de la sede en una sola sentencia.
+    // El bloqueo de fila dura hasta el commit del pago: si el pago hace rollback, el número
+    // también se revierte y la secuencia no deja huecos.
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = """
+        INSERT INTO receipt_sequences (branch_id, last_number, updated_at)
+        VALUES (:branchId, 1, NOW())
+        ON CONFLICT (branch_id)
+        DO UPDATE SET last_number = receipt_sequences.last_number + 1,
+                      updated_at = NOW()
+        RETURNING last_number
+        """, nativeQuery = true)
+    Long allocateNextNumber(@Param("branchId") Long branchId);
+}
@@ -0,0 +1,162 @@
+package com.escuelaconduccion.control_pagos.payment.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Mantiene las particiones mensuales de payments: crea por adelantado las de los próximos
+ * meses y, si se configura, separa (DETACH) las más antiguas para que puedan comprimirse o
+ * moverse sin DELETE masivos. Solo actúa si la tabla ya fue convertida con
+ * db/payments-partitioning.sql; sobre una tabla normal no hace nada.
+ * <p>
+ * Una partición separada conserva sus filas como tabla suelta con el mismo nombre
+ * (payments_yYYYYmMM), pero la aplicación deja de verlas: no aparecen en historiales,
+ * reportes ni cierres de caja, aunque siguen sumadas en paidAmount de sus matrículas. Antes
+ * de activar detach-after-months conviene archivar esos años con ArchiveService; las tablas
+ * separadas se respaldan (pg_dump) y se eliminan a mano, o se vuelven a adjuntar con
+ * ALTER TABLE payments ATTACH PARTITION.
+ */
+@Component
+@Slf4j
+@Order(2)
+public class PaymentPartitionMaintainer implements CommandLineRunner {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int detachAfterMonths;
+
+    public PaymentPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${payments.partitioning.months-ahead:3}") int monthsAhead,
+                                      @Value("${payments.partitioning.detach-after-months:0}") int detachAfterMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.detachAfterMonths = detachAfterMonths;
+    }
+
+    @Override
+    public void run(String... args) {
+        maintain();
+    }
+
+    @Scheduled(cron = "${payments.partitioning.cron:0 20 0 * * *}")
+    public void maintain() {
+        try {
+            if (!isPartitioned()) {
+                return;
+            }
+            YearMonth current = YearMonth.now();
+            for (int i = 0; i <= monthsAhead; i++) {
+                createPartition(current.plusMonths(i));
+            }
+            if (detachAfterMonths > 0) {
+                detachOlderThan(current.minusMonths(detachAfterMonths));
+            }
+            warnIfDefaultPartitionUsed();
+        } catch (Exception e) {
+            // Un fallo aquí no debe tumbar la aplicación: la partición DEFAULT recibe los pagos
+            log.warn("No se pudo mantener las particiones de payments: {}", e.getMessage());
+        }
+    }
+
+    private boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject("""
+                SELECT EXISTS (
+                    SELECT 1
+                    FROM pg_partitioned_table pt
+                    JOIN pg_class c ON c.oid = pt.partrelid
+                    WHERE c.relname = 'payments'
+                    AND c.relnamespace = to_regnamespace(current_schema())
+                )
+                """, Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    /**
+     * Crea la partición del mes. Si payments_default ya recibió pagos de ese mes, PostgreSQL
+     * rechaza la partición nueva, así que en la misma transacción se sacan de la DEFAULT y se
+     * reinsertan en payments una vez creada, donde caen en su partición.
+     */
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        transactionTemplate.executeWithoutResult(status -> {
+            Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+            if (Boolean.TRUE.equals(exists)) {
+                return;
+            }
+            // Bloquea la DEFAULT para que no entren pagos del mes mientras se mueven
+            jdbcTemplate.execute("LOCK TABLE payments_default IN ACCESS EXCLUSIVE MODE");
+            jdbcTemplate.execute("CREATE TEMP TABLE payments_moving (LIKE payments) ON COMMIT DROP");
+            int moved = jdbcTemplate.update("""
+                    WITH moved AS (
+                        DELETE FROM payments_default
+                        WHERE payment_date >= ? AND payment_date < ?
+                        RETURNING *
+                    )
+                    INSERT INTO payments_moving SELECT * FROM moved
+                    """, from, to);
+            // Nombre y límites los genera el propio código, no vienen de fuera
+            jdbcTemplate.execute("CREATE TABLE " + name
+                    + " PARTITION OF payments FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            if (moved > 0) {
+                jdbcTemplate.update("INSERT INTO payments SELECT * FROM payments_moving");
+                log.info("{} pagos movidos de payments_default a {}", moved, name);
+            }
+        });
+    }
+
+    // Separa las particiones mensuales cuyo mes termina antes del límite; quedan como tablas sueltas
+    private void detachOlderThan(YearMonth limit) {
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = 'payments'
+                AND c.relname ~ '^payments_y[0-9]{4}m[0-9]{2}$'
+                ORDER BY c.relname
+                """, String.class);
+
+        String limitName = partitionName(limit);
+        for (String partition : partitions) {
+            // El sufijo yYYYYmMM ordena igual que las fechas
+            if (partition.compareTo(limitName) < 0) {
+                Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partition, Long.class);
+                jdbcTemplate.execute("ALTER TABLE payments DETACH PARTITION " + partition);
+                // Los pagos siguen en la tabla separada: ver la nota de la clase para respaldarlos
+                log.warn("Partición {} separada de payments con {} pagos; queda como tabla suelta", partition, rows);
+            }
+        }
+    }
+
+    private void warnIfDefaultPartitionUsed() {
+        Boolean hasRows = jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM payments_default)
+                """, Boolean.class);
+        if (Boolean.TRUE.equals(hasRows)) {
+            log.warn("La partición payments_default tiene filas: revise que las particiones mensuales estén al día");
+        }
+    }
+
+    private String partitionName(YearMonth month) {
+        return "payments_" + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -1,18 +1,29 @@
 package com.escuelaconduccion.control_pagos.payment.service;
 
+import com.escuelaconduccion.control_pagos.archive.repository.MonthlyIncomeSummaryRepository;
+import com.escuelaconduccion.control_pagos.cashclose.repository.CashClosingRepository;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
 import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
 import com.escuelaconduccion.control_pagos.enrollment.repository.EnrollmentRepository;
+import com.escuelaconduccion.control_pagos.installment.service.InstallmentService;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxEventType;
+import com.escuelaconduccion.control_pagos.outbox.service.OutboxService;
 import com.escuelaconduccion.control_pagos.payment.dto.MonthlyIncomeDTO;
 import com.escuelaconduccion.control_pagos.payment.dto.PaymentRequestDTO;
 import com.escuelaconduccion.control_pagos.payment.dto.PaymentResponseDTO;
+import com.escuelaconduccion.control_pagos.payment.event.PaymentEventPayload;
 import com.escuelaconduccion.control_pagos.payment.model.Payment;
 import com.escuelaconduccion.control_pagos.payment.model.PaymentMethod;
 import com.escuelaconduccion.control_pagos.payment.model.PaymentStatus;
 import com.escuelaconduccion.control_pagos.payment.model.PaymentType;
 import com.escuelaconduccion.control_pagos.payment.repository.PaymentMethodRepository;
 import com.escuelaconduccion.control_pagos.payment.repository.PaymentRepository;
+import com.escuelaconduccion.control_pagos.payment.repository.ReceiptSequenceRepository;
 import com.escuelaconduccion.control_pagos.auth.model.User;
 import com.escuelaconduccion.control_pagos.auth.repository.UserRepository;
+import com.escuelaconduccion.control_pagos.report.service.ReportCache;
+import com.escuelaconduccion.control_pagos.report.event.ReportDataChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,24 +32,42 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PaymentService {
 
+    private static final String[] MONTH_NAMES = {
+            "Enero", "Febrero", "Marzo", "Abril", "Mayo", "Junio",
+            "Julio", "Agosto", "Septiembre", "Octubre", "Noviembre", "Diciembre"
+    };
+
     private final PaymentRepository paymentRepository;
+    private final CashClosingRepository cashClosingRepository;
     private final EnrollmentRepository enrollmentRepository;
     private final PaymentMethodRepository paymentMethodRepository;
     private final UserRepository userRepository;
+    private final ReceiptSequenceRepository receiptSequenceRepository;
+    private final InstallmentService installmentService;
+    private final MonthlyIncomeSummaryRepository monthlyIncomeSummaryRepository;
+    private final ReportCache reportCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxService outboxService;
 
     @Transactional
     public PaymentResponseDTO registerPayment(PaymentRequestDTO request) {
 
-        Enrollment enrollment = enrollmentRepository.findById(request.getEnrollmentId())
+        // Pagos simultáneos de la misma matrícula se serializan aquí; sin el bloqueo el
+        // último en confirmar sobrescribiría paidAmount con su propia suma
+        Enrollment enrollment = enrollmentRepository.findByIdForUpdate(request.getEnrollmentId())
                 .orElseThrow(() -> new IllegalArgumentException("Matrícula no encontrada"));
 
         if (!enrollment.getActive()) {
@@ -66,12 +95,25 @@ public class PaymentService {
                 ? remaining
                 : request.getAmount();
 
+        LocalDateTime paymentDate = LocalDateTime.now();
         enrollment.setPaidAmount(enrollment.getPaidAmount().add(finalAmount));
+        enrollment.setLastPaymentDate(paymentDate.toLocalDate());
+        enrollment.refreshPaymentStatus();
         enrollmentRepository.save(enrollment);
 
+        // Si la matrícula tiene plan de cuotas, el pago cubre primero las más antiguas
+        installmentService.allocatePayment(enrollment, finalAmount);
+
+        // Consecutivo de recibo por sede: se asigna al final para mantener el bloqueo
+        // de la fila de la sede el menor tiempo posible dentro de la transacción
+        Long receiptNumber = enrollment.getBranch() != null
+                ? receiptSequenceRepository.allocateNextNumber(enrollment.getBranch().getId())
+                : null;
+
         Payment payment = Payment.builder()
+                .receiptNumber(receiptNumber)
                 .amount(finalAmount)
-                .paymentDate(LocalDateTime.now())
+                .paymentDate(paymentDate)
                 .type(request.getType())
                 .status(PaymentStatus.CONFIRMADO)
                 .enrollment(enrollment)
@@ -80,9 +122,12 @@ public class PaymentService {
                 .build();
 
         Payment saved = paymentRepository.save(payment);
+        outboxService.publish(OutboxEventType.PAYMENT_REGISTERED, PaymentEventPayload.of(saved));
+        publishReportDataChanged(enrollment);
 
         return PaymentResponseDTO.builder()
                 .id(saved.getId())
+                .receiptNumber(saved.getReceiptNumber())
                 .amount(saved.getAmount())
                 .paymentDate(saved.getPaymentDate())
                 .type(saved.getType())
@@ -102,6 +147,7 @@ public class PaymentService {
         return payments.stream()
                 .map(p -> PaymentResponseDTO.builder()
                         .id(p.getId())
+                        .receiptNumber(p.getReceiptNumber())
                         .amount(p.getAmount())
                         .paymentDate(p.getPaymentDate())
                         .status(p.getStatus())
@@ -115,7 +161,7 @@ public class PaymentService {
 
     @Transactional
     public void cancelPayment(Long paymentId) {
-        Payment payment = paymentRepository.findById(paymentId)
+        Payment payment = paymentRepository.findByIdForUpdate(paymentId)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
 
         // VALIDACIÓN: Evita anular dos veces
@@ -123,7 +169,18 @@ public class PaymentService {
             throw new IllegalStateException("Este pago ya está anulado");
         }
 
-        Enrollment enrollment = payment.getEnrollment();
+        // El cierre de caja congela los totales del día del pago: anularlo después los dejaría
+        // distintos de los pagos guardados
+        if (payment.getBranch() != null) {
+            LocalDate paymentDay = payment.getPaymentDate().toLocalDate();
+            cashClosingRepository.lockBranchDay(payment.getBranch().getId(), paymentDay);
+            if (cashClosingRepository.existsByBranchIdAndClosingDate(payment.getBranch().getId(), paymentDay)) {
+                throw new IllegalStateException("No se puede anular un pago de un día con la caja cerrada");
+            }
+        }
+
+        Enrollment enrollment = enrollmentRepository.findByIdForUpdate(payment.getEnrollment().getId())
+                .orElseThrow(() -> new IllegalArgumentException("Matrícula no encontrada"));
         BigDecimal newPaidAmount = enrollment.getPaidAmount().subtract(payment.getAmount());
         
         // PROTECCIÓN: Evita valores negativos
@@ -131,79 +188,67 @@ public class PaymentService {
             newPaidAmount = BigDecimal.ZERO;
         }
         
+        BigDecimal releasedAmount = enrollment.getPaidAmount().subtract(newPaidAmount);
         enrollment.setPaidAmount(newPaidAmount);
+        enrollment.refreshPaymentStatus();
         enrollmentRepository.save(enrollment);
 
+        installmentService.releasePayment(enrollment, releasedAmount);
+
+        // El recibo anulado conserva su número: la secuencia de la sede no se reutiliza ni deja huecos
         payment.setStatus(PaymentStatus.ANULADO);
         paymentRepository.save(payment);
+
+        // El último pago vuelve a ser el confirmado anterior, o ninguno
+        LocalDateTime lastPayment = paymentRepository.findLastConfirmedPaymentDate(enrollment.getId());
+        enrollment.setLastPaymentDate(lastPayment != null ? lastPayment.toLocalDate() : null);
+        outboxService.publish(OutboxEventType.PAYMENT_CANCELLED, PaymentEventPayload.of(payment));
+        publishReportDataChanged(enrollment);
+    }
+
+    // Los reportes en caché de esa sede y año de matrícula se invalidan al confirmar la transacción
+    private void publishReportDataChanged(Enrollment enrollment) {
+        eventPublisher.publishEvent(new ReportDataChangedEvent(
+                enrollment.getBranch() != null ? enrollment.getBranch().getId() : null,
+                enrollment.getEnrollmentDate() != null ? enrollment.getEnrollmentDate().getYear() : null));
     }
 
     @Transactional(readOnly = true)
     public List<PaymentResponseDTO> getAllPayments(Long branchId) {
-        // Obtener usuario autenticado
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User currentUser = userRepository.findByUsernameAndActiveTrueWithBranch(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        
-        System.out.println("=== DEBUG PaymentService.getAllPayments ===");
-        System.out.println("Usuario: " + currentUser.getUsername());
-        System.out.println("Rol: " + currentUser.getRole());
-        System.out.println("BranchId Usuario: " + (currentUser.getBranch() != null ? currentUser.getBranch().getId() : "null"));
-        System.out.println("BranchId Parámetro: " + branchId);
-        
-        List<Payment> payments;
-        Long filterBranchId = null;
-        
-        if (currentUser.getRole().equals("SUPER_ADMIN")) {
-            // SUPER_ADMIN puede ver todos los pagos o filtrar por una sede específica
-            if (branchId != null) {
-                filterBranchId = branchId;
-                System.out.println("SUPER_ADMIN detectado, filtrando por branchId parámetro: " + filterBranchId);
-            } else {
-                System.out.println("SUPER_ADMIN detectado, sin filtro de sede (mostrando todos)");
-            }
-        } else {
-            // ADMIN solo ve pagos de su sede (ignorar parámetro branchId)
-            Long filterBranchIdFromUser = currentUser.getBranch() != null ? currentUser.getBranch().getId() : null;
-            if (filterBranchIdFromUser != null) {
-                filterBranchId = filterBranchIdFromUser;
-                System.out.println("ADMIN detectado, filtrando por sede asignada: " + filterBranchId);
-            } else {
-                payments = new ArrayList<>(); // Usuario sin sede asignada
-                System.out.println("ADMIN sin sede asignada, devolviendo lista vacía");
-                System.out.println("=== FIN DEBUG PaymentService.getAllPayments ===");
-                return payments.stream()
-                        .map(p -> PaymentResponseDTO.builder()
-                                .id(p.getId())
-                                .amount(p.getAmount())
-                                .paymentDate(p.getPaymentDate())
-                                .status(p.getStatus())
-                                .type(p.getType())
-                                .enrollmentId(p.getEnrollment().getId())
-                                .paymentMethodId(p.getPaymentMethod().getId())
-                                .paymentMethodName(p.getPaymentMethod().getName())
-                                .build())
-                        .toList();
-            }
+        return getAllPayments(branchId, null, null);
+    }
+
+    // Con from/to la consulta queda acotada por payment_date y solo toca las particiones del rango
+    @Transactional(readOnly = true)
+    public List<PaymentResponseDTO> getAllPayments(Long branchId, LocalDate from, LocalDate to) {
+        if ((from == null) != (to == null)) {
+            throw new IllegalArgumentException("Debe indicar ambas fechas (from y to) o ninguna");
         }
-        
-        if (filterBranchId == null) {
-            // Si no hay un branchId específico (SUPER_ADMIN sin filtro), obtener todos
-            payments = paymentRepository.findAllWithBranch();
-            System.out.println("Pagos encontrados (todos): " + payments.size());
+        if (from != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la final");
+        }
+
+        // SUPER_ADMIN puede ver todas las sedes o filtrar por una; ADMIN solo ve su sede
+        Long filterBranchId = BranchScope.resolveBranchFilter(branchId);
+
+        List<Payment> payments;
+        if (from != null) {
+            // Rango [from, to] en días completos
+            LocalDateTime start = from.atStartOfDay();
+            LocalDateTime end = to.plusDays(1).atStartOfDay();
+            payments = filterBranchId != null
+                    ? paymentRepository.findByBranchIdAndDateRangeWithBranch(filterBranchId, start, end)
+                    : paymentRepository.findByDateRangeWithBranch(start, end);
         } else {
-            // Filtrar por sede específica
-            payments = paymentRepository.findByBranchIdWithBranch(filterBranchId);
-            System.out.println("Pagos encontrados por sede " + filterBranchId + ": " + payments.size());
+            payments = filterBranchId != null
+                    ? paymentRepository.findByBranchIdWithBranch(filterBranchId)
+                    : paymentRepository.findAllWithBranch();
         }
-        
-        System.out.println("Total pagos a devolver: " + payments.size());
-        System.out.println("=== FIN DEBUG PaymentService.getAllPayments ===");
-        
+
         return payments.stream()
                 .map(p -> PaymentResponseDTO.builder()
                         .id(p.getId())
+                        .receiptNumber(p.getReceiptNumber())
                         .amount(p.getAmount())
                         .paymentDate(p.getPaymentDate())
                         .status(p.getStatus())
@@ -218,40 +263,18 @@ public class PaymentService {
     // 📊 Reportes mensuales de ingresos - Corregido para PostgreSQL
     @Transactional(readOnly = true)
     public List<MonthlyIncomeDTO> getMonthlyIncomeReport(Integer year, Long branchId) {
-        // Obtener usuario autenticado
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User currentUser = userRepository.findByUsernameAndActiveTrueWithBranch(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-
-        System.out.println("=== DEBUG PaymentService.getMonthlyIncomeReport ===");
-        System.out.println("Usuario: " + currentUser.getUsername());
-        System.out.println("Rol: " + currentUser.getRole());
-        System.out.println("Año solicitado: " + year);
-        System.out.println("BranchId solicitado: " + branchId);
-
-        List<Object[]> rawData;
-
-        if (currentUser.getRole().equals("SUPER_ADMIN")) {
-            // SUPER_ADMIN puede ver todos los datos o filtrar por sede específica
-            if (branchId != null) {
-                rawData = paymentRepository.getMonthlyIncomeByBranchNative(branchId, year);
-                System.out.println("SUPER_ADMIN - Reporte por sede: " + branchId);
-            } else {
-                rawData = paymentRepository.getAllMonthlyIncomeNative(year);
-                System.out.println("SUPER_ADMIN - Reporte de todas las sedes");
-            }
-        } else {
-            // ADMIN solo ve datos de su sede
-            Long userBranchId = currentUser.getBranch() != null ? currentUser.getBranch().getId() : null;
-            if (userBranchId != null) {
-                rawData = paymentRepository.getMonthlyIncomeByBranchNative(userBranchId, year);
-                System.out.println("ADMIN - Reporte de su sede: " + userBranchId);
-            } else {
-                rawData = new ArrayList<>();
-                System.out.println("ADMIN sin sede - Lista vacía");
-            }
-        }
+        // SUPER_ADMIN puede ver todas las sedes o filtrar por una; ADMIN solo ve su sede
+        Long reportBranchId = BranchScope.resolveBranchFilter(branchId);
+
+        // Peticiones iguales simultáneas (mismo año y sede) comparten un solo cálculo
+        return reportCache.get("monthly-income", year, reportBranchId,
+                () -> buildMonthlyIncomeReport(year, reportBranchId));
+    }
+
+    private List<MonthlyIncomeDTO> buildMonthlyIncomeReport(Integer year, Long reportBranchId) {
+        List<Object[]> rawData = reportBranchId != null
+                ? paymentRepository.getMonthlyIncomeByBranchNative(reportBranchId, year)
+                : paymentRepository.getAllMonthlyIncomeNative(year);
 
         // Convertir Object[] a MonthlyIncomeDTO manualmente - CORREGIDO PARA POSTGRESQL
         List<MonthlyIncomeDTO> report = rawData.stream().map(row ->
@@ -269,9 +292,50 @@ public class PaymentService {
                         .build()
         ).toList();
 
-        System.out.println("Registros encontrados: " + report.size());
-        System.out.println("=== FIN DEBUG PaymentService.getMonthlyIncomeReport ===");
+        return mergeArchivedSummaries(report, reportBranchId, year);
+    }
+
+    /**
+     * Suma al reporte los totales de las matrículas archivadas. Los resúmenes usan la misma
+     * agrupación (año, mes, sede), así que un mes con datos en ambos lados se combina en una fila.
+     */
+    private List<MonthlyIncomeDTO> mergeArchivedSummaries(List<MonthlyIncomeDTO> report, Long branchId, Integer year) {
+        List<Object[]> archived = monthlyIncomeSummaryRepository.findForReport(branchId, year);
+        if (archived.isEmpty()) {
+            return report;
+        }
+
+        Map<String, MonthlyIncomeDTO> merged = new LinkedHashMap<>();
+        for (MonthlyIncomeDTO row : report) {
+            merged.put(row.getYear() + "-" + row.getMonthNumber() + "-" + row.getBranchId(), row);
+        }
+
+        for (Object[] row : archived) {
+            Integer rowYear = (Integer) row[0];
+            Integer monthNumber = (Integer) row[1];
+            Long rowBranchId = (Long) row[4];
+            String key = rowYear + "-" + monthNumber + "-" + rowBranchId;
+
+            MonthlyIncomeDTO current = merged.get(key);
+            if (current == null) {
+                merged.put(key, new MonthlyIncomeDTO(
+                        MONTH_NAMES[monthNumber - 1], rowYear, monthNumber,
+                        (BigDecimal) row[2], (Long) row[3], rowBranchId, (String) row[5],
+                        (BigDecimal) row[6], (BigDecimal) row[7], (BigDecimal) row[8]));
+            } else {
+                current.setTotalIncome(current.getTotalIncome().add((BigDecimal) row[2]));
+                current.setPaymentCount(current.getPaymentCount() + (Long) row[3]);
+                current.setTotalSales(current.getTotalSales().add((BigDecimal) row[6]));
+                current.setTotalPaid(current.getTotalPaid().add((BigDecimal) row[7]));
+                current.setTotalPending(current.getTotalPending().add((BigDecimal) row[8]));
+            }
+        }
 
-        return report;
+        // Mismo orden que la consulta nativa: año y mes descendentes
+        return merged.values().stream()
+                .sorted(Comparator.comparing(MonthlyIncomeDTO::getYear)
+                        .thenComparing(MonthlyIncomeDTO::getMonthNumber)
+                        .reversed())
+                .toList();
     }
 }
@@ -0,0 +1,54 @@
+package com.escuelaconduccion.control_pagos.report.controller;
+
+import com.escuelaconduccion.control_pagos.report.dto.ReportJobDTO;
+import com.escuelaconduccion.control_pagos.report.dto.ReportJobRequestDTO;
+import com.escuelaconduccion.control_pagos.report.service.ReportJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/api/report-jobs")
+@RequiredArgsConstructor
+@PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
+public class ReportJobController {
+
+    private final ReportJobService reportJobService;
+
+    // Devuelve el trabajo creado, o el existente si ya hay uno con los mismos parámetros
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ReportJobDTO submit(@RequestBody ReportJobRequestDTO request) {
+        return reportJobService.submit(request);
+    }
+
+    @GetMapping("/{id}")
+    public ReportJobDTO getJob(@PathVariable Long id) {
+        return reportJobService.getJob(id);
+    }
+
+    // Eventos "status" con cada cambio de estado; se cierra cuando el trabajo termina
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable Long id) {
+        return reportJobService.subscribe(id);
+    }
+
+    @GetMapping("/{id}/download")
+    public ResponseEntity<FileSystemResource> download(@PathVariable Long id) {
+        FileSystemResource file = reportJobService.getResult(id);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFilename()).build().toString())
+                .body(file);
+    }
+}
@@ -0,0 +1,36 @@
+package com.escuelaconduccion.control_pagos.report.dto;
+
+import com.escuelaconduccion.control_pagos.admin.dto.AgingBasis;
+import com.escuelaconduccion.control_pagos.report.model.ReportJobStatus;
+import com.escuelaconduccion.control_pagos.report.model.ReportType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReportJobDTO {
+
+    private Long id;
+    private ReportType type;
+    private Integer year;
+    private Long branchId;
+    private AgingBasis basis;
+    private ReportJobStatus status;
+    private String requestedBy;
+    private Long sizeBytes;
+    private Long rowCount;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime expiresAt;
+    private String downloadUrl;     // Solo cuando el archivo está listo
+}
@@ -0,0 +1,22 @@
+package com.escuelaconduccion.control_pagos.report.dto;
+
+import com.escuelaconduccion.control_pagos.admin.dto.AgingBasis;
+import com.escuelaconduccion.control_pagos.report.model.ReportType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReportJobRequestDTO {
+
+    private ReportType type;
+    private Integer year;       // Solo MONTHLY_INCOME; null = todos los años
+    private Long branchId;      // Solo para SUPER_ADMIN
+    private AgingBasis basis;   // Solo RECEIVABLES_AGING; por defecto ENROLLMENT_DATE
+}
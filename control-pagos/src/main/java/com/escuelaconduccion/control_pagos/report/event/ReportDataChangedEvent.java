@@ -0,0 +1,13 @@
+package com.escuelaconduccion.control_pagos.report.event;
+
+/**
+ * Cambiaron datos que alimentan los reportes (pagos, matrículas, estudiantes).
+ * branchId null = puede afectar a cualquier sede; year null = a cualquier año
+ * (el reporte mensual agrupa por año de matrícula).
+ */
+public record ReportDataChangedEvent(Long branchId, Integer year) {
+
+    public static ReportDataChangedEvent all() {
+        return new ReportDataChangedEvent(null, null);
+    }
+}
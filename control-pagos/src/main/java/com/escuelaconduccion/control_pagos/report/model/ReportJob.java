@@ -0,0 +1,81 @@
+package com.escuelaconduccion.control_pagos.report.model;
+
+import com.escuelaconduccion.control_pagos.admin.dto.AgingBasis;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Solicitud de reporte asíncrono; el resultado queda en un archivo del directorio de reportes
+@Entity
+@Table(
+        name = "report_jobs",
+        indexes = @Index(name = "idx_report_jobs_params_status", columnList = "params_key, status")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private ReportType type;
+
+    // null = todos los años
+    @Column(name = "report_year")
+    private Integer year;
+
+    // null = todas las sedes
+    @Column(name = "branch_id")
+    private Long branchId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private AgingBasis basis;
+
+    // Parámetros normalizados: dos solicitudes iguales comparten el mismo archivo
+    @Column(name = "params_key", nullable = false, length = 120)
+    private String paramsKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReportJobStatus status;
+
+    @Column(length = 100)
+    private String requestedBy;
+
+    // Instancia que ejecuta el trabajo: al reiniciar, cada una solo marca como fallidos los suyos
+    @Column(name = "node_id", length = 100)
+    private String nodeId;
+
+    @Column(length = 200)
+    private String fileName;
+
+    private Long sizeBytes;
+
+    private Long rowCount;
+
+    @Column(length = 500)
+    private String errorMessage;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private LocalDateTime expiresAt;
+
+    // Los datos cambiaron mientras el trabajo estaba pendiente o en curso: su archivo puede
+    // no incluir el cambio y no se reutiliza. Solo lo escribe la consulta de invalidación
+    @Column(insertable = false, updatable = false)
+    private Boolean stale;
+}
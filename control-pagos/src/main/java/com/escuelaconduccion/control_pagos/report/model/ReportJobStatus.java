@@ -0,0 +1,9 @@
+package com.escuelaconduccion.control_pagos.report.model;
+
+public enum ReportJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    EXPIRED     // El archivo venció o los datos cambiaron: se debe generar de nuevo
+}
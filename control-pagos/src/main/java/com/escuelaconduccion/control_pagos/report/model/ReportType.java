@@ -0,0 +1,8 @@
+package com.escuelaconduccion.control_pagos.report.model;
+
+// Reportes que se generan en segundo plano y se descargan como archivo CSV
+public enum ReportType {
+    MONTHLY_INCOME,     // Ingresos mensuales de un año o de todos los años
+    RECEIVABLES_AGING,  // Cartera por antigüedad, detalle por matrícula
+    PAYMENTS_EXPORT     // Historial completo de pagos
+}
@@ -0,0 +1,63 @@
+package com.escuelaconduccion.control_pagos.report.repository;
+
+import com.escuelaconduccion.control_pagos.report.model.ReportJob;
+import com.escuelaconduccion.control_pagos.report.model.ReportJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReportJobRepository extends JpaRepository<ReportJob, Long> {
+
+    Optional<ReportJob> findFirstByParamsKeyAndStatusInOrderByCreatedAtDesc(
+            String paramsKey, Collection<ReportJobStatus> statuses);
+
+    // Sin nodo: trabajos creados antes de registrar el nodo dueño
+    @Query("""
+        SELECT j FROM ReportJob j
+        WHERE j.status IN :statuses
+        AND (j.nodeId = :nodeId OR j.nodeId IS NULL)
+        """)
+    List<ReportJob> findOwnedByNode(@Param("nodeId") String nodeId,
+                                    @Param("statuses") Collection<ReportJobStatus> statuses);
+
+    // Archivos vencidos por TTL, o invalidados por cambios que aún conservan el archivo
+    @Query("""
+        SELECT j FROM ReportJob j
+        WHERE j.fileName IS NOT NULL
+        AND (j.status = com.escuelaconduccion.control_pagos.report.model.ReportJobStatus.EXPIRED
+             OR j.expiresAt < :now)
+        """)
+    List<ReportJob> findWithExpiredFile(@Param("now") LocalDateTime now);
+
+    // Los reportes de todas las sedes o de todos los años se ven afectados por cualquier cambio
+    @Modifying
+    @Query("""
+        UPDATE ReportJob j SET j.status = com.escuelaconduccion.control_pagos.report.model.ReportJobStatus.EXPIRED
+        WHERE j.status = com.escuelaconduccion.control_pagos.report.model.ReportJobStatus.COMPLETED
+        AND (:branchId IS NULL OR j.branchId IS NULL OR j.branchId = :branchId)
+        AND (:year IS NULL OR j.year IS NULL OR j.year = :year)
+        """)
+    int expireCompleted(@Param("branchId") Long branchId, @Param("year") Integer year);
+
+    // Un trabajo pendiente o en curso pudo leer antes del cambio: se marca para no reutilizarlo
+    @Modifying
+    @Query("""
+        UPDATE ReportJob j SET j.stale = true
+        WHERE j.status IN (com.escuelaconduccion.control_pagos.report.model.ReportJobStatus.PENDING,
+                           com.escuelaconduccion.control_pagos.report.model.ReportJobStatus.RUNNING)
+        AND (:branchId IS NULL OR j.branchId IS NULL OR j.branchId = :branchId)
+        AND (:year IS NULL OR j.year IS NULL OR j.year = :year)
+        """)
+    int markUnfinishedStale(@Param("branchId") Long branchId, @Param("year") Integer year);
+
+    @Modifying
+    @Query("DELETE FROM ReportJob j WHERE j.fileName IS NULL AND j.createdAt < :before AND j.status IN :statuses")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before,
+                             @Param("statuses") Collection<ReportJobStatus> statuses);
+}
@@ -0,0 +1,125 @@
+package com.escuelaconduccion.control_pagos.report.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ejecutor acotado con una cola por sede atendida por turnos: una sede que encola muchos
+ * reportes no retrasa a las demás más allá de un trabajo por turno. La capacidad total de
+ * la cola es fija y al llenarse se rechaza la tarea en vez de acumular memoria.
+ */
+@Slf4j
+public class BranchFairExecutor {
+
+    // Clave de cola para los reportes de todas las sedes
+    private static final long ALL_BRANCHES = 0L;
+
+    private final Object lock = new Object();
+    private final Map<Long, Deque<Runnable>> queues = new HashMap<>();
+    private final Deque<Long> turns = new ArrayDeque<>();
+    private final Thread[] workers;
+    private final int maxQueued;
+    private int queued;
+    private boolean shutdown;
+
+    public BranchFairExecutor(String threadNamePrefix, int threads, int maxQueued) {
+        this.maxQueued = maxQueued;
+        this.workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::workLoop, threadNamePrefix + (i + 1));
+            worker.setDaemon(true);
+            workers[i] = worker;
+            worker.start();
+        }
+    }
+
+    public void execute(Long branchId, Runnable task) {
+        long key = branchId != null ? branchId : ALL_BRANCHES;
+        synchronized (lock) {
+            if (shutdown) {
+                throw new RejectedExecutionException("El servicio de reportes se está deteniendo.");
+            }
+            if (queued >= maxQueued) {
+                throw new RejectedExecutionException(
+                        "Hay demasiados reportes en cola. Intente de nuevo en unos minutos.");
+            }
+            Deque<Runnable> queue = queues.computeIfAbsent(key, k -> new ArrayDeque<>());
+            if (queue.isEmpty()) {
+                turns.addLast(key);
+            }
+            queue.addLast(task);
+            queued++;
+            lock.notify();
+        }
+    }
+
+    public int getQueued() {
+        synchronized (lock) {
+            return queued;
+        }
+    }
+
+    public void shutdown(long timeoutMillis) {
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (Thread worker : workers) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                worker.join(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void workLoop() {
+        while (true) {
+            Runnable task;
+            synchronized (lock) {
+                while (turns.isEmpty() && !shutdown) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        if (shutdown) {
+                            return;
+                        }
+                    }
+                }
+                if (shutdown) {
+                    return;
+                }
+                // Se toma una tarea de la sede de turno y, si le quedan más, pasa al final de la fila
+                Long key = turns.pollFirst();
+                Deque<Runnable> queue = queues.get(key);
+                task = queue.pollFirst();
+                if (queue.isEmpty()) {
+                    queues.remove(key);
+                } else {
+                    turns.addLast(key);
+                }
+                queued--;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Error no controlado en tarea de reporte", e);
+            }
+        }
+    }
+}
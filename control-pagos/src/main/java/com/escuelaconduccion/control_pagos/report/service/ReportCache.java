@@ -0,0 +1,67 @@
+package com.escuelaconduccion.control_pagos.report.service;
+
+import com.escuelaconduccion.control_pagos.common.cache.SingleFlightCache;
+import com.escuelaconduccion.control_pagos.common.routing.PrimaryReadContext;
+import com.escuelaconduccion.control_pagos.report.event.ReportDataChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Resultados de reportes agregados (ingresos mensuales, dashboard) por reporte, año y sede.
+ * Peticiones iguales simultáneas comparten un solo cálculo, y las entradas se invalidan
+ * cuando se confirma una transacción que cambia pagos, matrículas o estudiantes de esa
+ * sede y año; el TTL solo cubre cambios que no publican evento.
+ * <p>
+ * Los cálculos leen del primario en una transacción propia: en la réplica un cálculo
+ * iniciado justo después de invalidar podría ver datos previos al commit y guardarlos.
+ */
+@Component
+public class ReportCache {
+
+    // branchId null = todas las sedes; year null = todos los años (o reporte sin año)
+    private record ReportKey(String report, Integer year, Long branchId) {
+    }
+
+    private final SingleFlightCache<ReportKey, Object> cache;
+    private final TransactionTemplate primaryReadTransaction;
+
+    public ReportCache(PlatformTransactionManager transactionManager,
+                       @Value("${report-cache.ttl-seconds:600}") long ttlSeconds,
+                       @Value("${report-cache.max-entries:500}") int maxEntries) {
+        this.cache = new SingleFlightCache<>(Duration.ofSeconds(ttlSeconds), maxEntries);
+        // Transacción nueva: la conexión se pide dentro del bloque y el enrutado ve la marca
+        this.primaryReadTransaction = new TransactionTemplate(transactionManager);
+        this.primaryReadTransaction.setReadOnly(true);
+        this.primaryReadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String report, Integer year, Long branchId, Supplier<T> loader) {
+        return (T) cache.get(new ReportKey(report, year, branchId),
+                () -> PrimaryReadContext.call(() -> primaryReadTransaction.execute(status -> loader.get())));
+    }
+
+    // Sin transacción activa (p. ej. servicios sin @Transactional) se invalida en el acto
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReportDataChanged(ReportDataChangedEvent event) {
+        cache.invalidateIf(key -> affects(event, key));
+    }
+
+    private boolean affects(ReportDataChangedEvent event, ReportKey key) {
+        // Los reportes globales (sin sede) y de todos los años incluyen cualquier cambio
+        boolean branchMatches = event.branchId() == null || key.branchId() == null
+                || Objects.equals(event.branchId(), key.branchId());
+        boolean yearMatches = event.year() == null || key.year() == null
+                || Objects.equals(event.year(), key.year());
+        return branchMatches && yearMatches;
+    }
+}
@@ -0,0 +1,163 @@
+package com.escuelaconduccion.control_pagos.report.service;
+
+import com.escuelaconduccion.control_pagos.admin.dto.AgingAccountDTO;
+import com.escuelaconduccion.control_pagos.admin.dto.AgingBasis;
+import com.escuelaconduccion.control_pagos.admin.service.ReceivablesAgingService;
+import com.escuelaconduccion.control_pagos.common.dto.KeysetPageDTO;
+import com.escuelaconduccion.control_pagos.payment.dto.MonthlyIncomeDTO;
+import com.escuelaconduccion.control_pagos.payment.service.PaymentService;
+import com.escuelaconduccion.control_pagos.report.model.ReportJob;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Escribe en CSV el contenido de cada tipo de reporte. Los reportes grandes se escriben
+ * a medida que se leen (por páginas o con cursor) para no cargar todo el resultado en memoria.
+ */
+@Component
+public class ReportCsvGenerator {
+
+    private static final int AGING_PAGE_SIZE = 200;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private static final String PAYMENTS_EXPORT_SQL = """
+        SELECT p.id, p.receipt_number, p.payment_date, p.amount, p.type, p.status,
+               pm.name AS payment_method, p.transaction_reference, e.id AS enrollment_id,
+               s.document_number, s.first_name || ' ' || s.last_name AS student_name, b.name AS branch_name
+        FROM payments p
+        JOIN enrollments e ON e.id = p.enrollment_id
+        JOIN students s ON s.id = e.student_id
+        JOIN payment_methods pm ON pm.id = p.payment_method_id
+        LEFT JOIN branches b ON b.id = p.branch_id
+        """;
+
+    private final PaymentService paymentService;
+    private final ReceivablesAgingService receivablesAgingService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ReportCsvGenerator(PaymentService paymentService,
+                              ReceivablesAgingService receivablesAgingService,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager) {
+        this.paymentService = paymentService;
+        this.receivablesAgingService = receivablesAgingService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Devuelve la cantidad de filas escritas (sin contar el encabezado)
+    public long write(ReportJob job, Writer out) throws IOException {
+        return switch (job.getType()) {
+            case MONTHLY_INCOME -> writeMonthlyIncome(job, out);
+            case RECEIVABLES_AGING -> writeAging(job, out);
+            case PAYMENTS_EXPORT -> writePayments(job, out);
+        };
+    }
+
+    private long writeMonthlyIncome(ReportJob job, Writer out) throws IOException {
+        List<MonthlyIncomeDTO> rows = paymentService.getMonthlyIncomeReport(job.getYear(), job.getBranchId());
+        writeRow(out, "anio", "mes", "numero_mes", "sede_id", "sede", "ingresos", "pagos",
+                "ventas", "abonos", "pendiente");
+        for (MonthlyIncomeDTO row : rows) {
+            writeRow(out, row.getYear(), row.getMonth(), row.getMonthNumber(), row.getBranchId(),
+                    row.getBranchName(), row.getTotalIncome(), row.getPaymentCount(),
+                    row.getTotalSales(), row.getTotalPaid(), row.getTotalPending());
+        }
+        return rows.size();
+    }
+
+    private long writeAging(ReportJob job, Writer out) throws IOException {
+        AgingBasis basis = job.getBasis() != null ? job.getBasis() : AgingBasis.ENROLLMENT_DATE;
+        writeRow(out, "matricula_id", "estudiante_id", "estudiante", "documento", "curso", "sede_id",
+                "fecha_matricula", "ultimo_pago", "dias_desde_matricula", "dias_desde_ultimo_pago",
+                "saldo", "rango");
+
+        long count = 0;
+        String cursor = null;
+        KeysetPageDTO<AgingAccountDTO> page;
+        do {
+            page = receivablesAgingService.getAgingAccounts(basis, job.getBranchId(), null, cursor, AGING_PAGE_SIZE);
+            for (AgingAccountDTO row : page.getItems()) {
+                writeRow(out, row.getEnrollmentId(), row.getStudentId(), row.getStudentName(),
+                        row.getStudentDocument(), row.getCourseName(), row.getBranchId(),
+                        row.getEnrollmentDate(), row.getLastPaymentDate(), row.getDaysSinceEnrollment(),
+                        row.getDaysSinceLastPayment(), row.getOutstanding(), row.getBucket());
+                count++;
+            }
+            cursor = page.getNextCursor();
+        } while (Boolean.TRUE.equals(page.getHasMore()));
+        return count;
+    }
+
+    private long writePayments(ReportJob job, Writer out) throws IOException {
+        writeRow(out, "pago_id", "recibo", "fecha", "monto", "tipo", "estado", "medio_pago",
+                "referencia", "matricula_id", "documento", "estudiante", "sede");
+
+        // Consultas nativas: la sede ya viene resuelta en el trabajo, el filtro de Hibernate no aplica
+        String sql = PAYMENTS_EXPORT_SQL
+                + (job.getBranchId() != null ? "WHERE p.branch_id = ? " : "")
+                + "ORDER BY p.payment_date, p.id";
+        long[] count = {0};
+
+        // Dentro de una transacción el driver de PostgreSQL usa cursor y respeta el fetch size
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            if (job.getBranchId() != null) {
+                ps.setLong(1, job.getBranchId());
+            }
+            return ps;
+        }, (ResultSet rs) -> {
+            try {
+                Timestamp paymentDate = rs.getTimestamp("payment_date");
+                writeRow(out, rs.getLong("id"), rs.getObject("receipt_number"),
+                        paymentDate != null ? paymentDate.toLocalDateTime() : null,
+                        rs.getBigDecimal("amount"), rs.getString("type"), rs.getString("status"),
+                        rs.getString("payment_method"), rs.getString("transaction_reference"),
+                        rs.getLong("enrollment_id"), rs.getString("document_number"),
+                        rs.getString("student_name"), rs.getString("branch_name"));
+                count[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        return count[0];
+    }
+
+    private static void writeRow(Writer out, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(escape(values[i]));
+        }
+        out.write("\r\n");
+    }
+
+    private static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        // Evita que una hoja de cálculo interprete como fórmula un texto ingresado por usuarios
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
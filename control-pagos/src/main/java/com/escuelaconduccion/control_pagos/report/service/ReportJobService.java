@@ -0,0 +1,418 @@
+package com.escuelaconduccion.control_pagos.report.service;
+
+import com.escuelaconduccion.control_pagos.admin.dto.AgingBasis;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadClass;
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadContext;
+import com.escuelaconduccion.control_pagos.common.deadline.RequestDeadline;
+import com.escuelaconduccion.control_pagos.common.metrics.OperationalMetrics;
+import com.escuelaconduccion.control_pagos.common.routing.PrimaryReadContext;
+import com.escuelaconduccion.control_pagos.report.dto.ReportJobDTO;
+import com.escuelaconduccion.control_pagos.report.dto.ReportJobRequestDTO;
+import com.escuelaconduccion.control_pagos.report.event.ReportDataChangedEvent;
+import com.escuelaconduccion.control_pagos.report.model.ReportJob;
+import com.escuelaconduccion.control_pagos.report.model.ReportJobStatus;
+import com.escuelaconduccion.control_pagos.report.model.ReportType;
+import com.escuelaconduccion.control_pagos.report.repository.ReportJobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Reportes pesados (ingresos de varios años, cartera por antigüedad, exportación de pagos)
+ * que se generan fuera del hilo de la petición. El cliente envía la solicitud, recibe el id
+ * del trabajo, consulta su estado o se suscribe por SSE, y descarga el CSV al terminar.
+ * <p>
+ * Los archivos se guardan en {@code report-jobs.storage-dir} y vencen a las
+ * {@code report-jobs.ttl-hours}; una solicitud con los mismos parámetros reutiliza el
+ * trabajo en curso o el archivo vigente. Un cambio confirmado en pagos, matrículas o
+ * estudiantes de la sede invalida los archivos que lo incluyen, y también los trabajos
+ * que aún no terminaron. Los trabajos leen del primario (en el pool de reportes), nunca
+ * de la réplica, para que un archivo nuevo no salga con datos anteriores al cambio.
+ * <p>
+ * Con varias instancias, {@code report-jobs.storage-dir} debe ser un almacenamiento compartido
+ * (volumen de red montado en la misma ruta en todas): cualquier instancia atiende la descarga o
+ * reutiliza el archivo que generó otra. Cada trabajo registra la instancia que lo ejecuta
+ * ({@code report-jobs.node-id}, por defecto el nombre del host), que debe ser única y estable
+ * entre reinicios.
+ */
+@Service
+@Slf4j
+public class ReportJobService {
+
+    private static final Set<ReportJobStatus> REUSABLE =
+            EnumSet.of(ReportJobStatus.PENDING, ReportJobStatus.RUNNING, ReportJobStatus.COMPLETED);
+    private static final Set<ReportJobStatus> UNFINISHED =
+            EnumSet.of(ReportJobStatus.PENDING, ReportJobStatus.RUNNING);
+    private static final Set<ReportJobStatus> FINISHED =
+            EnumSet.of(ReportJobStatus.COMPLETED, ReportJobStatus.FAILED, ReportJobStatus.EXPIRED);
+
+    private final ReportJobRepository reportJobRepository;
+    private final ReportCsvGenerator reportCsvGenerator;
+    private final OperationalMetrics operationalMetrics;
+    private final BranchFairExecutor executor;
+    private final Path storageDir;
+    private final String nodeId;
+    private final Duration ttl;
+    private final Duration retention;
+    private final Duration jobTimeout;
+    private final long sseTimeoutMillis;
+
+    // Suscriptores SSE por trabajo; se completan cuando el trabajo termina
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Object submitLock = new Object();
+
+    public ReportJobService(ReportJobRepository reportJobRepository,
+                            ReportCsvGenerator reportCsvGenerator,
+                            OperationalMetrics operationalMetrics,
+                            @Value("${report-jobs.storage-dir:${java.io.tmpdir}/edupay-reports}") String storageDir,
+                            @Value("${report-jobs.node-id:}") String nodeId,
+                            @Value("${report-jobs.ttl-hours:24}") long ttlHours,
+                            @Value("${report-jobs.retention-days:7}") long retentionDays,
+                            @Value("${report-jobs.threads:2}") int threads,
+                            @Value("${report-jobs.max-queued:50}") int maxQueued,
+                            @Value("${report-jobs.timeout-ms:1800000}") long timeoutMs,
+                            @Value("${report-jobs.sse-timeout-ms:600000}") long sseTimeoutMillis) throws IOException {
+        this.reportJobRepository = reportJobRepository;
+        this.reportCsvGenerator = reportCsvGenerator;
+        this.operationalMetrics = operationalMetrics;
+        this.storageDir = Files.createDirectories(Paths.get(storageDir).toAbsolutePath());
+        this.nodeId = nodeId.isBlank() ? localHostName() : nodeId;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.retention = Duration.ofDays(retentionDays);
+        this.jobTimeout = Duration.ofMillis(timeoutMs);
+        this.sseTimeoutMillis = sseTimeoutMillis;
+        this.executor = new BranchFairExecutor("report-job-", threads, maxQueued);
+    }
+
+    public ReportJobDTO submit(ReportJobRequestDTO request) {
+        if (request.getType() == null) {
+            throw new IllegalArgumentException("Debe indicar el tipo de reporte.");
+        }
+        // SUPER_ADMIN elige la sede (o todas); ADMIN siempre genera la de su sede
+        Long branchId = BranchScope.resolveBranchFilter(request.getBranchId());
+        Integer year = request.getType() == ReportType.MONTHLY_INCOME ? request.getYear() : null;
+        AgingBasis basis = request.getType() == ReportType.RECEIVABLES_AGING
+                ? (request.getBasis() != null ? request.getBasis() : AgingBasis.ENROLLMENT_DATE)
+                : null;
+        String paramsKey = request.getType() + "|" + year + "|" + branchId + "|" + basis;
+
+        ReportJob job;
+        synchronized (submitLock) {
+            ReportJob existing = reportJobRepository
+                    .findFirstByParamsKeyAndStatusInOrderByCreatedAtDesc(paramsKey, REUSABLE)
+                    .filter(this::isReusable)
+                    .orElse(null);
+            if (existing != null) {
+                operationalMetrics.increment("report-jobs.reused");
+                return toDTO(existing);
+            }
+
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            job = reportJobRepository.save(ReportJob.builder()
+                    .type(request.getType())
+                    .year(year)
+                    .branchId(branchId)
+                    .basis(basis)
+                    .paramsKey(paramsKey)
+                    .status(ReportJobStatus.PENDING)
+                    .requestedBy(authentication != null ? authentication.getName() : null)
+                    .nodeId(nodeId)
+                    .build());
+        }
+
+        // El trabajo corre con el usuario que lo solicitó: mismo filtro de sede que la petición
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+        Long jobId = job.getId();
+        try {
+            executor.execute(branchId, () -> run(jobId, context));
+        } catch (RejectedExecutionException e) {
+            reportJobRepository.deleteById(jobId);
+            operationalMetrics.increment("report-jobs.rejected");
+            throw e;
+        }
+        operationalMetrics.increment("report-jobs.submitted");
+        return toDTO(job);
+    }
+
+    public ReportJobDTO getJob(Long id) {
+        return toDTO(findVisibleJob(id));
+    }
+
+    public FileSystemResource getResult(Long id) {
+        ReportJob job = findVisibleJob(id);
+        if (job.getStatus() != ReportJobStatus.COMPLETED || job.getFileName() == null) {
+            throw new IllegalStateException("El reporte no está disponible para descarga (estado " + job.getStatus() + ").");
+        }
+        Path file = storageDir.resolve(job.getFileName());
+        if (!Files.exists(file)) {
+            if (!nodeId.equals(job.getNodeId())) {
+                log.warn("El reporte {} lo generó la instancia {} y su archivo no está en {}: report-jobs.storage-dir debe ser compartido",
+                        id, job.getNodeId(), storageDir);
+            }
+            throw new IllegalStateException("El archivo del reporte ya no existe. Solicítelo de nuevo.");
+        }
+        return new FileSystemResource(file);
+    }
+
+    public SseEmitter subscribe(Long id) {
+        ReportJob job = findVisibleJob(id);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        List<SseEmitter> emitters = subscribers.computeIfAbsent(id, k -> new CopyOnWriteArrayList<>());
+        emitters.add(emitter);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> emitters.remove(emitter));
+
+        // Se registra antes de leer el estado: si el trabajo termina en medio, igual llega el aviso
+        job = reportJobRepository.findById(id).orElse(job);
+        send(emitter, job);
+        return emitter;
+    }
+
+    // Invalida los archivos que incluyen los datos cambiados; se borran en la siguiente limpieza
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onReportDataChanged(ReportDataChangedEvent event) {
+        reportJobRepository.expireCompleted(event.branchId(), event.year());
+        reportJobRepository.markUnfinishedStale(event.branchId(), event.year());
+    }
+
+    // Trabajos de esta instancia que quedaron a medias por un reinicio: su hilo ya no existe.
+    // Los de otras instancias siguen en curso en ellas
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        for (ReportJob job : reportJobRepository.findOwnedByNode(nodeId, UNFINISHED)) {
+            job.setStatus(ReportJobStatus.FAILED);
+            job.setErrorMessage("Interrumpido por un reinicio del servidor.");
+            job.setFinishedAt(LocalDateTime.now());
+            reportJobRepository.save(job);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${report-jobs.cleanup-interval-ms:600000}")
+    @Transactional
+    public void cleanup() {
+        LocalDateTime now = LocalDateTime.now();
+        int deletedFiles = 0;
+        for (ReportJob job : reportJobRepository.findWithExpiredFile(now)) {
+            try {
+                Files.deleteIfExists(storageDir.resolve(job.getFileName()));
+            } catch (IOException e) {
+                log.warn("No se pudo borrar el archivo de reporte {}: {}", job.getFileName(), e.getMessage());
+                continue;
+            }
+            job.setStatus(ReportJobStatus.EXPIRED);
+            job.setFileName(null);
+            deletedFiles++;
+        }
+        int deletedJobs = reportJobRepository.deleteFinishedBefore(now.minus(retention), FINISHED);
+        if (deletedFiles > 0 || deletedJobs > 0) {
+            log.info("Limpieza de reportes: {} archivos vencidos, {} trabajos antiguos eliminados", deletedFiles, deletedJobs);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown(10_000);
+    }
+
+    private void run(Long jobId, SecurityContext context) {
+        ReportJob job = reportJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        SecurityContextHolder.setContext(context);
+        // Conexiones del pool de reportes y plazo propio del trabajo para sus consultas
+        WorkloadContext.set(WorkloadClass.REPORT);
+        PrimaryReadContext.set();
+        RequestDeadline.start(jobTimeout);
+
+        job.setStatus(ReportJobStatus.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        job = reportJobRepository.save(job);
+        publish(job);
+
+        String fileName = fileNameFor(job);
+        Path target = storageDir.resolve(fileName);
+        Path partial = storageDir.resolve(fileName + ".part");
+        try {
+            long rows;
+            try (Writer out = new BufferedWriter(Files.newBufferedWriter(partial, StandardCharsets.UTF_8))) {
+                // BOM para que Excel abra el archivo como UTF-8
+                out.write('\uFEFF');
+                rows = reportCsvGenerator.write(job, out);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            LocalDateTime finishedAt = LocalDateTime.now();
+            job.setStatus(ReportJobStatus.COMPLETED);
+            job.setFileName(fileName);
+            job.setSizeBytes(Files.size(target));
+            job.setRowCount(rows);
+            job.setFinishedAt(finishedAt);
+            job.setExpiresAt(finishedAt.plus(ttl));
+            operationalMetrics.increment("report-jobs.completed");
+        } catch (IOException | RuntimeException e) {
+            log.error("Falló el reporte {} ({})", jobId, job.getType(), e);
+            deleteQuietly(partial);
+            job.setStatus(ReportJobStatus.FAILED);
+            job.setErrorMessage(truncate(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+            job.setFinishedAt(LocalDateTime.now());
+            operationalMetrics.increment("report-jobs.failed");
+        } finally {
+            RequestDeadline.clear();
+            PrimaryReadContext.clear();
+            WorkloadContext.clear();
+        }
+
+        try {
+            job = reportJobRepository.save(job);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        publish(job);
+    }
+
+    private boolean isReusable(ReportJob job) {
+        if (Boolean.TRUE.equals(job.getStale())) {
+            return false;
+        }
+        // Uno sin terminar más allá del plazo quedó huérfano (su instancia no volvió): no se espera
+        if (job.getStatus() != ReportJobStatus.COMPLETED) {
+            return job.getCreatedAt().isAfter(LocalDateTime.now().minus(jobTimeout));
+        }
+        return job.getExpiresAt() != null && job.getExpiresAt().isAfter(LocalDateTime.now())
+                && job.getFileName() != null && Files.exists(storageDir.resolve(job.getFileName()));
+    }
+
+    // ADMIN solo ve los trabajos de su sede; responde igual que si no existiera
+    private ReportJob findVisibleJob(Long id) {
+        ReportJob job = reportJobRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Reporte no encontrado"));
+        BranchScope.restrictedBranchId().ifPresent(branchId -> {
+            if (!branchId.equals(job.getBranchId())) {
+                throw new RuntimeException("Reporte no encontrado");
+            }
+        });
+        return job;
+    }
+
+    private void publish(ReportJob job) {
+        List<SseEmitter> emitters = subscribers.get(job.getId());
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            send(emitter, job);
+        }
+        if (isTerminal(job)) {
+            subscribers.remove(job.getId());
+        }
+    }
+
+    private void send(SseEmitter emitter, ReportJob job) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(toDTO(job)));
+            if (isTerminal(job)) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // El cliente se desconectó
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static boolean isTerminal(ReportJob job) {
+        return FINISHED.contains(job.getStatus());
+    }
+
+    private static String fileNameFor(ReportJob job) {
+        StringBuilder name = new StringBuilder(job.getType().name().toLowerCase());
+        if (job.getYear() != null) {
+            name.append('_').append(job.getYear());
+        }
+        name.append(job.getBranchId() != null ? "_sede-" + job.getBranchId() : "_todas");
+        if (job.getBasis() != null) {
+            name.append('_').append(job.getBasis().name().toLowerCase());
+        }
+        return name.append('_').append(job.getId()).append(".csv").toString();
+    }
+
+    private static String localHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            log.warn("No se pudo obtener el nombre del host; configure report-jobs.node-id");
+            return "local";
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el archivo temporal {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
+    private ReportJobDTO toDTO(ReportJob job) {
+        return ReportJobDTO.builder()
+                .id(job.getId())
+                .type(job.getType())
+                .year(job.getYear())
+                .branchId(job.getBranchId())
+                .basis(job.getBasis())
+                .status(job.getStatus())
+                .requestedBy(job.getRequestedBy())
+                .sizeBytes(job.getSizeBytes())
+                .rowCount(job.getRowCount())
+                .errorMessage(job.getErrorMessage())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .expiresAt(job.getExpiresAt())
+                .downloadUrl(job.getStatus() == ReportJobStatus.COMPLETED
+                        ? "/api/report-jobs/" + job.getId() + "/download"
+                        : null)
+                .build();
+    }
+}
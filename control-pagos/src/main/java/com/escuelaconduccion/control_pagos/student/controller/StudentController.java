@@ -1,16 +1,24 @@
 package com.escuelaconduccion.control_pagos.student.controller;
 
+import com.escuelaconduccion.control_pagos.student.dto.StudentImportResultDTO;
 import com.escuelaconduccion.control_pagos.student.dto.StudentListDTO;
+import com.escuelaconduccion.control_pagos.student.dto.StudentOverviewDTO;
 import com.escuelaconduccion.control_pagos.student.dto.StudentRequestDTO;
 import com.escuelaconduccion.control_pagos.student.dto.StudentResponseDTO;
+import com.escuelaconduccion.control_pagos.student.service.StudentImportService;
+import com.escuelaconduccion.control_pagos.student.service.StudentOverviewService;
 import com.escuelaconduccion.control_pagos.student.service.StudentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/students")
@@ -18,12 +26,24 @@ import java.util.List;
 public class StudentController {
 
     private final StudentService studentService;
+    private final StudentOverviewService studentOverviewService;
+    private final StudentImportService studentImportService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
-    public StudentResponseDTO create(@RequestBody StudentRequestDTO request, Authentication authentication) {
-        return studentService.create(request, authentication);
+    public StudentResponseDTO create(@RequestBody StudentRequestDTO request) {
+        return studentService.create(request);
+    }
+
+    // Importación masiva desde CSV o XLSX (columnas: documento, nombres, apellidos, email, telefono)
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
+    public StudentImportResultDTO importStudents(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) Long branchId  // Solo para SUPER_ADMIN
+    ) {
+        return studentImportService.importStudents(file, branchId);
     }
 
     @GetMapping
@@ -32,47 +52,57 @@ public class StudentController {
             @RequestParam(required = false) Boolean active,
             @RequestParam(required = false) String document,
             @RequestParam(required = false) String name,
-            @RequestParam(required = false) Long branchId,  // Solo para SUPER_ADMIN
-            Authentication authentication
+            @RequestParam(required = false) Long branchId  // Solo para SUPER_ADMIN
     ) {
-        return studentService.getStudents(active, document, name, branchId, authentication);
+        return studentService.getStudents(active, document, name, branchId);
     }
 
     @GetMapping("/public")
-    public List<StudentListDTO> getPublicStudents(
+    public ResponseEntity<List<StudentListDTO>> getPublicStudents(
             @RequestParam(required = false) Long branchId,
-            @RequestParam(required = false) String document
+            @RequestParam(required = false) String document,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size
     ) {
-        return studentService.getPublicStudents(branchId, document);
+        // Datos personales: solo el navegador puede guardar la respuesta, no proxies compartidos
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(studentService.getPublicCacheSeconds(), TimeUnit.SECONDS).cachePrivate())
+                .body(studentService.getPublicStudents(branchId, document, page, size));
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
-    public StudentResponseDTO getStudent(@PathVariable Long id, Authentication authentication) {
-        return studentService.getStudent(id, authentication);
+    public StudentResponseDTO getStudent(@PathVariable Long id) {
+        return studentService.getStudent(id);
+    }
+
+    // Vista 360 para caja: estudiante, matrículas con saldo, cuotas y pagos en una sola llamada
+    @GetMapping("/{id}/overview")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
+    public StudentOverviewDTO getStudentOverview(@PathVariable Long id) {
+        return studentOverviewService.getOverview(id);
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
     public StudentResponseDTO updateStudent(
             @PathVariable Long id,
-            @RequestBody StudentRequestDTO request,
-            Authentication authentication
+            @RequestBody StudentRequestDTO request
     ) {
-        return studentService.updateStudent(id, request, authentication);
+        return studentService.updateStudent(id, request);
     }
 
     @PatchMapping("/{id}/toggle-status")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void toggleStudentStatus(@PathVariable Long id, Authentication authentication) {
-        studentService.toggleStudentStatus(id, authentication);
+    public void toggleStudentStatus(@PathVariable Long id) {
+        studentService.toggleStudentStatus(id);
     }
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void deleteStudent(@PathVariable Long id, Authentication authentication) {
-        studentService.deleteStudent(id, authentication);
+    public void deleteStudent(@PathVariable Long id) {
+        studentService.deleteStudent(id);
     }
-}
\ No newline at end of file
+}
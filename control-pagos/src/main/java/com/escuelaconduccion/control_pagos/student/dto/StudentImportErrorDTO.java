@@ -0,0 +1,14 @@
+package com.escuelaconduccion.control_pagos.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StudentImportErrorDTO {
+    private Long row;               // Número de fila en el archivo (la cabecera es la fila 1)
+    private String documentNumber;
+    private String message;
+}
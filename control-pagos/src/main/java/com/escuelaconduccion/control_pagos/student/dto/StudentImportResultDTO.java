@@ -0,0 +1,17 @@
+package com.escuelaconduccion.control_pagos.student.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class StudentImportResultDTO {
+    private long totalRows;
+    private long imported;
+    private long duplicates;
+    private long failed;
+    private boolean errorsTruncated;    // true si hubo más errores de los que se devuelven
+    private List<StudentImportErrorDTO> errors;
+}
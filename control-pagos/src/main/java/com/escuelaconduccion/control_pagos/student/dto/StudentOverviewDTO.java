@@ -0,0 +1,26 @@
+package com.escuelaconduccion.control_pagos.student.dto;
+
+import com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentResponseDTO;
+import com.escuelaconduccion.control_pagos.installment.dto.InstallmentResponseDTO;
+import com.escuelaconduccion.control_pagos.payment.dto.PaymentResponseDTO;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Vista completa del estudiante para caja: datos, matrículas con saldo, cuotas y pagos
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StudentOverviewDTO {
+
+    private StudentResponseDTO student;
+    private BigDecimal totalAmount;
+    private BigDecimal paidAmount;
+    private BigDecimal pendingAmount;
+    private List<EnrollmentResponseDTO> enrollments;
+    private List<InstallmentResponseDTO> installments;
+    private List<PaymentResponseDTO> payments;
+}
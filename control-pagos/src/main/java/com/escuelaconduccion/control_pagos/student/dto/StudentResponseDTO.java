@@ -1,10 +1,14 @@
 package com.escuelaconduccion.control_pagos.student.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class StudentResponseDTO {
 
     private Long id;
@@ -0,0 +1,24 @@
+package com.escuelaconduccion.control_pagos.student.event;
+
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxPayload;
+import com.escuelaconduccion.control_pagos.student.model.Student;
+
+// Estudiante creado, modificado o eliminado; active queda como estaba al eliminar
+public record StudentEventPayload(
+        Long studentId,
+        Long branchId,
+        Boolean active
+) implements OutboxPayload {
+
+    public static StudentEventPayload of(Student student) {
+        return new StudentEventPayload(
+                student.getId(),
+                student.getBranch() != null ? student.getBranch().getId() : null,
+                student.getActive());
+    }
+
+    @Override
+    public Long aggregateId() {
+        return studentId;
+    }
+}
@@ -1,13 +1,32 @@
 package com.escuelaconduccion.control_pagos.student.model;
 
 import com.escuelaconduccion.control_pagos.branch.model.Branch;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.ParamDef;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "students")
+@Table(
+        name = "students",
+        indexes = {
+                // Los índices de deudores son parciales (outstanding_balance > 0): ver DatabaseIndexInitializer
+                @Index(name = "idx_students_branch_active", columnList = "branch_id, active, id")
+        }
+)
+// Filtro de sede compartido por estudiantes, inscripciones, pagos y cuotas (ver BranchScope)
+@FilterDef(
+        name = BranchScope.FILTER_NAME,
+        parameters = @ParamDef(name = BranchScope.BRANCH_PARAMETER, type = Long.class),
+        defaultCondition = "branch_id = :" + BranchScope.BRANCH_PARAMETER,
+        applyToLoadByKey = true
+)
+@Filter(name = BranchScope.FILTER_NAME)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -46,6 +65,11 @@ public class Student {
     @Builder.Default
     private LocalDateTime fechaRegistro = LocalDateTime.now();
 
+    // Saldo pendiente de sus matrículas activas. Lo mantiene el trigger de enrollments
+    // (ver DatabaseIndexInitializer), por eso JPA nunca lo escribe
+    @Column(name = "outstanding_balance", precision = 12, scale = 2, insertable = false, updatable = false)
+    private BigDecimal outstandingBalance;
+
     @Column
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
@@ -63,4 +87,4 @@ public class Student {
     public String getFullName() {
         return firstName + " " + lastName;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
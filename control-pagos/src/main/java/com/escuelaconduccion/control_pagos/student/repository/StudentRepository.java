@@ -1,9 +1,16 @@
 package com.escuelaconduccion.control_pagos.student.repository;
 
+import com.escuelaconduccion.control_pagos.admin.dto.StudentDebtDTO;
+import com.escuelaconduccion.control_pagos.student.dto.StudentListDTO;
+import com.escuelaconduccion.control_pagos.student.dto.StudentResponseDTO;
 import com.escuelaconduccion.control_pagos.student.model.Student;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,22 +26,225 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
 
     Optional<Student> findByDocumentNumber(String documentNumber);
 
+    // El documento es único en todas las sedes: nativa para que el filtro de sede no la restrinja
+    @Query(value = "SELECT s.id FROM students s WHERE s.document_number = :documentNumber", nativeQuery = true)
+    Optional<Long> findIdByDocumentNumber(@Param("documentNumber") String documentNumber);
+
     List<Student> findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCase(
             String firstName,
             String lastName
     );
 
+    // Deudores de mayor a menor saldo con paginación keyset sobre (saldo, id) descendente. El
+    // saldo por estudiante está persistido: cada página es un recorrido por rango de
+    // idx_students_debtors (o idx_students_branch_debtors) desde el cursor, sin agregar
+    // matrículas. Primera página y siguientes, con y sin sede, van en consultas separadas para
+    // que ningún predicado opcional impida la búsqueda por índice. minDebt llega siempre (0 = todos)
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.admin.dto.StudentDebtDTO(
+            s.id,
+            CONCAT(s.firstName, ' ', s.lastName),
+            s.outstandingBalance
+        )
+        FROM Student s
+        WHERE s.outstandingBalance > 0
+        AND s.outstandingBalance >= :minDebt
+        ORDER BY s.outstandingBalance DESC, s.id DESC
+        """)
+    List<StudentDebtDTO> findDebtorsFirstPage(
+            @Param("minDebt") BigDecimal minDebt,
+            Pageable pageable
+    );
+
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.admin.dto.StudentDebtDTO(
+            s.id,
+            CONCAT(s.firstName, ' ', s.lastName),
+            s.outstandingBalance
+        )
+        FROM Student s
+        WHERE s.outstandingBalance > 0
+        AND s.outstandingBalance >= :minDebt
+        AND (s.outstandingBalance, s.id) < (:afterDebt, :afterStudentId)
+        ORDER BY s.outstandingBalance DESC, s.id DESC
+        """)
+    List<StudentDebtDTO> findDebtorsPageAfter(
+            @Param("minDebt") BigDecimal minDebt,
+            @Param("afterDebt") BigDecimal afterDebt,
+            @Param("afterStudentId") Long afterStudentId,
+            Pageable pageable
+    );
+
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.admin.dto.StudentDebtDTO(
+            s.id,
+            CONCAT(s.firstName, ' ', s.lastName),
+            s.outstandingBalance
+        )
+        FROM Student s
+        WHERE s.branch.id = :branchId
+        AND s.outstandingBalance > 0
+        AND s.outstandingBalance >= :minDebt
+        ORDER BY s.outstandingBalance DESC, s.id DESC
+        """)
+    List<StudentDebtDTO> findBranchDebtorsFirstPage(
+            @Param("branchId") Long branchId,
+            @Param("minDebt") BigDecimal minDebt,
+            Pageable pageable
+    );
+
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.admin.dto.StudentDebtDTO(
+            s.id,
+            CONCAT(s.firstName, ' ', s.lastName),
+            s.outstandingBalance
+        )
+        FROM Student s
+        WHERE s.branch.id = :branchId
+        AND s.outstandingBalance > 0
+        AND s.outstandingBalance >= :minDebt
+        AND (s.outstandingBalance, s.id) < (:afterDebt, :afterStudentId)
+        ORDER BY s.outstandingBalance DESC, s.id DESC
+        """)
+    List<StudentDebtDTO> findBranchDebtorsPageAfter(
+            @Param("branchId") Long branchId,
+            @Param("minDebt") BigDecimal minDebt,
+            @Param("afterDebt") BigDecimal afterDebt,
+            @Param("afterStudentId") Long afterStudentId,
+            Pageable pageable
+    );
+
     // Métodos para filtrar por sede
     List<Student> findByBranchId(Long branchId);
 
     List<Student> findByBranchIdAndActiveTrue(Long branchId);
 
-    @Query("SELECT s FROM Student s LEFT JOIN FETCH s.branch WHERE s.branch.id = :branchId")
-    List<Student> findByBranchIdWithBranch(Long branchId);
+    // Listado con filtros opcionales resueltos en SQL; los patrones llegan ya en minúsculas con %.
+    // La sede va en una consulta aparte (searchByBranch) para que use el índice por branch_id
+    @Query("""
+        SELECT s FROM Student s
+        LEFT JOIN FETCH s.branch b
+        WHERE (:active IS NULL OR s.active = :active)
+        AND (:documentPattern IS NULL OR LOWER(s.documentNumber) LIKE :documentPattern)
+        AND (:namePattern IS NULL
+             OR LOWER(s.firstName) LIKE :namePattern
+             OR LOWER(s.lastName) LIKE :namePattern)
+        ORDER BY s.lastName, s.firstName
+        """)
+    List<Student> search(
+            @Param("active") Boolean active,
+            @Param("documentPattern") String documentPattern,
+            @Param("namePattern") String namePattern
+    );
+
+    @Query("""
+        SELECT s FROM Student s
+        LEFT JOIN FETCH s.branch b
+        WHERE s.branch.id = :branchId
+        AND (:active IS NULL OR s.active = :active)
+        AND (:documentPattern IS NULL OR LOWER(s.documentNumber) LIKE :documentPattern)
+        AND (:namePattern IS NULL
+             OR LOWER(s.firstName) LIKE :namePattern
+             OR LOWER(s.lastName) LIKE :namePattern)
+        ORDER BY s.lastName, s.firstName
+        """)
+    List<Student> searchByBranch(
+            @Param("branchId") Long branchId,
+            @Param("active") Boolean active,
+            @Param("documentPattern") String documentPattern,
+            @Param("namePattern") String namePattern
+    );
 
     @Query("SELECT s FROM Student s LEFT JOIN FETCH s.branch WHERE s.id = :id")
     Student findByIdWithBranch(Long id);
 
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.student.dto.StudentResponseDTO(
+            s.id,
+            s.firstName,
+            s.lastName,
+            s.documentNumber,
+            s.email,
+            s.phone,
+            s.active,
+            b.id,
+            b.name
+        )
+        FROM Student s
+        LEFT JOIN s.branch b
+        WHERE s.id = :id
+        """)
+    Optional<StudentResponseDTO> findProjectedById(@Param("id") Long id);
+
+    // Documentos ya registrados dentro de un bloque de importación (en cualquier sede, por eso nativa)
+    @Query(value = "SELECT s.document_number FROM students s WHERE s.document_number IN (:documentNumbers)",
+            nativeQuery = true)
+    List<String> findExistingDocumentNumbers(@Param("documentNumbers") Collection<String> documentNumbers);
+
+    // Ids de los estudiantes recién importados, para publicar sus eventos
+    @Query(value = "SELECT s.id FROM students s WHERE s.document_number IN (:documentNumbers)",
+            nativeQuery = true)
+    List<Long> findIdsByDocumentNumbers(@Param("documentNumbers") Collection<String> documentNumbers);
+
+    // Consultas públicas: proyección directa a DTO, siempre acotadas
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.student.dto.StudentListDTO(
+            s.id,
+            s.documentNumber,
+            s.firstName,
+            s.lastName,
+            s.email,
+            s.phone,
+            s.active,
+            b.id,
+            b.name
+        )
+        FROM Student s
+        LEFT JOIN s.branch b
+        WHERE s.active = true
+        ORDER BY s.id
+        """)
+    List<StudentListDTO> findPublicPage(Pageable pageable);
+
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.student.dto.StudentListDTO(
+            s.id,
+            s.documentNumber,
+            s.firstName,
+            s.lastName,
+            s.email,
+            s.phone,
+            s.active,
+            b.id,
+            b.name
+        )
+        FROM Student s
+        LEFT JOIN s.branch b
+        WHERE s.active = true
+        AND s.branch.id = :branchId
+        ORDER BY s.id
+        """)
+    List<StudentListDTO> findPublicPageByBranch(@Param("branchId") Long branchId, Pageable pageable);
+
+    @Query("""
+        SELECT new com.escuelaconduccion.control_pagos.student.dto.StudentListDTO(
+            s.id,
+            s.documentNumber,
+            s.firstName,
+            s.lastName,
+            s.email,
+            s.phone,
+            s.active,
+            b.id,
+            b.name
+        )
+        FROM Student s
+        LEFT JOIN s.branch b
+        WHERE s.documentNumber = :documentNumber
+        AND s.active = true
+        """)
+    List<StudentListDTO> findPublicByDocumentNumber(@Param("documentNumber") String documentNumber);
+
     @Query("SELECT s FROM Student s LEFT JOIN FETCH s.branch ORDER BY s.lastName, s.firstName")
     List<Student> findAllWithBranch();
-}
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package com.escuelaconduccion.control_pagos.student.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV con separador ',' o ';' (el que use Excel en español), comillas dobles y
+ * saltos de línea dentro de campos entre comillas. El separador se detecta en la primera fila.
+ */
+class CsvStudentRowReader implements StudentRowReader {
+
+    // Una fila de estudiante ocupa pocos cientos de caracteres: el límite corta una comilla sin
+    // cerrar o un archivo sin saltos de línea antes de cargar el resto del archivo en una celda
+    static final int MAX_ROW_LENGTH = 64 * 1024;
+
+    private final BufferedReader reader;
+    private Character delimiter;
+
+    CsvStudentRowReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public List<String> nextRow() throws IOException {
+        String line = readLine(MAX_ROW_LENGTH);
+        if (line == null) {
+            return null;
+        }
+        if (delimiter == null) {
+            // Quitar BOM de UTF-8 que agregan algunas hojas de cálculo
+            if (!line.isEmpty() && line.charAt(0) == '\uFEFF') {
+                line = line.substring(1);
+            }
+            delimiter = line.indexOf(';') >= 0 && line.indexOf(',') < 0 ? ';' : ',';
+        }
+
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        int rowLength = line.length();
+        int i = 0;
+        while (true) {
+            if (i >= line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // Campo entre comillas que continúa en la siguiente línea
+                String next = readLine(MAX_ROW_LENGTH - rowLength);
+                if (next == null) {
+                    throw new IllegalArgumentException("El archivo CSV tiene un campo con comillas sin cerrar");
+                }
+                cell.append('\n');
+                rowLength += next.length() + 1;
+                line = next;
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+            i++;
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    // Como BufferedReader.readLine (\n, \r\n o \r), pero sin pasar de limit caracteres
+    private String readLine(int limit) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '\n') {
+                return line.toString();
+            }
+            if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                return line.toString();
+            }
+            if (line.length() >= limit) {
+                throw new IllegalArgumentException("El archivo CSV tiene una fila de más de " + MAX_ROW_LENGTH
+                        + " caracteres; revise que las comillas estén cerradas");
+            }
+            line.append((char) c);
+        }
+        return line.length() > 0 ? line.toString() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,161 @@
+package com.escuelaconduccion.control_pagos.student.service;
+
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Convierte las filas de un {@link StudentRowReader} en filas de importación: ubica las
+ * columnas por los nombres aceptados en el encabezado, valida cada fila con las mismas
+ * restricciones de la tabla students y marca los documentos repetidos dentro del bloque
+ * en curso. Los repetidos entre bloques distintos los detecta la consulta de documentos
+ * existentes, así la memoria no crece con el tamaño del archivo.
+ */
+final class StudentImportParser {
+
+    // Nombres de columna aceptados (normalizados: minúsculas, sin tildes, espacios ni guiones)
+    private static final Map<String, String> HEADER_ALIASES = Map.ofEntries(
+            Map.entry("documento", "documentNumber"),
+            Map.entry("documentnumber", "documentNumber"),
+            Map.entry("numerodocumento", "documentNumber"),
+            Map.entry("cedula", "documentNumber"),
+            Map.entry("nombres", "firstName"),
+            Map.entry("nombre", "firstName"),
+            Map.entry("firstname", "firstName"),
+            Map.entry("apellidos", "lastName"),
+            Map.entry("apellido", "lastName"),
+            Map.entry("lastname", "lastName"),
+            Map.entry("email", "email"),
+            Map.entry("correo", "email"),
+            Map.entry("telefono", "phone"),
+            Map.entry("celular", "phone"),
+            Map.entry("phone", "phone")
+    );
+
+    record ImportRow(long rowNumber, String documentNumber, String firstName,
+                     String lastName, String email, String phone) {
+    }
+
+    enum Outcome {
+        VALID,
+        INVALID,
+        REPEATED
+    }
+
+    // message explica por qué la fila no es válida; null si lo es
+    record ParsedRow(ImportRow row, Outcome outcome, String message) {
+    }
+
+    private final StudentRowReader reader;
+    private final Map<String, Integer> columns;
+    private final Set<String> seenInChunk = new HashSet<>();
+    private long rowNumber = 1;
+
+    StudentImportParser(StudentRowReader reader) throws IOException {
+        this.reader = reader;
+        List<String> header = reader.nextRow();
+        if (header == null) {
+            throw new IllegalArgumentException("El archivo está vacío");
+        }
+        this.columns = mapColumns(header);
+    }
+
+    /**
+     * Siguiente fila con datos (las vacías se omiten), o null al llegar al final del archivo.
+     */
+    ParsedRow next() throws IOException {
+        List<String> cells;
+        while ((cells = reader.nextRow()) != null) {
+            rowNumber++;
+            if (cells.stream().allMatch(c -> c == null || c.isBlank())) {
+                continue;
+            }
+            ImportRow row = toRow(rowNumber, cells);
+            String error = validate(row);
+            if (error != null) {
+                return new ParsedRow(row, Outcome.INVALID, error);
+            }
+            if (!seenInChunk.add(row.documentNumber())) {
+                return new ParsedRow(row, Outcome.REPEATED, "Documento repetido en el archivo");
+            }
+            return new ParsedRow(row, Outcome.VALID, null);
+        }
+        return null;
+    }
+
+    // El bloque anterior ya se guardó: sus documentos los encuentra la consulta de existentes
+    void startChunk() {
+        seenInChunk.clear();
+    }
+
+    private static Map<String, Integer> mapColumns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String field = HEADER_ALIASES.get(normalizeHeader(header.get(i)));
+            if (field != null) {
+                columns.putIfAbsent(field, i);
+            }
+        }
+        for (String required : List.of("documentNumber", "firstName", "lastName")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Falta la columna obligatoria: documento, nombres o apellidos");
+            }
+        }
+        return columns;
+    }
+
+    private static String normalizeHeader(String value) {
+        if (value == null) {
+            return "";
+        }
+        String withoutAccents = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return withoutAccents.toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "");
+    }
+
+    private ImportRow toRow(long rowNumber, List<String> cells) {
+        return new ImportRow(
+                rowNumber,
+                cell(cells, columns.get("documentNumber")),
+                cell(cells, columns.get("firstName")),
+                cell(cells, columns.get("lastName")),
+                cell(cells, columns.get("email")),
+                cell(cells, columns.get("phone"))
+        );
+    }
+
+    private static String cell(List<String> cells, Integer index) {
+        if (index == null || index >= cells.size() || cells.get(index) == null) {
+            return null;
+        }
+        String value = cells.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Mismas restricciones que las columnas de la tabla students
+    private static String validate(ImportRow row) {
+        if (row.documentNumber() == null) {
+            return "El número de documento es obligatorio";
+        }
+        if (row.documentNumber().length() > 20) {
+            return "El número de documento supera 20 caracteres";
+        }
+        if (row.firstName() == null || row.lastName() == null) {
+            return "Nombres y apellidos son obligatorios";
+        }
+        if (row.firstName().length() > 100 || row.lastName().length() > 100) {
+            return "Nombres o apellidos superan 100 caracteres";
+        }
+        if (row.email() != null && (row.email().length() > 100 || !row.email().contains("@"))) {
+            return "Email inválido";
+        }
+        if (row.phone() != null && row.phone().length() > 20) {
+            return "El teléfono supera 20 caracteres";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,243 @@
+package com.escuelaconduccion.control_pagos.student.service;
+
+import com.escuelaconduccion.control_pagos.auth.model.AuthenticatedUser;
+import com.escuelaconduccion.control_pagos.branch.repository.BranchRepository;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxEventType;
+import com.escuelaconduccion.control_pagos.outbox.service.OutboxService;
+import com.escuelaconduccion.control_pagos.student.dto.StudentImportErrorDTO;
+import com.escuelaconduccion.control_pagos.student.dto.StudentImportResultDTO;
+import com.escuelaconduccion.control_pagos.student.event.StudentEventPayload;
+import com.escuelaconduccion.control_pagos.student.repository.StudentRepository;
+import com.escuelaconduccion.control_pagos.student.service.StudentImportParser.ImportRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Importación masiva de estudiantes desde CSV o XLSX. El archivo se lee fila a fila y
+ * se procesa en bloques: una consulta por bloque para detectar documentos existentes y
+ * un INSERT por lotes JDBC, cada bloque en su propia transacción. La memoria queda
+ * acotada por el tamaño del bloque y no por el del archivo: un documento repetido en
+ * bloques distintos se informa como ya existente al procesar el segundo bloque.
+ */
+@Service
+@Slf4j
+public class StudentImportService {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 500;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO students
+                (branch_id, first_name, last_name, document_number, phone, email,
+                 active, fecha_registro, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, true, ?, ?, ?)
+            ON CONFLICT (document_number) DO NOTHING
+            """;
+
+    private static class ImportState {
+        long totalRows;
+        long imported;
+        long duplicates;
+        long failed;
+        boolean errorsTruncated;
+        final List<StudentImportErrorDTO> errors = new ArrayList<>();
+
+        void error(long row, String documentNumber, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new StudentImportErrorDTO(row, documentNumber, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        void duplicate(long row, String documentNumber, String message) {
+            duplicates++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new StudentImportErrorDTO(row, documentNumber, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+    }
+
+    private final StudentRepository studentRepository;
+    private final BranchRepository branchRepository;
+    private final StudentService studentService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
+
+    public StudentImportService(StudentRepository studentRepository,
+                                BranchRepository branchRepository,
+                                StudentService studentService,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                OutboxService outboxService) {
+        this.studentRepository = studentRepository;
+        this.branchRepository = branchRepository;
+        this.studentService = studentService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outboxService = outboxService;
+    }
+
+    public StudentImportResultDTO importStudents(MultipartFile file, Long branchId) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Debe adjuntar un archivo");
+        }
+
+        Long targetBranchId = resolveBranchId(branchId);
+        ImportState state = new ImportState();
+
+        try (InputStream input = file.getInputStream();
+             StudentRowReader reader = openReader(file.getOriginalFilename(), input)) {
+
+            StudentImportParser parser = new StudentImportParser(reader);
+
+            List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            StudentImportParser.ParsedRow parsed;
+            while ((parsed = parser.next()) != null) {
+                state.totalRows++;
+                ImportRow row = parsed.row();
+                switch (parsed.outcome()) {
+                    case INVALID -> state.error(row.rowNumber(), row.documentNumber(), parsed.message());
+                    case REPEATED -> state.duplicate(row.rowNumber(), row.documentNumber(), parsed.message());
+                    case VALID -> {
+                        chunk.add(row);
+                        if (chunk.size() == CHUNK_SIZE) {
+                            flushChunk(chunk, targetBranchId, state);
+                            chunk.clear();
+                            parser.startChunk();
+                        }
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                flushChunk(chunk, targetBranchId, state);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se pudo leer el archivo: " + e.getMessage());
+        }
+
+        if (state.imported > 0) {
+            studentService.notifyStudentsChanged(targetBranchId);
+        }
+        log.info("Importación de estudiantes: {} filas, {} importados, {} duplicados, {} con error",
+                state.totalRows, state.imported, state.duplicates, state.failed);
+
+        return StudentImportResultDTO.builder()
+                .totalRows(state.totalRows)
+                .imported(state.imported)
+                .duplicates(state.duplicates)
+                .failed(state.failed)
+                .errorsTruncated(state.errorsTruncated)
+                .errors(state.errors)
+                .build();
+    }
+
+    private void flushChunk(List<ImportRow> chunk, Long branchId, ImportState state) {
+        // Una sola consulta por bloque para saber qué documentos ya existen
+        Set<String> existing = new HashSet<>(studentRepository.findExistingDocumentNumbers(
+                chunk.stream().map(ImportRow::documentNumber).toList()));
+
+        List<ImportRow> toInsert = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (existing.contains(row.documentNumber())) {
+                state.duplicate(row.rowNumber(), row.documentNumber(), "Ya existe un estudiante con este número de documento");
+            } else {
+                toInsert.add(row);
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batchArgs = new ArrayList<>(toInsert.size());
+        for (ImportRow row : toInsert) {
+            batchArgs.add(new Object[]{
+                    branchId, row.firstName(), row.lastName(), row.documentNumber(),
+                    row.phone(), row.email(), now, now, now
+            });
+        }
+
+        try {
+            int[] counts = transactionTemplate.execute(status -> {
+                int[] inserted = jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+                publishImported(toInsert, inserted, branchId);
+                return inserted;
+            });
+            for (int i = 0; i < toInsert.size(); i++) {
+                // 0 filas: otro proceso creó el documento entre la consulta y el INSERT
+                if (counts != null && counts[i] == 0) {
+                    ImportRow row = toInsert.get(i);
+                    state.duplicate(row.rowNumber(), row.documentNumber(), "Ya existe un estudiante con este número de documento");
+                } else if (counts == null || counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                    state.imported++;
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Falló el lote de importación de estudiantes: {}", e.getMessage());
+            for (ImportRow row : toInsert) {
+                state.error(row.rowNumber(), row.documentNumber(), "No se pudo guardar el bloque de filas");
+            }
+        }
+    }
+
+    // Eventos STUDENT_CREATED del bloque, en la misma transacción que el INSERT
+    private void publishImported(List<ImportRow> toInsert, int[] counts, Long branchId) {
+        List<String> documents = new ArrayList<>(toInsert.size());
+        for (int i = 0; i < toInsert.size(); i++) {
+            if (counts == null || counts[i] != 0) {
+                documents.add(toInsert.get(i).documentNumber());
+            }
+        }
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<StudentEventPayload> events = studentRepository.findIdsByDocumentNumbers(documents).stream()
+                .map(id -> new StudentEventPayload(id, branchId, true))
+                .toList();
+        outboxService.publishAll(OutboxEventType.STUDENT_CREATED, events);
+    }
+
+    private StudentRowReader openReader(String filename, InputStream input) throws IOException {
+        String name = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".csv") || name.endsWith(".txt")) {
+            return new CsvStudentRowReader(input);
+        }
+        if (name.endsWith(".xlsx")) {
+            return new XlsxStudentRowReader(input);
+        }
+        throw new IllegalArgumentException("Formato no soportado: use un archivo CSV o XLSX");
+    }
+
+    private Long resolveBranchId(Long branchId) {
+        // Misma regla que la creación individual
+        Long targetBranchId = BranchScope.resolveTargetBranch(branchId);
+        if (targetBranchId == null) {
+            return BranchScope.currentUser().map(AuthenticatedUser::getBranchId).orElse(null);
+        }
+        if (BranchScope.isSuperAdmin() && !branchRepository.existsById(targetBranchId)) {
+            throw new RuntimeException("Sede no encontrada");
+        }
+        return targetBranchId;
+    }
+}
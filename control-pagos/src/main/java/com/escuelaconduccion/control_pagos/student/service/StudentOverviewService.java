@@ -0,0 +1,110 @@
+package com.escuelaconduccion.control_pagos.student.service;
+
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import com.escuelaconduccion.control_pagos.common.money.MoneyAccumulator;
+import com.escuelaconduccion.control_pagos.enrollment.dto.EnrollmentResponseDTO;
+import com.escuelaconduccion.control_pagos.enrollment.repository.EnrollmentRepository;
+import com.escuelaconduccion.control_pagos.installment.dto.InstallmentResponseDTO;
+import com.escuelaconduccion.control_pagos.installment.repository.InstallmentRepository;
+import com.escuelaconduccion.control_pagos.payment.dto.PaymentResponseDTO;
+import com.escuelaconduccion.control_pagos.payment.repository.PaymentRepository;
+import com.escuelaconduccion.control_pagos.student.dto.StudentOverviewDTO;
+import com.escuelaconduccion.control_pagos.student.dto.StudentResponseDTO;
+import com.escuelaconduccion.control_pagos.student.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Arma la vista 360 del estudiante en una sola petición. Las cuatro consultas son
+ * independientes: se lanzan en paralelo en el pool de consultas, cada una en su propia
+ * transacción de solo lectura. Este método no abre transacción, así el hilo de la
+ * petición no retiene una conexión mientras espera.
+ */
+@Service
+public class StudentOverviewService {
+
+    private final StudentRepository studentRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final PaymentRepository paymentRepository;
+    private final InstallmentRepository installmentRepository;
+    private final TaskExecutor queryExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public StudentOverviewService(StudentRepository studentRepository,
+                                  EnrollmentRepository enrollmentRepository,
+                                  PaymentRepository paymentRepository,
+                                  InstallmentRepository installmentRepository,
+                                  @Qualifier("queryExecutor") TaskExecutor queryExecutor,
+                                  PlatformTransactionManager transactionManager) {
+        this.studentRepository = studentRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.paymentRepository = paymentRepository;
+        this.installmentRepository = installmentRepository;
+        this.queryExecutor = queryExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public StudentOverviewDTO getOverview(Long studentId) {
+        CompletableFuture<Optional<StudentResponseDTO>> studentFuture =
+                submit(() -> studentRepository.findProjectedById(studentId));
+        CompletableFuture<List<EnrollmentResponseDTO>> enrollmentsFuture =
+                submit(() -> enrollmentRepository.findProjectedByStudentId(studentId));
+        CompletableFuture<List<InstallmentResponseDTO>> installmentsFuture =
+                submit(() -> installmentRepository.findProjectedByStudentId(studentId));
+        CompletableFuture<List<PaymentResponseDTO>> paymentsFuture =
+                submit(() -> paymentRepository.findProjectedByStudentId(studentId));
+
+        try {
+            CompletableFuture.allOf(studentFuture, enrollmentsFuture, installmentsFuture, paymentsFuture).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        StudentResponseDTO student = studentFuture.join()
+                .orElseThrow(() -> new IllegalArgumentException("Estudiante no encontrado"));
+
+        // Verificar que el usuario tenga permiso para ver este estudiante (en el hilo de la petición)
+        if (!BranchScope.canAccess(student.getBranchId())) {
+            throw new RuntimeException("No tienes permiso para ver este estudiante");
+        }
+
+        List<EnrollmentResponseDTO> enrollments = enrollmentsFuture.join();
+
+        // Saldos solo de matrículas activas, igual que en deudores y cartera
+        MoneyAccumulator totalAmount = new MoneyAccumulator();
+        MoneyAccumulator paidAmount = new MoneyAccumulator();
+        for (EnrollmentResponseDTO enrollment : enrollments) {
+            if (Boolean.TRUE.equals(enrollment.getActive())) {
+                totalAmount.add(enrollment.getTotalAmount());
+                paidAmount.add(enrollment.getPaidAmount());
+            }
+        }
+
+        return StudentOverviewDTO.builder()
+                .student(student)
+                .totalAmount(totalAmount.toBigDecimal())
+                .paidAmount(paidAmount.toBigDecimal())
+                .pendingAmount(totalAmount.toMoney().minus(paidAmount.toMoney()).toBigDecimal())
+                .enrollments(enrollments)
+                .installments(installmentsFuture.join())
+                .payments(paymentsFuture.join())
+                .build();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> query.get()), queryExecutor);
+    }
+}
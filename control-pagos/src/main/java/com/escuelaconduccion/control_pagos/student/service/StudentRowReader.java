@@ -0,0 +1,16 @@
+package com.escuelaconduccion.control_pagos.student.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Lectura fila a fila de un archivo de importación, sin cargarlo completo en memoria.
+ */
+interface StudentRowReader extends Closeable {
+
+    /**
+     * Devuelve las celdas de la siguiente fila, o null al llegar al final del archivo.
+     */
+    List<String> nextRow() throws IOException;
+}
@@ -1,19 +1,28 @@
 package com.escuelaconduccion.control_pagos.student.service;
 
 import com.escuelaconduccion.control_pagos.student.dto.StudentListDTO;
+import com.escuelaconduccion.control_pagos.student.event.StudentEventPayload;
 import com.escuelaconduccion.control_pagos.student.dto.StudentRequestDTO;
 import com.escuelaconduccion.control_pagos.student.dto.StudentResponseDTO;
 import com.escuelaconduccion.control_pagos.student.model.Student;
 import com.escuelaconduccion.control_pagos.student.repository.StudentRepository;
 import com.escuelaconduccion.control_pagos.branch.model.Branch;
 import com.escuelaconduccion.control_pagos.branch.repository.BranchRepository;
-import com.escuelaconduccion.control_pagos.auth.model.User;
-import com.escuelaconduccion.control_pagos.auth.repository.UserRepository;
+import com.escuelaconduccion.control_pagos.auth.model.AuthenticatedUser;
+import com.escuelaconduccion.control_pagos.common.branch.BranchScope;
+import com.escuelaconduccion.control_pagos.common.cache.TtlCache;
+import com.escuelaconduccion.control_pagos.outbox.model.OutboxEventType;
+import com.escuelaconduccion.control_pagos.outbox.service.OutboxService;
+import com.escuelaconduccion.control_pagos.report.event.ReportDataChangedEvent;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,21 +32,23 @@ public class StudentService {
 
     private final StudentRepository studentRepository;
     private final BranchRepository branchRepository;
-    private final UserRepository userRepository;
-
-    public StudentResponseDTO create(StudentRequestDTO request, Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User currentUser = userRepository.findByUsernameAndActiveTrueWithBranch(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        
-        // Determinar la sede para el estudiante
-        Long targetBranchId;
-        if (currentUser.getRole().equals("SUPER_ADMIN") && request.getBranchId() != null) {
-            // SUPER_ADMIN puede asignar cualquier sede
-            targetBranchId = request.getBranchId();
-        } else {
-            // ADMIN solo puede crear estudiantes de su propia sede
-            targetBranchId = currentUser.getBranch() != null ? currentUser.getBranch().getId() : null;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxService outboxService;
+
+    private static final int PUBLIC_DEFAULT_PAGE_SIZE = 50;
+    private static final int PUBLIC_MAX_PAGE_SIZE = 100;
+
+    private final TtlCache<String, List<StudentListDTO>> publicStudentsCache =
+            new TtlCache<>(Duration.ofSeconds(30), 500);
+
+    @Transactional
+    public StudentResponseDTO create(StudentRequestDTO request) {
+        // Determinar la sede para el estudiante: SUPER_ADMIN puede asignar cualquier sede,
+        // ADMIN solo puede crear estudiantes de su propia sede
+        Long targetBranchId = BranchScope.resolveTargetBranch(request.getBranchId());
+        if (targetBranchId == null) {
+            // SUPER_ADMIN sin sede explícita: usar la suya, si tiene
+            targetBranchId = BranchScope.currentUser().map(AuthenticatedUser::getBranchId).orElse(null);
         }
 
         // Obtener la sede
@@ -48,7 +59,7 @@ public class StudentService {
         }
 
         // Verificar si el estudiante ya existe por número de documento (globalmente)
-        if (studentRepository.findByDocumentNumber(request.getDocumentNumber()).isPresent()) {
+        if (studentRepository.findIdByDocumentNumber(request.getDocumentNumber()).isPresent()) {
             throw new RuntimeException("Ya existe un estudiante con este número de documento");
         }
 
@@ -63,6 +74,7 @@ public class StudentService {
                 .build();
 
         Student saved = studentRepository.save(student);
+        publishStudentChange(OutboxEventType.STUDENT_CREATED, saved);
 
         return StudentResponseDTO.builder()
                 .id(saved.getId())
@@ -97,95 +109,14 @@ public class StudentService {
                 Boolean active,
                 String document,
                 String name,
-                Long branchId,  // Solo para SUPER_ADMIN
-                Authentication authentication
+                Long branchId  // Solo para SUPER_ADMIN
         ) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User currentUser = userRepository.findByUsernameAndActiveTrueWithBranch(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        
-        System.out.println("=== DEBUG StudentService.getStudents ===");
-        System.out.println("Usuario: " + currentUser.getUsername());
-        System.out.println("Rol: " + currentUser.getRole());
-        System.out.println("BranchId Usuario: " + (currentUser.getBranch() != null ? currentUser.getBranch().getId() : "NULL"));
-        System.out.println("BranchId Parámetro: " + branchId);
-        System.out.println("Active: " + active);
-        System.out.println("Document: " + document);
-        System.out.println("Name: " + name);
-        
-        List<Student> students;
-
-        // Determinar qué sede usar para filtrar
-        Long filterBranchId;
-        if (currentUser.getRole().equals("SUPER_ADMIN")) {
-            // SUPER_ADMIN puede ver cualquier sede o filtrar por una específica
-            filterBranchId = branchId;
-            System.out.println("SUPER_ADMIN detectado, filterBranchId: " + filterBranchId);
-        } else {
-            // ADMIN solo puede ver estudiantes de su propia sede
-            filterBranchId = currentUser.getBranch() != null ? currentUser.getBranch().getId() : null;
-            System.out.println("ADMIN detectado, filterBranchId: " + filterBranchId);
-        }
-
-        // Aplicar filtros
-        if (currentUser.getRole().equals("SUPER_ADMIN") && filterBranchId == null) {
-            // SUPER_ADMIN sin filtro de sede: ver TODOS los estudiantes
-            students = studentRepository.findAllWithBranch();
-            System.out.println("SUPER_ADMIN sin filtro de sede, todos los estudiantes: " + students.size());
-            
-            // Aplicar filtros adicionales
-            if (active != null) {
-                students = students.stream()
-                        .filter(s -> s.getActive().equals(active))
-                        .collect(Collectors.toList());
-                System.out.println("Después de filtro active: " + students.size());
-            }
-            if (document != null) {
-                students = students.stream()
-                        .filter(s -> s.getDocumentNumber().toLowerCase().contains(document.toLowerCase()))
-                        .collect(Collectors.toList());
-                System.out.println("Después de filtro document: " + students.size());
-            }
-            if (name != null) {
-                students = students.stream()
-                        .filter(s -> s.getFirstName().toLowerCase().contains(name.toLowerCase()) || 
-                                     s.getLastName().toLowerCase().contains(name.toLowerCase()))
-                        .collect(Collectors.toList());
-                System.out.println("Después de filtro name: " + students.size());
-            }
-        } else if (filterBranchId != null) {
-            // Filtrar por sede específica
-            students = studentRepository.findByBranchIdWithBranch(filterBranchId);
-            System.out.println("Estudiantes encontrados por sede " + filterBranchId + ": " + students.size());
-            
-            // Aplicar filtros adicionales
-            if (active != null) {
-                students = students.stream()
-                        .filter(s -> s.getActive().equals(active))
-                        .collect(Collectors.toList());
-                System.out.println("Después de filtro active: " + students.size());
-            }
-            if (document != null) {
-                students = students.stream()
-                        .filter(s -> s.getDocumentNumber().toLowerCase().contains(document.toLowerCase()))
-                        .collect(Collectors.toList());
-                System.out.println("Después de filtro document: " + students.size());
-            }
-            if (name != null) {
-                students = students.stream()
-                        .filter(s -> s.getFirstName().toLowerCase().contains(name.toLowerCase()) || 
-                                     s.getLastName().toLowerCase().contains(name.toLowerCase()))
-                        .collect(Collectors.toList());
-                System.out.println("Después de filtro name: " + students.size());
-            }
-        } else {
-            // Si no hay sede, devolver lista vacía (caso de ADMIN sin sede asignada)
-            students = List.of();
-            System.out.println("Sin filtro de sede, lista vacía");
-        }
+        // ADMIN queda en su sede aunque envíe otro branchId; el filtro de sede lo refuerza en SQL
+        Long filterBranchId = BranchScope.resolveBranchFilter(branchId);
 
-        System.out.println("Total estudiantes a devolver: " + students.size());
-        System.out.println("=== FIN DEBUG StudentService.getStudents ===");
+        List<Student> students = filterBranchId != null
+                ? studentRepository.searchByBranch(filterBranchId, active, toLikePattern(document), toLikePattern(name))
+                : studentRepository.search(active, toLikePattern(document), toLikePattern(name));
 
         return students.stream()
                 .map(s -> new StudentListDTO(
@@ -202,45 +133,75 @@ public class StudentService {
                 .collect(Collectors.toList());
         }
 
-    public List<StudentListDTO> getPublicStudents(Long branchId, String document) {
-        List<Student> students;
+    private String toLikePattern(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return "%" + value.trim().toLowerCase() + "%";
+    }
+
+    /**
+     * Consulta pública (sin autenticación): siempre paginada y con tope de tamaño, y la
+     * búsqueda por documento es exacta para usar el índice único. Las respuestas se
+     * guardan unos segundos en memoria para absorber ráfagas de tráfico anónimo.
+     */
+    public List<StudentListDTO> getPublicStudents(Long branchId, String document, Integer page, Integer size) {
+        if (document != null && !document.isBlank()) {
+            String normalized = document.trim();
+            return publicStudentsCache.get("doc:" + normalized,
+                    () -> BranchScope.unrestricted(() -> studentRepository.findPublicByDocumentNumber(normalized)));
+        }
 
-        if (branchId != null) {
-            students = studentRepository.findByBranchIdAndActiveTrue(branchId);
-        } else if (document != null) {
-            students = studentRepository.findByDocumentNumberContainingIgnoreCaseAndActiveTrue(document);
+        int pageNumber = page == null ? 0 : Math.max(page, 0);
+        int pageSize = size == null ? PUBLIC_DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), PUBLIC_MAX_PAGE_SIZE);
+
+        // La caché es compartida: se consulta sin filtro de sede aunque la petición traiga token
+        return publicStudentsCache.get("page:" + branchId + ":" + pageNumber + ":" + pageSize,
+                () -> BranchScope.unrestricted(
+                        () -> branchId != null
+                                ? studentRepository.findPublicPageByBranch(branchId, PageRequest.of(pageNumber, pageSize))
+                                : studentRepository.findPublicPage(PageRequest.of(pageNumber, pageSize))));
+    }
+
+    /**
+     * Invalida la consulta pública y los reportes de la sede (el dashboard cuenta
+     * estudiantes activos). branchId null = cualquier sede. Dentro de una transacción la
+     * consulta pública se invalida al confirmar, para no volver a cachear datos sin confirmar.
+     */
+    public void notifyStudentsChanged(Long branchId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publicStudentsCache.invalidateAll();
+                }
+            });
         } else {
-            students = studentRepository.findByActiveTrue();
+            publicStudentsCache.invalidateAll();
         }
+        eventPublisher.publishEvent(new ReportDataChangedEvent(branchId, null));
+    }
 
-        return students.stream()
-                .map(s -> new StudentListDTO(
-                        s.getId(),
-                        s.getDocumentNumber(),
-                        s.getFirstName(),
-                        s.getLastName(),
-                        s.getEmail(),
-                        s.getPhone(),
-                        s.getActive(),
-                        s.getBranch() != null ? s.getBranch().getId() : null,
-                        s.getBranch() != null ? s.getBranch().getName() : null
-                ))
-                .collect(Collectors.toList());
+    // Evento en el outbox dentro de la transacción del cambio, más la invalidación de cachés
+    private void publishStudentChange(OutboxEventType type, Student student) {
+        outboxService.publish(type, StudentEventPayload.of(student));
+        notifyStudentsChanged(branchIdOf(student));
+    }
+
+    private Long branchIdOf(Student student) {
+        return student.getBranch() != null ? student.getBranch().getId() : null;
+    }
+
+    public long getPublicCacheSeconds() {
+        return publicStudentsCache.getTtlSeconds();
     }
 
-    public StudentResponseDTO getStudent(Long id, Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User currentUser = userRepository.findByUsernameAndActiveTrueWithBranch(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        
+    public StudentResponseDTO getStudent(Long id) {
         Student student = studentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
         // Verificar que el usuario tenga permiso para ver este estudiante
-        if (!currentUser.getRole().equals("SUPER_ADMIN") && 
-            (currentUser.getBranch() == null || 
-             student.getBranch() == null || 
-             !currentUser.getBranch().getId().equals(student.getBranch().getId()))) {
+        if (!BranchScope.canAccess(student.getBranch() != null ? student.getBranch().getId() : null)) {
             throw new RuntimeException("No tienes permiso para ver este estudiante");
         }
 
@@ -257,27 +218,21 @@ public class StudentService {
                 .build();
     }
 
-    public StudentResponseDTO updateStudent(Long id, StudentRequestDTO request, Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User currentUser = userRepository.findByUsernameAndActiveTrueWithBranch(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        
+    @Transactional
+    public StudentResponseDTO updateStudent(Long id, StudentRequestDTO request) {
         Student student = studentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
         // Verificar que el usuario tenga permiso para editar este estudiante
-        if (!currentUser.getRole().equals("SUPER_ADMIN") && 
-            (currentUser.getBranch() == null || 
-             student.getBranch() == null || 
-             !currentUser.getBranch().getId().equals(student.getBranch().getId()))) {
+        if (!BranchScope.canAccess(student.getBranch() != null ? student.getBranch().getId() : null)) {
             throw new RuntimeException("No tienes permiso para editar este estudiante");
         }
 
         // Verificar si el número de documento ya está siendo usado por otro estudiante
         if (!request.getDocumentNumber().equals(student.getDocumentNumber())) {
-            studentRepository.findByDocumentNumber(request.getDocumentNumber())
-                    .ifPresent(existingStudent -> {
-                        if (!existingStudent.getId().equals(student.getId())) {
+            studentRepository.findIdByDocumentNumber(request.getDocumentNumber())
+                    .ifPresent(existingStudentId -> {
+                        if (!existingStudentId.equals(student.getId())) {
                             throw new RuntimeException("Ya existe un estudiante con este número de documento");
                         }
                     });
@@ -291,13 +246,14 @@ public class StudentService {
         student.setActive(request.getActive() != null ? request.getActive() : student.getActive());
 
         // Actualizar sede solo si es SUPER_ADMIN
-        if (currentUser.getRole().equals("SUPER_ADMIN") && request.getBranchId() != null) {
+        if (BranchScope.isSuperAdmin() && request.getBranchId() != null) {
             Branch branch = branchRepository.findById(request.getBranchId())
                     .orElseThrow(() -> new RuntimeException("Sede no encontrada"));
             student.setBranch(branch);
         }
 
         studentRepository.save(student);
+        publishStudentChange(OutboxEventType.STUDENT_UPDATED, student);
 
         return StudentResponseDTO.builder()
                 .id(student.getId())
@@ -312,56 +268,42 @@ public class StudentService {
                 .build();
     }
 
-    public void deleteStudent(Long id, Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User currentUser = userRepository.findByUsernameAndActiveTrueWithBranch(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        
+    @Transactional
+    public void deleteStudent(Long id) {
         Student student = studentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
         // Verificar que el usuario tenga permiso para eliminar este estudiante
-        if (!currentUser.getRole().equals("SUPER_ADMIN") && 
-            (currentUser.getBranch() == null || 
-             student.getBranch() == null || 
-             !currentUser.getBranch().getId().equals(student.getBranch().getId()))) {
+        if (!BranchScope.canAccess(student.getBranch() != null ? student.getBranch().getId() : null)) {
             throw new RuntimeException("No tienes permiso para eliminar este estudiante");
         }
 
         studentRepository.delete(student);
+        publishStudentChange(OutboxEventType.STUDENT_DELETED, student);
     }
 
-    public void toggleStudentStatus(Long id, Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User currentUser = userRepository.findByUsernameAndActiveTrueWithBranch(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        
+    @Transactional
+    public void toggleStudentStatus(Long id) {
         Student student = studentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
         // Verificar que el usuario tenga permiso para modificar este estudiante
-        if (!currentUser.getRole().equals("SUPER_ADMIN") && 
-            (currentUser.getBranch() == null || 
-             student.getBranch() == null || 
-             !currentUser.getBranch().getId().equals(student.getBranch().getId()))) {
+        if (!BranchScope.canAccess(student.getBranch() != null ? student.getBranch().getId() : null)) {
             throw new RuntimeException("No tienes permiso para modificar este estudiante");
         }
 
         student.setActive(!student.getActive());
         studentRepository.save(student);
+        publishStudentChange(OutboxEventType.STUDENT_UPDATED, student);
     }
 
+    @Transactional
     public void deactivateStudent(Long id) {
         Student student = studentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
         student.setActive(false);
         studentRepository.save(student);
+        publishStudentChange(OutboxEventType.STUDENT_UPDATED, student);
     }
 
-    public void toggleStudentStatus(Long id) {
-        Student student = studentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
-        student.setActive(!student.getActive()); // Invierte el estado
-        studentRepository.save(student);
-        }
 }
@@ -0,0 +1,242 @@
+package com.escuelaconduccion.control_pagos.student.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Lector mínimo de XLSX con StAX: recorre la primera hoja del libro fila por fila sin construir
+ * el documento completo. Solo la tabla de textos compartidos queda en memoria.
+ * El archivo subido se copia a un temporal porque el formato es un ZIP y necesita acceso directo.
+ */
+class XlsxStudentRowReader implements StudentRowReader {
+
+    private static final String SHARED_STRINGS = "xl/sharedStrings.xml";
+    private static final String WORKBOOK = "xl/workbook.xml";
+    private static final String WORKBOOK_RELS = "xl/_rels/workbook.xml.rels";
+    private static final String DEFAULT_SHEET = "xl/worksheets/sheet1.xml";
+    private static final String RELATIONSHIPS_NS =
+            "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private final Path tempFile;
+    private final ZipFile zipFile;
+    private final InputStream sheetStream;
+    private final XMLStreamReader sheet;
+    private final List<String> sharedStrings;
+
+    XlsxStudentRowReader(InputStream input) throws IOException {
+        this.tempFile = Files.createTempFile("student-import-", ".xlsx");
+        ZipFile zip = null;
+        InputStream stream = null;
+        try {
+            Files.copy(input, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            zip = new ZipFile(tempFile.toFile());
+            this.zipFile = zip;
+
+            XMLInputFactory factory = XMLInputFactory.newFactory();
+            // Sin DTD ni entidades externas: el archivo viene del cliente
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+            ZipEntry sheetEntry = zipFile.getEntry(firstSheetPath(factory));
+            if (sheetEntry == null) {
+                throw new IllegalArgumentException("El archivo XLSX no contiene una hoja de cálculo");
+            }
+
+            this.sharedStrings = readSharedStrings(factory);
+            stream = zipFile.getInputStream(sheetEntry);
+            this.sheetStream = stream;
+            this.sheet = factory.createXMLStreamReader(sheetStream);
+        } catch (XMLStreamException e) {
+            discard(stream, zip);
+            throw new IllegalArgumentException("El archivo XLSX no es válido");
+        } catch (IOException | RuntimeException e) {
+            discard(stream, zip);
+            throw e;
+        }
+    }
+
+    // Archivo rechazado: close() no se va a llamar, así que se libera aquí lo que alcanzó a abrirse
+    private void discard(InputStream stream, ZipFile zip) throws IOException {
+        try {
+            if (stream != null) {
+                stream.close();
+            }
+            if (zip != null) {
+                zip.close();
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public List<String> nextRow() throws IOException {
+        try {
+            while (sheet.hasNext()) {
+                if (sheet.next() == XMLStreamConstants.START_ELEMENT && sheet.getLocalName().equals("row")) {
+                    return readRow();
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IOException("Error leyendo la hoja XLSX", e);
+        }
+    }
+
+    private List<String> readRow() throws XMLStreamException {
+        List<String> cells = new ArrayList<>();
+        while (sheet.hasNext()) {
+            int event = sheet.next();
+            if (event == XMLStreamConstants.END_ELEMENT && sheet.getLocalName().equals("row")) {
+                return cells;
+            }
+            if (event == XMLStreamConstants.START_ELEMENT && sheet.getLocalName().equals("c")) {
+                int column = columnIndex(sheet.getAttributeValue(null, "r"), cells.size());
+                String type = sheet.getAttributeValue(null, "t");
+                String value = readCellValue(type);
+                // Las celdas vacías no aparecen en el XML: rellenar huecos
+                while (cells.size() < column) {
+                    cells.add("");
+                }
+                cells.add(value);
+            }
+        }
+        return cells;
+    }
+
+    private String readCellValue(String type) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        while (sheet.hasNext()) {
+            int event = sheet.next();
+            if (event == XMLStreamConstants.END_ELEMENT && sheet.getLocalName().equals("c")) {
+                break;
+            }
+            if (event == XMLStreamConstants.START_ELEMENT
+                    && (sheet.getLocalName().equals("v") || sheet.getLocalName().equals("t"))) {
+                text.append(sheet.getElementText());
+            }
+        }
+
+        String raw = text.toString();
+        if ("s".equals(type)) {
+            int index = Integer.parseInt(raw.trim());
+            return index < sharedStrings.size() ? sharedStrings.get(index) : "";
+        }
+        if (type == null || "n".equals(type)) {
+            // Documentos y teléfonos guardados como número: 1.0234567E7 -> 10234567
+            try {
+                return new BigDecimal(raw).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                return raw;
+            }
+        }
+        return raw;
+    }
+
+    /**
+     * Ruta de la primera hoja según el orden de xl/workbook.xml: su r:id se busca en
+     * xl/_rels/workbook.xml.rels. Los archivos generados por otras herramientas no siempre
+     * la llaman sheet1.xml (hojas reordenadas o eliminadas); sin workbook se usa esa ruta.
+     */
+    private String firstSheetPath(XMLInputFactory factory) throws IOException, XMLStreamException {
+        ZipEntry workbook = zipFile.getEntry(WORKBOOK);
+        ZipEntry rels = zipFile.getEntry(WORKBOOK_RELS);
+        if (workbook == null || rels == null) {
+            return DEFAULT_SHEET;
+        }
+
+        String relationId = null;
+        try (InputStream in = zipFile.getInputStream(workbook)) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            while (relationId == null && reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("sheet")) {
+                    relationId = reader.getAttributeValue(RELATIONSHIPS_NS, "id");
+                }
+            }
+            reader.close();
+        }
+        if (relationId == null) {
+            return DEFAULT_SHEET;
+        }
+
+        try (InputStream in = zipFile.getInputStream(rels)) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT
+                        && reader.getLocalName().equals("Relationship")
+                        && relationId.equals(reader.getAttributeValue(null, "Id"))) {
+                    String target = reader.getAttributeValue(null, "Target");
+                    reader.close();
+                    // Target es relativo a xl/ o absoluto desde la raíz del paquete
+                    return URI.create("/" + WORKBOOK).resolve(target).getPath().substring(1);
+                }
+            }
+            reader.close();
+        }
+        return DEFAULT_SHEET;
+    }
+
+    private List<String> readSharedStrings(XMLInputFactory factory) throws IOException, XMLStreamException {
+        List<String> strings = new ArrayList<>();
+        ZipEntry entry = zipFile.getEntry(SHARED_STRINGS);
+        if (entry == null) {
+            return strings;
+        }
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            StringBuilder current = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (reader.getLocalName().equals("si")) {
+                        current = new StringBuilder();
+                    } else if (reader.getLocalName().equals("t") && current != null) {
+                        current.append(reader.getElementText());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("si")) {
+                    strings.add(current != null ? current.toString() : "");
+                    current = null;
+                }
+            }
+            reader.close();
+        }
+        return strings;
+    }
+
+    // "C12" -> 2; si la celda no trae referencia se asume la siguiente columna
+    private int columnIndex(String reference, int fallback) {
+        if (reference == null) {
+            return fallback;
+        }
+        int index = 0;
+        for (int i = 0; i < reference.length() && Character.isLetter(reference.charAt(i)); i++) {
+            index = index * 26 + (Character.toUpperCase(reference.charAt(i)) - 'A' + 1);
+        }
+        return index - 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sheet.close();
+        } catch (XMLStreamException e) {
+            // Se cierra el ZIP de todas formas
+        }
+        sheetStream.close();
+        zipFile.close();
+        Files.deleteIfExists(tempFile);
+    }
+}
@@ -0,0 +1,77 @@
+-- Conversión única de "payments" a tabla particionada por mes de payment_date (PostgreSQL 13+).
+--
+-- Ejecutar en una ventana de mantenimiento con la aplicación detenida:
+--   psql -d control_pagos -f payments-partitioning.sql
+--
+-- Después de la conversión, PaymentPartitionMaintainer crea las particiones de los meses
+-- siguientes al arrancar y cada día (payments.partitioning.months-ahead).
+--
+-- Restricciones de PostgreSQL en tablas particionadas:
+--   * La clave primaria y las restricciones UNIQUE deben incluir la columna de partición,
+--     así que la PK pasa a (id, payment_date) y el recibo único a
+--     (branch_id, receipt_number, payment_date). La unicidad real del recibo la sigue
+--     garantizando receipt_sequences, que entrega cada número una sola vez por sede.
+--   * El id sigue siendo una identidad, por lo que no se repite entre particiones.
+--   * La entidad Payment declara el mismo uk_payments_branch_receipt de tres columnas: con
+--     ddl-auto=update Hibernate recrea esa restricción por nombre y debe coincidir con esta.
+
+BEGIN;
+
+LOCK TABLE payments IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE payments RENAME TO payments_legacy;
+ALTER TABLE payments_legacy RENAME CONSTRAINT payments_pkey TO payments_legacy_pkey;
+ALTER TABLE payments_legacy RENAME CONSTRAINT uk_payments_branch_receipt TO uk_payments_legacy_branch_receipt;
+ALTER INDEX IF EXISTS idx_payments_branch_date RENAME TO idx_payments_legacy_branch_date;
+ALTER INDEX IF EXISTS idx_payments_enrollment_status RENAME TO idx_payments_legacy_enrollment_status;
+
+CREATE TABLE payments (LIKE payments_legacy INCLUDING DEFAULTS)
+    PARTITION BY RANGE (payment_date);
+
+ALTER TABLE payments ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY;
+ALTER TABLE payments ADD CONSTRAINT payments_pkey PRIMARY KEY (id, payment_date);
+ALTER TABLE payments ADD CONSTRAINT uk_payments_branch_receipt
+    UNIQUE (branch_id, receipt_number, payment_date);
+ALTER TABLE payments ADD CONSTRAINT fk_payments_enrollment
+    FOREIGN KEY (enrollment_id) REFERENCES enrollments (id);
+ALTER TABLE payments ADD CONSTRAINT fk_payments_branch
+    FOREIGN KEY (branch_id) REFERENCES branches (id);
+ALTER TABLE payments ADD CONSTRAINT fk_payments_payment_method
+    FOREIGN KEY (payment_method_id) REFERENCES payment_methods (id);
+
+-- Índices en la tabla padre: PostgreSQL los replica en cada partición
+CREATE INDEX idx_payments_branch_date ON payments (branch_id, payment_date);
+CREATE INDEX idx_payments_enrollment_status ON payments (enrollment_id, status);
+
+-- Una partición por mes desde el primer pago hasta tres meses después del actual
+DO $$
+DECLARE
+    month_start date := date_trunc('month', COALESCE((SELECT MIN(payment_date) FROM payments_legacy), now()))::date;
+    last_month  date := (date_trunc('month', now()) + interval '3 months')::date;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF payments FOR VALUES FROM (%L) TO (%L)',
+            'payments_' || to_char(month_start, '"y"YYYY"m"MM'),
+            month_start,
+            (month_start + interval '1 month')::date
+        );
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+END $$;
+
+-- Red de seguridad: si el mantenimiento no corre a tiempo los pagos no fallan.
+-- PaymentPartitionMaintainer avisa si esta partición recibe filas.
+CREATE TABLE IF NOT EXISTS payments_default PARTITION OF payments DEFAULT;
+
+INSERT INTO payments SELECT * FROM payments_legacy;
+
+SELECT setval(pg_get_serial_sequence('payments', 'id'),
+              (SELECT COALESCE(MAX(id), 0) + 1 FROM payments_legacy),
+              false);
+
+COMMIT;
+
+-- Verificar conteos y luego eliminar la tabla anterior:
+--   SELECT (SELECT COUNT(*) FROM payments) AS nuevos, (SELECT COUNT(*) FROM payments_legacy) AS anteriores;
+--   DROP TABLE payments_legacy;
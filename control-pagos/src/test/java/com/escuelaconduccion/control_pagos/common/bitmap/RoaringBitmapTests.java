@@ -0,0 +1,102 @@
+package com.escuelaconduccion.control_pagos.common.bitmap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoaringBitmapTests {
+
+    @Test
+    void addRemoveAndContainsAcrossContainerTypes() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        // Bloque denso (pasa a mapa de bits) y valores dispersos en otros bloques
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.add(i);
+        }
+        bitmap.add(70_000);
+        bitmap.add(1_000_000);
+        bitmap.add(70_000);
+
+        assertThat(bitmap.getCardinality()).isEqualTo(10_002);
+        assertThat(bitmap.contains(9_999)).isTrue();
+        assertThat(bitmap.contains(10_000)).isFalse();
+        assertThat(bitmap.contains(1_000_000)).isTrue();
+
+        // Al vaciarse por debajo del umbral vuelve a arreglo sin perder valores
+        for (int i = 0; i < 9_000; i++) {
+            bitmap.remove(i);
+        }
+        bitmap.remove(1_000_000);
+
+        assertThat(bitmap.getCardinality()).isEqualTo(1_001);
+        assertThat(bitmap.contains(8_999)).isFalse();
+        assertThat(bitmap.contains(9_000)).isTrue();
+        assertThat(bitmap.toArray(3)).containsExactly(9_000, 9_001, 9_002);
+    }
+
+    @Test
+    void setOperationsMatchBitSet() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            BitSet expectedA = new BitSet();
+            BitSet expectedB = new BitSet();
+            RoaringBitmap a = randomBitmap(random, expectedA);
+            RoaringBitmap b = randomBitmap(random, expectedB);
+
+            BitSet and = (BitSet) expectedA.clone();
+            and.and(expectedB);
+            BitSet or = (BitSet) expectedA.clone();
+            or.or(expectedB);
+            BitSet andNot = (BitSet) expectedA.clone();
+            andNot.andNot(expectedB);
+
+            assertSameValues(RoaringBitmap.and(a, b), and);
+            assertSameValues(RoaringBitmap.or(a, b), or);
+            assertSameValues(RoaringBitmap.andNot(a, b), andNot);
+            // Los argumentos no cambian
+            assertSameValues(a, expectedA);
+            assertSameValues(b, expectedB);
+        }
+    }
+
+    @Test
+    void copyIsIndependent() {
+        RoaringBitmap original = RoaringBitmap.of(1, 2, 3, 200_000);
+        RoaringBitmap copy = original.copy();
+        copy.add(4);
+        copy.remove(200_000);
+
+        assertThat(original.toArray(10)).containsExactly(1, 2, 3, 200_000);
+        assertThat(copy.toArray(10)).containsExactly(1, 2, 3, 4);
+    }
+
+    private static RoaringBitmap randomBitmap(Random random, BitSet expected) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        // Mezcla bloques densos y dispersos para cubrir todas las combinaciones de contenedores
+        for (int block = 0; block < 6; block++) {
+            int base = block * 65_536;
+            int count = random.nextBoolean() ? 20_000 : 300;
+            for (int i = 0; i < count; i++) {
+                int value = base + random.nextInt(65_536);
+                bitmap.add(value);
+                expected.set(value);
+            }
+        }
+        return bitmap;
+    }
+
+    private static void assertSameValues(RoaringBitmap bitmap, BitSet expected) {
+        List<Integer> actual = new ArrayList<>();
+        bitmap.forEach(actual::add);
+        List<Integer> wanted = new ArrayList<>();
+        expected.stream().forEach(wanted::add);
+
+        assertThat(bitmap.getCardinality()).isEqualTo(expected.cardinality());
+        assertThat(actual).isEqualTo(wanted);
+    }
+}
@@ -0,0 +1,82 @@
+package com.escuelaconduccion.control_pagos.common.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class MoneyTests {
+
+    @Test
+    void conversionIsExact() {
+        assertThat(Money.toCents(new BigDecimal("1500000.00"))).isEqualTo(150_000_000L);
+        assertThat(Money.toCents(new BigDecimal("12.5"))).isEqualTo(1250L);
+        assertThat(Money.toCents(new BigDecimal("-0.01"))).isEqualTo(-1L);
+        assertThat(Money.toCents(null)).isZero();
+        assertThat(Money.toBigDecimal(150_000_000L)).isEqualByComparingTo("1500000.00");
+        assertThat(Money.of(new BigDecimal("10.10")).minus(Money.ofCents(10)).toBigDecimal())
+                .isEqualTo(new BigDecimal("10.00"));
+
+        assertThatThrownBy(() -> Money.toCents(new BigDecimal("0.005")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.toCents(new BigDecimal("1E+20")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void accumulatorMatchesBigDecimalSum() {
+        Random random = new Random(7);
+        MoneyAccumulator accumulator = new MoneyAccumulator();
+        BigDecimal expected = BigDecimal.ZERO;
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(50_000_000), 2);
+            accumulator.add(amount);
+            expected = expected.add(amount);
+        }
+
+        assertThat(accumulator.toBigDecimal()).isEqualByComparingTo(expected);
+        assertThat(accumulator.getCount()).isEqualTo(10_000);
+    }
+
+    @Test
+    void overflowFailsInsteadOfWrapping() {
+        MoneyAccumulator accumulator = new MoneyAccumulator().addCents(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> accumulator.addCents(1)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofCents(Long.MIN_VALUE).minus(Money.ofCents(1)))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    // Sin JMH en el proyecto: se compara la memoria asignada por el hilo en ambos caminos
+    @Test
+    void accumulatingCentsDoesNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        long threadId = Thread.currentThread().getId();
+        int additions = 1_000_000;
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        BigDecimal bigDecimalTotal = BigDecimal.ZERO;
+        for (int i = 0; i < additions; i++) {
+            bigDecimalTotal = bigDecimalTotal.add(BigDecimal.valueOf(i % 10_000, 2));
+        }
+        long bigDecimalBytes = threads.getThreadAllocatedBytes(threadId) - before;
+
+        before = threads.getThreadAllocatedBytes(threadId);
+        MoneyAccumulator accumulator = new MoneyAccumulator();
+        for (int i = 0; i < additions; i++) {
+            accumulator.addCents(i % 10_000);
+        }
+        long accumulatorBytes = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(accumulator.toBigDecimal()).isEqualByComparingTo(bigDecimalTotal);
+        assertThat(accumulatorBytes).isLessThan(64 * 1024);
+        assertThat(bigDecimalBytes).isGreaterThan(additions * 16L);
+    }
+}
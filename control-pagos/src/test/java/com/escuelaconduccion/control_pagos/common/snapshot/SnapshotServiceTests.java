@@ -0,0 +1,119 @@
+package com.escuelaconduccion.control_pagos.common.snapshot;
+
+import com.escuelaconduccion.control_pagos.analytics.cube.RevenueCube;
+import com.escuelaconduccion.control_pagos.analytics.cube.RevenueCubeQuery;
+import com.escuelaconduccion.control_pagos.analytics.cube.RevenueDimension;
+import com.escuelaconduccion.control_pagos.common.metrics.OperationalMetrics;
+import com.escuelaconduccion.control_pagos.payment.model.PaymentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotServiceTests {
+
+    @TempDir
+    Path directory;
+
+    // Participante mínimo sobre un cubo, sin base de datos ni outbox
+    private static class CubeParticipant implements SnapshotParticipant {
+
+        private final int version;
+        private RevenueCube cube = new RevenueCube();
+        private long watermark;
+        private boolean restored;
+
+        CubeParticipant(int version) {
+            this.version = version;
+        }
+
+        @Override
+        public String getSnapshotName() {
+            return "cube";
+        }
+
+        @Override
+        public int getSnapshotVersion() {
+            return version;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public long writeSnapshot(DataOutput out) throws IOException {
+            cube.writeTo(out);
+            return watermark;
+        }
+
+        @Override
+        public void restoreSnapshot(ByteBuffer data, long snapshotWatermark, LocalDateTime createdAt) {
+            cube = RevenueCube.readFrom(data);
+            watermark = snapshotWatermark;
+            restored = true;
+        }
+    }
+
+    @Test
+    void restoresStateAndWatermark() {
+        CubeParticipant source = new CubeParticipant(1);
+        LocalDateTime date = LocalDateTime.of(2025, 3, 10, 9, 0);
+        source.cube.add(1L, date, 5, 2, PaymentType.ABONO, 150_000_00L, 1);
+        source.cube.add(2L, date, 5, 2, PaymentType.PAGO_TOTAL, 80_000_00L, 1);
+        source.watermark = 42;
+        service(source).checkpoint(source);
+
+        CubeParticipant target = new CubeParticipant(1);
+        assertThat(service(target).restore(target)).isTrue();
+
+        RevenueCubeQuery total = new RevenueCubeQuery(EnumSet.of(RevenueDimension.YEAR), null, null, null, null, null, null);
+        List<RevenueCube.Row> rows = target.cube.query(total);
+        assertThat(target.watermark).isEqualTo(42);
+        assertThat(target.cube.getCellCount()).isEqualTo(2);
+        assertThat(rows).singleElement().satisfies(row -> {
+            assertThat(row.cents()).isEqualTo(230_000_00L);
+            assertThat(row.count()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void rejectsCorruptOrIncompatibleSnapshots() throws IOException {
+        CubeParticipant source = new CubeParticipant(1);
+        source.cube.add(1L, LocalDateTime.of(2025, 3, 10, 9, 0), 5, 2, PaymentType.ABONO, 100L, 1);
+        service(source).checkpoint(source);
+
+        CubeParticipant otherVersion = new CubeParticipant(2);
+        assertThat(service(otherVersion).restore(otherVersion)).isFalse();
+        assertThat(otherVersion.restored).isFalse();
+
+        // Un byte alterado en los datos invalida el CRC
+        Path file = directory.resolve("cube.snap");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+
+        CubeParticipant target = new CubeParticipant(1);
+        assertThat(service(target).restore(target)).isFalse();
+        assertThat(target.restored).isFalse();
+    }
+
+    private SnapshotService service(SnapshotParticipant participant) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("participant", participant));
+        return new SnapshotService(beans.getBeanProvider(SnapshotParticipant.class), new OperationalMetrics(),
+                true, directory.toString(), 24, 72);
+    }
+}
@@ -0,0 +1,171 @@
+package com.escuelaconduccion.control_pagos.config;
+
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadClass;
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadContext;
+import com.escuelaconduccion.control_pagos.common.routing.PrimaryReadContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Decisión de enrutamiento del datasource sin base de datos: cada pool es un stub que
+ * anota su nombre cuando se ejecuta una sentencia en una de sus conexiones.
+ */
+class DataSourceRoutingTests {
+
+    private final List<String> used = new ArrayList<>();
+
+    @AfterEach
+    void clearContext() {
+        WorkloadContext.clear();
+        PrimaryReadContext.clear();
+    }
+
+    @Test
+    void withoutReplicaReadsFollowTheWorkload() throws SQLException {
+        DataSource routing = routing(null);
+
+        assertThat(execute(routing, false)).isEqualTo("primary");
+        assertThat(execute(routing, true)).isEqualTo("primary");
+
+        WorkloadContext.set(WorkloadClass.REPORT);
+        assertThat(execute(routing, false)).isEqualTo("reports");
+        assertThat(execute(routing, true)).isEqualTo("reports");
+    }
+
+    @Test
+    void healthyReplicaServesOnlyReadOnlyConnections() throws SQLException {
+        ReplicaLagMonitor monitor = monitor();
+        monitor.record(1);
+        DataSource routing = routing(monitor);
+
+        assertThat(execute(routing, true)).isEqualTo("replica");
+        assertThat(execute(routing, false)).isEqualTo("primary");
+
+        // Los reportes leen de la réplica; sus escrituras siguen en el pool de reportes
+        WorkloadContext.set(WorkloadClass.REPORT);
+        assertThat(execute(routing, true)).isEqualTo("replica");
+        assertThat(execute(routing, false)).isEqualTo("reports");
+    }
+
+    @Test
+    void laggingReplicaSendsReadsBackToThePrimary() throws SQLException {
+        ReplicaLagMonitor monitor = monitor();
+        DataSource routing = routing(monitor);
+
+        // Sin medición todavía no se usa
+        assertThat(execute(routing, true)).isEqualTo("primary");
+
+        monitor.record(30);
+        assertThat(monitor.isReplicaUsable()).isFalse();
+        assertThat(execute(routing, true)).isEqualTo("primary");
+
+        monitor.record(5);
+        assertThat(execute(routing, true)).isEqualTo("replica");
+
+        monitor.record(-1);
+        assertThat(execute(routing, true)).isEqualTo("primary");
+    }
+
+    @Test
+    void primaryReadContextSkipsTheReplica() throws SQLException {
+        ReplicaLagMonitor monitor = monitor();
+        monitor.record(0);
+        DataSource routing = routing(monitor);
+
+        assertThat(PrimaryReadContext.call(() -> executeUnchecked(routing, true))).isEqualTo("primary");
+        WorkloadContext.set(WorkloadClass.REPORT);
+        assertThat(PrimaryReadContext.call(() -> executeUnchecked(routing, true))).isEqualTo("reports");
+
+        assertThat(PrimaryReadContext.isActive()).isFalse();
+        assertThat(execute(routing, true)).isEqualTo("replica");
+    }
+
+    @Test
+    void unreachableReplicaIsMarkedUnusable() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(
+                new DriverManagerDataSource("jdbc:postgresql://127.0.0.1:1/replica"), 5);
+        monitor.record(0);
+
+        monitor.check();
+
+        assertThat(monitor.isReplicaUsable()).isFalse();
+        assertThat(monitor.getLastLagSeconds()).isEqualTo(-1);
+    }
+
+    private ReplicaLagMonitor monitor() {
+        return new ReplicaLagMonitor(stub("replica-monitor"), 5);
+    }
+
+    private DataSource routing(ReplicaLagMonitor monitor) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        if (monitor != null) {
+            beans.addBean("replicaDataSource", stub("replica"));
+            beans.addBean("replicaLagMonitor", monitor);
+        }
+        return new DataSourceRoutingConfig().dataSource(
+                stub("primary"),
+                stub("reports"),
+                beans.getBeanProvider(DataSource.class),
+                beans.getBeanProvider(ReplicaLagMonitor.class));
+    }
+
+    // Como una transacción: se marca la conexión y luego se ejecuta la primera sentencia
+    private String execute(DataSource routing, boolean readOnly) throws SQLException {
+        used.clear();
+        try (Connection connection = routing.getConnection()) {
+            connection.setReadOnly(readOnly);
+            connection.createStatement();
+        }
+        assertThat(used).hasSize(1);
+        return used.get(0);
+    }
+
+    private String executeUnchecked(DataSource routing, boolean readOnly) {
+        try {
+            return execute(routing, readOnly);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private DataSource stub(String name) {
+        return new AbstractDataSource() {
+            @Override
+            public Connection getConnection() {
+                return (Connection) Proxy.newProxyInstance(
+                        Connection.class.getClassLoader(),
+                        new Class<?>[]{Connection.class},
+                        (proxy, method, args) -> switch (method.getName()) {
+                            case "createStatement" -> {
+                                used.add(name);
+                                yield null;
+                            }
+                            case "getAutoCommit" -> true;
+                            case "getTransactionIsolation" -> Connection.TRANSACTION_READ_COMMITTED;
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            case "equals" -> proxy == args[0];
+                            case "toString" -> name;
+                            default -> method.getReturnType() == boolean.class ? false
+                                    : method.getReturnType() == int.class ? 0 : null;
+                        });
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) {
+                return getConnection();
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package com.escuelaconduccion.control_pagos.config;
+
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadClass;
+import com.escuelaconduccion.control_pagos.common.bulkhead.WorkloadContext;
+import com.escuelaconduccion.control_pagos.common.routing.PrimaryReadContext;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Enrutamiento contra servidores reales: con DB_REPLICA_URL apunta a una réplica de
+ * streaming; sin ella la "réplica" es el mismo servidor primario, suficiente para ver
+ * qué pool atiende cada transacción. Cada pool marca sus conexiones con su nombre en
+ * application_name.
+ */
+@SpringBootTest(properties = {
+        "datasource.replica.enabled=true",
+        "datasource.replica.url=${DB_REPLICA_URL:${spring.datasource.url}}",
+        "datasource.replica.lag-check-ms=3600000"
+})
+class ReplicaRoutingTests {
+
+    @TestConfiguration
+    static class PoolNames {
+
+        @Bean
+        static BeanPostProcessor poolApplicationName() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                    if (bean instanceof HikariDataSource dataSource) {
+                        dataSource.setConnectionInitSql("SET application_name = '" + dataSource.getPoolName() + "'");
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @BeforeEach
+    void measureReplica() {
+        replicaLagMonitor.check();
+        assertThat(replicaLagMonitor.isReplicaUsable()).isTrue();
+        assertThat(replicaLagMonitor.getLastLagSeconds()).isGreaterThanOrEqualTo(0);
+    }
+
+    @AfterEach
+    void clearContext() {
+        WorkloadContext.clear();
+        PrimaryReadContext.clear();
+        replicaLagMonitor.check();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(poolUsedBy(true)).isEqualTo("replica");
+        assertThat(poolUsedBy(false)).isEqualTo("primary");
+    }
+
+    @Test
+    void laggingReplicaSendsReadsToThePrimary() {
+        replicaLagMonitor.record(3600);
+
+        assertThat(poolUsedBy(true)).isEqualTo("primary");
+    }
+
+    @Test
+    void primaryReadContextSkipsTheReplica() {
+        assertThat(PrimaryReadContext.call(() -> poolUsedBy(true))).isEqualTo("primary");
+        assertThat(poolUsedBy(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void reportWorkloadWritesThroughTheReportsPool() {
+        WorkloadContext.set(WorkloadClass.REPORT);
+
+        assertThat(poolUsedBy(false)).isEqualTo("reports");
+        assertThat(poolUsedBy(true)).isEqualTo("replica");
+        assertThat(PrimaryReadContext.call(() -> poolUsedBy(true))).isEqualTo("reports");
+    }
+
+    private String poolUsedBy(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                jdbcTemplate.queryForObject("SELECT current_setting('application_name')", String.class));
+    }
+}
@@ -0,0 +1,209 @@
+package com.escuelaconduccion.control_pagos.payment;
+
+import com.escuelaconduccion.control_pagos.branch.model.Branch;
+import com.escuelaconduccion.control_pagos.branch.repository.BranchRepository;
+import com.escuelaconduccion.control_pagos.course.model.Course;
+import com.escuelaconduccion.control_pagos.course.repository.CourseRepository;
+import com.escuelaconduccion.control_pagos.enrollment.model.Enrollment;
+import com.escuelaconduccion.control_pagos.enrollment.repository.EnrollmentRepository;
+import com.escuelaconduccion.control_pagos.payment.dto.PaymentRequestDTO;
+import com.escuelaconduccion.control_pagos.payment.dto.PaymentResponseDTO;
+import com.escuelaconduccion.control_pagos.payment.model.PaymentMethod;
+import com.escuelaconduccion.control_pagos.payment.model.PaymentType;
+import com.escuelaconduccion.control_pagos.payment.repository.PaymentMethodRepository;
+import com.escuelaconduccion.control_pagos.payment.service.PaymentService;
+import com.escuelaconduccion.control_pagos.student.model.Student;
+import com.escuelaconduccion.control_pagos.student.repository.StudentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ReceiptNumberConcurrencyTests {
+
+    private static final int THREADS = 16;
+    private static final int PAYMENTS_PER_BRANCH = 200;
+    // Piso holgado: detecta una asignación serializada por esperas de lock, no ajusta rendimiento
+    private static final double MIN_ALLOCATIONS_PER_SECOND = 20;
+
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private BranchRepository branchRepository;
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+    @Autowired
+    private PaymentMethodRepository paymentMethodRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Datos creados por la prueba, para borrarlos al terminar
+    private final List<Long> branchIds = new ArrayList<>();
+    private final List<Long> studentIds = new ArrayList<>();
+    private final List<Long> enrollmentIds = new ArrayList<>();
+    private Long courseId;
+    private Long methodId;
+
+    @AfterEach
+    void cleanUp() {
+        for (Long enrollmentId : enrollmentIds) {
+            jdbcTemplate.update("DELETE FROM payments WHERE enrollment_id = ?", enrollmentId);
+            jdbcTemplate.update("DELETE FROM enrollments WHERE id = ?", enrollmentId);
+        }
+        studentIds.forEach(id -> jdbcTemplate.update("DELETE FROM students WHERE id = ?", id));
+        for (Long branchId : branchIds) {
+            jdbcTemplate.update("DELETE FROM receipt_sequences WHERE branch_id = ?", branchId);
+            jdbcTemplate.update("DELETE FROM branches WHERE id = ?", branchId);
+        }
+        if (courseId != null) {
+            jdbcTemplate.update("DELETE FROM courses WHERE id = ?", courseId);
+        }
+        if (methodId != null) {
+            jdbcTemplate.update("DELETE FROM payment_methods WHERE id = ?", methodId);
+        }
+    }
+
+    @BeforeEach
+    void createEnrollments() {
+        String suffix = Long.toString(System.nanoTime() % 1_000_000);
+        PaymentMethod method = paymentMethodRepository.save(PaymentMethod.builder()
+                .name("Efectivo test " + suffix)
+                .type(PaymentMethod.PaymentMethodType.CASH)
+                .build());
+        methodId = method.getId();
+        Course course = courseRepository.save(Course.builder()
+                .name("Curso concurrencia " + suffix)
+                .totalHours(10)
+                .price(new BigDecimal("1000000.00"))
+                .build());
+        courseId = course.getId();
+
+        for (String code : List.of("TA" + suffix, "TB" + suffix)) {
+            Branch branch = branchRepository.save(Branch.builder().code(code).name("Sede " + code).build());
+            branchIds.add(branch.getId());
+            for (int i = 0; i < 4; i++) {
+                Student student = studentRepository.save(Student.builder()
+                        .firstName("Test")
+                        .lastName(code + "-" + i)
+                        .documentNumber(code + i)
+                        .branch(branch)
+                        .build());
+                studentIds.add(student.getId());
+                Enrollment enrollment = enrollmentRepository.save(Enrollment.builder()
+                        .student(student)
+                        .course(course)
+                        .branch(branch)
+                        .enrollmentDate(LocalDate.now())
+                        .totalAmount(course.getPrice())
+                        .build());
+                enrollmentIds.add(enrollment.getId());
+            }
+        }
+    }
+
+    @Test
+    void receiptNumbersStayGaplessPerBranchUnderConcurrency(TestReporter reporter) throws Exception {
+        long start = System.nanoTime();
+        List<PaymentResponseDTO> payments = registerConcurrently();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        // Rendimiento de la asignación de números bajo contención (16 hilos, 2 sedes)
+        double allocationsPerSecond = payments.size() / seconds;
+        reporter.publishEntry("receiptAllocationsPerSecond", String.format(Locale.ROOT, "%.1f", allocationsPerSecond));
+        assertThat(allocationsPerSecond).isGreaterThanOrEqualTo(MIN_ALLOCATIONS_PER_SECOND);
+
+        // Anular pagos en paralelo no debe alterar ni reutilizar números ya emitidos
+        cancelEveryTenthConcurrently(payments);
+
+        Map<Long, List<Long>> receiptsByBranch = new HashMap<>();
+        for (Long enrollmentId : enrollmentIds) {
+            jdbcTemplate.query("SELECT branch_id, receipt_number FROM payments WHERE enrollment_id = ?",
+                    rs -> {
+                        receiptsByBranch.computeIfAbsent(rs.getLong(1), k -> new ArrayList<>()).add(rs.getLong(2));
+                    },
+                    enrollmentId);
+        }
+
+        assertThat(receiptsByBranch).hasSize(2);
+        receiptsByBranch.values().forEach(receipts -> assertThat(receipts)
+                .containsExactlyInAnyOrderElementsOf(
+                        LongStream.rangeClosed(1, PAYMENTS_PER_BRANCH).boxed().toList()));
+    }
+
+    @Test
+    void paidAmountHasNoLostUpdatesUnderConcurrency() throws Exception {
+        List<PaymentResponseDTO> payments = registerConcurrently();
+        cancelEveryTenthConcurrently(payments);
+
+        Map<Long, BigDecimal> expectedPaid = new HashMap<>();
+        for (int i = 0; i < payments.size(); i++) {
+            if (i % 10 != 0) {
+                expectedPaid.merge(payments.get(i).getEnrollmentId(), payments.get(i).getAmount(), BigDecimal::add);
+            }
+        }
+        for (Long enrollmentId : enrollmentIds) {
+            assertThat(enrollmentRepository.findById(enrollmentId).orElseThrow().getPaidAmount())
+                    .isEqualByComparingTo(expectedPaid.getOrDefault(enrollmentId, BigDecimal.ZERO));
+        }
+    }
+
+    // Varios pagos simultáneos por matrícula y por sede
+    private List<PaymentResponseDTO> registerConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<PaymentResponseDTO>> futures = new ArrayList<>();
+            for (int i = 0; i < PAYMENTS_PER_BRANCH * 2; i++) {
+                Long enrollmentId = enrollmentIds.get(i % enrollmentIds.size());
+                futures.add(executor.submit(() -> paymentService.registerPayment(PaymentRequestDTO.builder()
+                        .enrollmentId(enrollmentId)
+                        .amount(new BigDecimal("1000.00"))
+                        .type(PaymentType.ABONO)
+                        .paymentMethodId(methodId)
+                        .build())));
+            }
+            List<PaymentResponseDTO> payments = new ArrayList<>();
+            for (Future<PaymentResponseDTO> future : futures) {
+                payments.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return payments;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void cancelEveryTenthConcurrently(List<PaymentResponseDTO> payments) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> cancellations = new ArrayList<>();
+            for (int i = 0; i < payments.size(); i += 10) {
+                Long paymentId = payments.get(i).getId();
+                cancellations.add(executor.submit(() -> paymentService.cancelPayment(paymentId)));
+            }
+            for (Future<?> cancellation : cancellations) {
+                cancellation.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
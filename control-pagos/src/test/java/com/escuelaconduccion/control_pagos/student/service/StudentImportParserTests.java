@@ -0,0 +1,208 @@
+package com.escuelaconduccion.control_pagos.student.service;
+
+import com.escuelaconduccion.control_pagos.student.service.StudentImportParser.Outcome;
+import com.escuelaconduccion.control_pagos.student.service.StudentImportParser.ParsedRow;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StudentImportParserTests {
+
+    @Test
+    void csvWithSemicolonsQuotesAndBom() throws IOException {
+        String csv = "\uFEFFCédula;Nombres;Apellidos;Correo;Teléfono\r\n"
+                + "1001;\"Ana; María\";Pérez;ana@mail.com;3001234567\r\n"
+                + "\r\n"
+                + "1002;\"Luis\nAlberto\";\"Gómez \"\"el Rápido\"\"\";;\r\n";
+
+        List<ParsedRow> rows = parseCsv(csv);
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).outcome()).isEqualTo(Outcome.VALID);
+        assertThat(rows.get(0).row().rowNumber()).isEqualTo(2);
+        assertThat(rows.get(0).row().documentNumber()).isEqualTo("1001");
+        assertThat(rows.get(0).row().firstName()).isEqualTo("Ana; María");
+        assertThat(rows.get(0).row().email()).isEqualTo("ana@mail.com");
+        assertThat(rows.get(0).row().phone()).isEqualTo("3001234567");
+
+        // La fila vacía se omite pero cuenta para el número de fila
+        assertThat(rows.get(1).row().rowNumber()).isEqualTo(4);
+        assertThat(rows.get(1).row().firstName()).isEqualTo("Luis\nAlberto");
+        assertThat(rows.get(1).row().lastName()).isEqualTo("Gómez \"el Rápido\"");
+        assertThat(rows.get(1).row().email()).isNull();
+    }
+
+    @Test
+    void headerAliasesAndColumnOrder() throws IOException {
+        List<ParsedRow> rows = parseCsv("""
+                apellido,E-mail,Número Documento,NOMBRE,celular
+                Torres,luz@mail.com,2001,Luz,310
+                """);
+
+        assertThat(rows).singleElement().satisfies(row -> {
+            assertThat(row.outcome()).isEqualTo(Outcome.VALID);
+            assertThat(row.row().documentNumber()).isEqualTo("2001");
+            assertThat(row.row().firstName()).isEqualTo("Luz");
+            assertThat(row.row().lastName()).isEqualTo("Torres");
+            assertThat(row.row().email()).isEqualTo("luz@mail.com");
+            assertThat(row.row().phone()).isEqualTo("310");
+        });
+
+        assertThatThrownBy(() -> parseCsv("documento,nombres\n1,Ana\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Falta la columna obligatoria");
+        assertThatThrownBy(() -> parseCsv(""))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El archivo está vacío");
+    }
+
+    @Test
+    void unterminatedQuoteRejectsTheFile() {
+        assertThatThrownBy(() -> parseCsv("documento,nombres,apellidos\n1,\"Ana,Pérez\n2,Luis,Gómez\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("comillas sin cerrar");
+
+        // La comilla abierta no arrastra el resto del archivo a la celda
+        String rest = "2,Luis,Gómez\n".repeat(CsvStudentRowReader.MAX_ROW_LENGTH / 10);
+        assertThatThrownBy(() -> parseCsv("documento,nombres,apellidos\n1,\"Ana,Pérez\n" + rest))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("revise que las comillas estén cerradas");
+    }
+
+    @Test
+    void invalidRowsAreReportedWithTheirReason() throws IOException {
+        List<ParsedRow> rows = parseCsv("""
+                documento,nombres,apellidos,email,telefono
+                ,Ana,Pérez,,
+                123456789012345678901,Ana,Pérez,,
+                3001,,Pérez,,
+                3002,Ana,Pérez,sin-arroba,
+                3003,Ana,Pérez,,123456789012345678901
+                3004,Ana,Pérez,,
+                """);
+
+        assertThat(rows).extracting(ParsedRow::outcome).containsExactly(
+                Outcome.INVALID, Outcome.INVALID, Outcome.INVALID, Outcome.INVALID, Outcome.INVALID, Outcome.VALID);
+        assertThat(rows).extracting(ParsedRow::message).containsExactly(
+                "El número de documento es obligatorio",
+                "El número de documento supera 20 caracteres",
+                "Nombres y apellidos son obligatorios",
+                "Email inválido",
+                "El teléfono supera 20 caracteres",
+                null);
+    }
+
+    @Test
+    void duplicatesAreDetectedWithinTheChunk() throws IOException {
+        StudentImportParser parser = new StudentImportParser(new CsvStudentRowReader(utf8("""
+                documento,nombres,apellidos
+                4001,Ana,Pérez
+                4001,Ana,Pérez
+                4002,Luis,Gómez
+                4001,Ana,Pérez
+                """)));
+
+        assertThat(parser.next().outcome()).isEqualTo(Outcome.VALID);
+        assertThat(parser.next().outcome()).isEqualTo(Outcome.REPEATED);
+        assertThat(parser.next().outcome()).isEqualTo(Outcome.VALID);
+
+        // Tras guardar el bloque, el repetido lo detecta la consulta de documentos existentes
+        parser.startChunk();
+        assertThat(parser.next().outcome()).isEqualTo(Outcome.VALID);
+        assertThat(parser.next()).isNull();
+    }
+
+    @Test
+    void xlsxFirstSheetIsResolvedFromTheWorkbook() throws IOException {
+        byte[] xlsx = zip(
+                "xl/workbook.xml", """
+                        <workbook xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main"
+                                  xmlns:r="http://schemas.openxmlformats.org/officeDocument/2006/relationships">
+                          <sheets>
+                            <sheet name="Estudiantes" sheetId="3" r:id="rId7"/>
+                            <sheet name="Otra" sheetId="1" r:id="rId1"/>
+                          </sheets>
+                        </workbook>""",
+                "xl/_rels/workbook.xml.rels", """
+                        <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">
+                          <Relationship Id="rId1" Type="worksheet" Target="worksheets/sheet1.xml"/>
+                          <Relationship Id="rId7" Type="worksheet" Target="/xl/worksheets/sheet3.xml"/>
+                        </Relationships>""",
+                "xl/sharedStrings.xml", """
+                        <sst xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main">
+                          <si><t>Cédula</t></si>
+                          <si><t>Nombres</t></si>
+                          <si><t>Apellidos</t></si>
+                          <si><r><t>Ana </t></r><r><t>María</t></r></si>
+                          <si><t>Pérez</t></si>
+                        </sst>""",
+                "xl/worksheets/sheet1.xml", """
+                        <worksheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main">
+                          <sheetData><row r="1"><c r="A1" t="inlineStr"><is><t>otra hoja</t></is></c></row></sheetData>
+                        </worksheet>""",
+                "xl/worksheets/sheet3.xml", """
+                        <worksheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main">
+                          <sheetData>
+                            <row r="1"><c r="A1" t="s"><v>0</v></c><c r="B1" t="s"><v>1</v></c><c r="C1" t="s"><v>2</v></c></row>
+                            <row r="2"><c r="A2"><v>1.0234567E7</v></c><c r="B2" t="s"><v>3</v></c><c r="C2" t="s"><v>4</v></c></row>
+                            <row r="3"><c r="B3" t="s"><v>3</v></c><c r="C3" t="s"><v>4</v></c></row>
+                          </sheetData>
+                        </worksheet>""");
+
+        List<ParsedRow> rows = new ArrayList<>();
+        try (StudentRowReader reader = new XlsxStudentRowReader(new ByteArrayInputStream(xlsx))) {
+            StudentImportParser parser = new StudentImportParser(reader);
+            ParsedRow row;
+            while ((row = parser.next()) != null) {
+                rows.add(row);
+            }
+        }
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).outcome()).isEqualTo(Outcome.VALID);
+        assertThat(rows.get(0).row().documentNumber()).isEqualTo("10234567");
+        assertThat(rows.get(0).row().firstName()).isEqualTo("Ana María");
+        assertThat(rows.get(0).row().lastName()).isEqualTo("Pérez");
+        // La celda A3 no existe en el XML: la columna queda vacía
+        assertThat(rows.get(1).outcome()).isEqualTo(Outcome.INVALID);
+        assertThat(rows.get(1).row().rowNumber()).isEqualTo(3);
+    }
+
+    private static List<ParsedRow> parseCsv(String content) throws IOException {
+        List<ParsedRow> rows = new ArrayList<>();
+        try (StudentRowReader reader = new CsvStudentRowReader(utf8(content))) {
+            StudentImportParser parser = new StudentImportParser(reader);
+            ParsedRow row;
+            while ((row = parser.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static ByteArrayInputStream utf8(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] zip(String... entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(entries[i]));
+                zip.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -20,7 +20,7 @@ import {
 } from '@/components/ui/select';
 import { Progress } from '@/components/ui/progress';
 import { useApi } from '@/hooks/useApi';
-import { Enrollment, Student, Course, CreateEnrollmentDTO } from '@/types/models';
+import { Enrollment, EnrollmentPaymentStatus, Student, Course, CreateEnrollmentDTO } from '@/types/models';
 import { useToast } from '@/hooks/use-toast';
 import { useAuth } from '@/context/AuthContext';
 import { useBranch } from '@/context/BranchContext';
@@ -28,6 +28,25 @@ import { Plus, Eye, DollarSign, Calendar, Search, Filter, X, Building } from 'lu
 import { ButtonLoader, PageLoader } from '@/components/ui/LoadingSpinner';
 
 const ITEMS_PER_PAGE = 10;
+const SEARCH_PAGE_SIZE = 200;
+
+// Valor del filtro de pago -> estado persistido que filtra el backend
+const PAYMENT_STATUS_FILTERS: Record<string, EnrollmentPaymentStatus> = {
+  paid: 'PAGADO',
+  partial: 'EN_PROGRESO',
+  pending: 'PENDIENTE',
+};
+
+interface KeysetPage<T> {
+  items: T[];
+  hasMore: boolean;
+  nextCursor: string | null;
+}
+
+interface StatusCount {
+  paymentStatus: EnrollmentPaymentStatus;
+  count: number;
+}
 
 const Enrollments: React.FC = () => {
   const { get, post } = useApi();
@@ -37,6 +56,9 @@ const Enrollments: React.FC = () => {
   const { branches } = branchContext;
   const [enrollments, setEnrollments] = useState<Enrollment[]>([]);
   const [filteredEnrollments, setFilteredEnrollments] = useState<Enrollment[]>([]);
+  // Inscripciones del estado de pago elegido, filtradas por el backend (null = sin filtro)
+  const [statusEnrollments, setStatusEnrollments] = useState<Enrollment[] | null>(null);
+  const [statusCounts, setStatusCounts] = useState<Partial<Record<EnrollmentPaymentStatus, number>>>({});
   const [students, setStudents] = useState<Student[]>([]);
   const [courses, setCourses] = useState<Course[]>([]);
   const [isLoading, setIsLoading] = useState(true);
@@ -65,12 +87,14 @@ const Enrollments: React.FC = () => {
 
   const fetchData = useCallback(async () => {
     try {
-      const [enrollmentsData, studentsData, coursesData] = await Promise.all([
+      const [enrollmentsData, studentsData, coursesData, countsData] = await Promise.all([
         get<Enrollment[]>('/enrollments'),
         get<Student[]>('/students'),
         get<Course[]>('/courses'),
+        get<StatusCount[]>('/enrollments/status-counts'),
       ]);
       setEnrollments(enrollmentsData);
+      setStatusCounts(Object.fromEntries(countsData.map(c => [c.paymentStatus, c.count])));
       setStudents(studentsData); // Cargar todos los estudiantes (activos e inactivos) para mostrar info histórica
       setCourses(coursesData.filter((c) => c.active));
     } catch (error) {
@@ -84,9 +108,46 @@ const Enrollments: React.FC = () => {
     fetchData();
   }, [fetchData]);
 
+  // El estado de pago se filtra en el servidor (índice sobre payment_status), recorriendo sus páginas
+  useEffect(() => {
+    const paymentStatus = PAYMENT_STATUS_FILTERS[filterPaymentStatus];
+    if (!paymentStatus) {
+      setStatusEnrollments(null);
+      return;
+    }
+    let cancelled = false;
+    const fetchByStatus = async () => {
+      try {
+        const items: Enrollment[] = [];
+        let cursor: string | null = null;
+        do {
+          const params = new URLSearchParams({ paymentStatus, size: String(SEARCH_PAGE_SIZE) });
+          if (cursor) {
+            params.set('cursor', cursor);
+          }
+          const page: KeysetPage<Enrollment> = await get<KeysetPage<Enrollment>>(`/enrollments/search?${params}`);
+          items.push(...page.items);
+          cursor = page.hasMore ? page.nextCursor : null;
+        } while (cursor && !cancelled);
+        if (!cancelled) {
+          setStatusEnrollments(items);
+        }
+      } catch (error) {
+        console.error('Error fetching enrollments by payment status:', error);
+      }
+    };
+    fetchByStatus();
+    return () => {
+      cancelled = true;
+    };
+  }, [filterPaymentStatus, enrollments, get]);
+
   // Aplicar filtros y ordenamiento
   useEffect(() => {
-    let result = [...enrollments];
+    if (filterPaymentStatus !== 'all' && statusEnrollments === null) {
+      return;
+    }
+    let result = [...(filterPaymentStatus !== 'all' && statusEnrollments ? statusEnrollments : enrollments)];
 
     // Filtro por búsqueda (estudiante)
     if (searchTerm) {
@@ -107,15 +168,6 @@ const Enrollments: React.FC = () => {
       result = result.filter(e => e.active === isActive);
     }
 
-    // Filtro por estado de pago
-    if (filterPaymentStatus === 'paid') {
-      result = result.filter(e => e.paidAmount >= e.totalAmount);
-    } else if (filterPaymentStatus === 'partial') {
-      result = result.filter(e => e.paidAmount > 0 && e.paidAmount < e.totalAmount);
-    } else if (filterPaymentStatus === 'pending') {
-      result = result.filter(e => e.paidAmount === 0);
-    }
-
     // Ordenamiento
     result.sort((a, b) => {
       let comparison = 0;
@@ -131,7 +183,7 @@ const Enrollments: React.FC = () => {
 
     setFilteredEnrollments(result);
     setCurrentPage(1);
-  }, [enrollments, searchTerm, filterCourse, filterStatus, filterPaymentStatus, sortField, sortOrder]);
+  }, [enrollments, statusEnrollments, searchTerm, filterCourse, filterStatus, filterPaymentStatus, sortField, sortOrder]);
 
   // Paginación
   const totalPages = Math.ceil(filteredEnrollments.length / ITEMS_PER_PAGE);
@@ -440,9 +492,9 @@ const Enrollments: React.FC = () => {
               </SelectTrigger>
               <SelectContent>
                 <SelectItem value="all">Todos</SelectItem>
-                <SelectItem value="paid">Pagado completo</SelectItem>
-                <SelectItem value="partial">Pago parcial</SelectItem>
-                <SelectItem value="pending">Sin pagos</SelectItem>
+                <SelectItem value="paid">Pagado completo ({statusCounts.PAGADO ?? 0})</SelectItem>
+                <SelectItem value="partial">Pago parcial ({statusCounts.EN_PROGRESO ?? 0})</SelectItem>
+                <SelectItem value="pending">Sin pagos ({statusCounts.PENDIENTE ?? 0})</SelectItem>
               </SelectContent>
             </Select>
 
@@ -60,10 +60,14 @@ export interface Enrollment {
   studentName?: string;
   studentDocument?: string;
   studentEmail?: string;
+  paymentStatus?: EnrollmentPaymentStatus;
 }
 
+export type EnrollmentPaymentStatus = 'PENDIENTE' | 'EN_PROGRESO' | 'PAGADO';
+
 export interface Payment {
   id: number;
+  receiptNumber?: number;
   enrollmentId: number;
   enrollment?: Enrollment;
   amount: number;